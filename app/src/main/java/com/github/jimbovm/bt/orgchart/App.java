@@ -1,12 +1,30 @@
 package com.github.jimbovm.bt.orgchart;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import com.github.jimbovm.bt.orgchart.generator.Generator;
 import com.github.jimbovm.bt.orgchart.parser.Parser;
+import com.github.jimbovm.bt.orgchart.server.QueryServer;
 
 /**
  * Executable class for the org chart app.
@@ -28,6 +46,72 @@ public final class App {
 	/** Command line argument index to the second employee name. */
 	private static final int EMPLOYEE_2 = 2;
 
+	/** Command line argument index to the optional shortest-only option. */
+	private static final int SHORTEST = 3;
+
+	/** Command line option printing only the shortest path between matches. */
+	private static final String SHORTEST_OPTION = "--shortest";
+
+	/** Command line option selecting batch mode, in place of the input file. */
+	private static final String BATCH_OPTION = "--batch";
+
+	/** Batch mode argument index to the path to the input file. */
+	private static final int BATCH_FILE_PATH = 1;
+
+	/** Batch mode argument index to the path to the query file. */
+	private static final int BATCH_QUERY_PATH = 2;
+
+	/** Command line option selecting server mode, in place of the input file. */
+	private static final String SERVE_OPTION = "--serve";
+
+	/** Server mode argument index to the path to the input file. */
+	private static final int SERVE_FILE_PATH = 1;
+
+	/** Server mode argument index to the port to listen on. */
+	private static final int SERVE_PORT = 2;
+
+	/** Server mode argument index to the optional number of worker threads. */
+	private static final int SERVE_THREADS = 3;
+
+	/** Command line option selecting snapshot mode, in place of the input file. */
+	private static final String SNAPSHOT_OPTION = "--snapshot";
+
+	/** Snapshot mode argument index to the path to the input file. */
+	private static final int SNAPSHOT_FILE_PATH = 1;
+
+	/** Snapshot mode argument index to the path to the snapshot to write. */
+	private static final int SNAPSHOT_OUTPUT_PATH = 2;
+
+	/** Command line option selecting generator mode, in place of the input file. */
+	private static final String GENERATE_OPTION = "--generate";
+
+	/** Generator mode argument index to the path to the file to write. */
+	private static final int GENERATE_OUTPUT_PATH = 1;
+
+	/** Generator mode argument index to the number of rows. */
+	private static final int GENERATE_ROWS = 2;
+
+	/** Generator mode argument index to the first optional setting. */
+	private static final int GENERATE_SETTINGS = 3;
+
+	/** Maximum number of suggestions for a name which was not found. */
+	private static final int MAX_SUGGESTIONS = 5;
+
+	/** Maximum edit distance of suggestions for a name which was not found. */
+	private static final int SUGGESTION_DISTANCE = 2;
+
+	/** Input or query file path which stands for standard input. */
+	private static final String STANDARD_INPUT = "-";
+
+	/** Output file path which stands for standard output. */
+	private static final String STANDARD_OUTPUT = "-";
+
+	/** System property which, if true, has the metrics written out on exit. */
+	private static final String METRICS_DUMP_PROPERTY = "orgchart.metrics.dump";
+
+	/** Separator between the two employees of a batch query. */
+	private static final Pattern QUERY_SEPARATOR = Pattern.compile("\\|");
+
 	/** Cached path to the input file. */
 	private static String filePath;
 
@@ -37,8 +121,11 @@ public final class App {
 	/** The normalized name of the second employee. */
 	private static String secondEmployeeName;
 
+	/** Whether to print only the shortest path between matching employees. */
+	private static boolean shortestOnly;
+
 	/** The global logger. */
-	private static Logger logger;
+	private static Logger logger = Logger.getGlobal();
 
 	private static void loggingSetup() throws IOException {
 		logger = Logger.getGlobal();
@@ -48,31 +135,29 @@ public final class App {
 
 	/**
 	 * Normalize a name by replacing all runs of whitespace with a single space,
+	 * stripping leading and trailing whitespace and converting it to lower case.
 	 * 
 	 * @param name The name to normalize.
 	 * @return The normalized name.
+	 * @see NameIndex#normalize(String)
 	 */
 	public static String normalizeName(String name) {
-
-		var whitespaceReplacementPattern = Pattern.compile("\s+",
-				Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS);
-		var matcher = whitespaceReplacementPattern.matcher(name);
-
-		var whitespaceNormalizedString = matcher.replaceAll(name);
-		return whitespaceNormalizedString.strip().replaceAll("\\s+", " ").toLowerCase();
+		return NameIndex.normalize(name);
 	}
 
 	/**
 	 * Checks if a list of Employee instances has at least one instance of an
 	 * employee with a supplied name.
 	 * 
+	 * To look up names repeatedly, build a NameIndex over the list instead.
+	 * 
 	 * @param employees A list of Employee instances.
 	 * @param name      A name, which is normalized, which the employee list is
 	 *                  search for.
 	 * @return True if the condition is met, false otherwise.
 	 */
 	public static boolean containsName(List<Employee> employees, String name) {
-		return employees.stream().anyMatch(employee -> normalizeName(employee.name()) == name);
+		return employees.stream().anyMatch(employee -> normalizeName(employee.name()).equals(name));
 	}
 
 	/**
@@ -84,66 +169,462 @@ public final class App {
 
 		filePath = args[FILE_PATH];
 
-		if (args.length != 3) {
+		if (args.length != 3 && !(args.length == 4 && args[SHORTEST].equals(SHORTEST_OPTION))) {
 			System.err.println("Wrong number of arguments.");
-			System.err.println("Usage: java -jar app.jar [input file] [employee name] [employee name]");
+			System.err.println("Usage: java -jar app.jar [input file] [employee name] [employee name] [--shortest]");
 			System.exit(EXIT_FAILURE);
 		}
 
+		shortestOnly = args.length == 4;
 		firstEmployeeName = normalizeName(args[EMPLOYEE_1]);
 		secondEmployeeName = normalizeName(args[EMPLOYEE_2]);
 
-		logger.info("Reading file " + filePath);
-		logger.info(String.format("Finding shortest path between \"%s\" (\"%s\") and \"%s\" (\"%s\")",
-				firstEmployeeName,
-				args[EMPLOYEE_1], secondEmployeeName, args[EMPLOYEE_2]));
+		logger.info(() -> "Reading file " + filePath);
+		logger.info(() -> String.format("Finding shortest path between \"%s\" (\"%s\") and \"%s\" (\"%s\")",
+				firstEmployeeName, args[EMPLOYEE_1], secondEmployeeName, args[EMPLOYEE_2]));
+	}
+
+	/**
+	 * Print suggestions for a name which was not found to standard error.
+	 * 
+	 * @param nameSearch    The name search to find suggestions with.
+	 * @param name          The name which was not found.
+	 * @param standardError The stream to print suggestions on.
+	 */
+	private static void suggest(NameSearch nameSearch, String name, PrintStream standardError) {
+
+		Set<Employee> suggestions = new LinkedHashSet<>(nameSearch.withPrefix(name, MAX_SUGGESTIONS));
+		for (var employee : nameSearch.similarTo(name, SUGGESTION_DISTANCE, MAX_SUGGESTIONS)) {
+			if (suggestions.size() < MAX_SUGGESTIONS) {
+				suggestions.add(employee);
+			}
+		}
+
+		if (!suggestions.isEmpty()) {
+			standardError.println(String.format("Did you mean one of these instead of \"%s\"?", name.strip()));
+			suggestions.forEach(employee -> standardError.println("\t" + employee.toString()));
+		}
+	}
+
+	/**
+	 * Open the query input for batch mode.
+	 * 
+	 * @param queryPath     The path to the query file, or "-" for standard input.
+	 * @param standardInput The standard input stream.
+	 * @return A reader over the queries.
+	 * @throws IOException if the query file cannot be opened.
+	 */
+	private static BufferedReader openQueries(String queryPath, InputStream standardInput) throws IOException {
+
+		if (queryPath.equals(STANDARD_INPUT)) {
+			return new BufferedReader(new InputStreamReader(standardInput, StandardCharsets.UTF_8));
+		}
+		return Files.newBufferedReader(Path.of(queryPath), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Run in batch mode, loading the org chart once and answering a stream of
+	 * queries against it.
+	 * 
+	 * Each non-blank line of the query input names two employees separated by a
+	 * pipe, by name or by ID, e.g. "Bowser Jr | Kamek" or "1 | -1". One line is
+	 * written to standard output per pair of employees found; queries which
+	 * cannot be answered are reported on standard error with their line number.
+	 * Queries are read and answered one at a time, so memory use does not grow
+	 * with the number of queries. Output is buffered, but when queries are read
+	 * from standard input it is flushed after each one, so that a program
+	 * writing queries to a pipe can read each answer before sending the next.
+	 * 
+	 * @param args           The command line arguments; the batch option, input
+	 *                       file path and query file path, in that order.
+	 * @param standardInput  The stream to read queries from if the query file
+	 *                       path is "-".
+	 * @param standardOutput The stream to write paths to.
+	 * @param standardError  The stream to report queries which cannot be
+	 *                       answered on.
+	 * @return EXIT_SUCCESS if every query was answered, EXIT_FAILURE otherwise.
+	 * @throws IOException if the input or query file cannot be read.
+	 */
+	static int runBatch(String[] args, InputStream standardInput, OutputStream standardOutput,
+			PrintStream standardError) throws IOException {
+
+		if (args.length != 3) {
+			standardError.println("Wrong number of arguments.");
+			standardError.println("Usage: java -jar app.jar --batch [input file] [query file, or - for standard input]");
+			return EXIT_FAILURE;
+		}
+
+		filePath = args[BATCH_FILE_PATH];
+		logger.info(() -> "Reading file " + filePath);
+
+		final var orgChart = OrgChart.load(filePath);
+
+		var exitCode = EXIT_SUCCESS;
+		final var output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(standardOutput,
+				StandardCharsets.UTF_8)));
+		final var interactive = args[BATCH_QUERY_PATH].equals(STANDARD_INPUT);
+
+		try (var queries = openQueries(args[BATCH_QUERY_PATH], standardInput)) {
+
+			var lineNumber = 0;
+			for (var line = queries.readLine(); line != null; line = queries.readLine()) {
+
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+
+				final var fields = QUERY_SEPARATOR.splitAsStream(line)
+						.filter(field -> !field.isBlank())
+						.toList();
+				if (fields.size() != 2) {
+					standardError.println(String.format("Line %d: expected two employees separated by |", lineNumber));
+					exitCode = EXIT_FAILURE;
+					continue;
+				}
+
+				final var employees1 = orgChart.resolve(fields.get(0));
+				final var employees2 = orgChart.resolve(fields.get(1));
+				if (employees1.isEmpty() || employees2.isEmpty()) {
+					standardError.println(String.format("Line %d: One or more supplied employees not found.",
+							lineNumber));
+					exitCode = EXIT_FAILURE;
+					continue;
+				}
+
+				for (var employee1 : employees1) {
+					for (var employee2 : employees2) {
+						try {
+							output.println(orgChart.pathFinder().find(employee1, employee2));
+						} catch (IllegalArgumentException e) {
+							standardError.println(String.format("Line %d: %s", lineNumber, e.getMessage()));
+							exitCode = EXIT_FAILURE;
+						}
+					}
+				}
+				if (interactive) {
+					output.flush();
+				}
+			}
+		} finally {
+			output.flush();
+		}
+
+		return exitCode;
+	}
+
+	/**
+	 * Run in server mode, loading the org chart once and answering queries over
+	 * HTTP until the process is terminated, reloading the chart whenever the
+	 * input file changes.
+	 * 
+	 * @param args The command line arguments; the server option, input file path,
+	 *             port and optionally the number of worker threads, in that order.
+	 * @return EXIT_FAILURE if the arguments are invalid; otherwise the server runs
+	 *         until the process is terminated and this method does not return.
+	 * @throws IOException if the input file cannot be read or the server cannot
+	 *                     be started.
+	 */
+	private static int runServer(String[] args) throws IOException {
+
+		if (args.length != 3 && args.length != 4) {
+			System.err.println("Wrong number of arguments.");
+			System.err.println("Usage: java -jar app.jar --serve [input file] [port] [worker threads]");
+			return EXIT_FAILURE;
+		}
+
+		final int port;
+		final int threads;
+		try {
+			port = Integer.parseInt(args[SERVE_PORT]);
+			threads = (args.length > SERVE_THREADS) ? Integer.parseInt(args[SERVE_THREADS])
+					: Runtime.getRuntime().availableProcessors();
+		} catch (NumberFormatException e) {
+			System.err.println("Port and worker threads must be integers.");
+			return EXIT_FAILURE;
+		}
+
+		filePath = args[SERVE_FILE_PATH];
+		final var orgChart = OrgChartHolder.load(filePath);
+		orgChart.watch();
+		final var server = new QueryServer(orgChart, port, threads);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.err.println(String.format("Serving %s on http://localhost:%d/", filePath, server.getPort()));
+
+		// the server's worker threads keep the process alive
+		return EXIT_SUCCESS;
+	}
+
+	/**
+	 * Run in snapshot mode, loading the org chart and writing a binary snapshot of
+	 * it which batch and server modes can load in place of the input file.
+	 * 
+	 * @param args The command line arguments; the snapshot option, input file path
+	 *             and snapshot path, in that order.
+	 * @return The exit code.
+	 * @throws IOException if the input file cannot be read or the snapshot cannot
+	 *                     be written.
+	 */
+	private static int runSnapshot(String[] args) throws IOException {
+
+		if (args.length != 3) {
+			System.err.println("Wrong number of arguments.");
+			System.err.println("Usage: java -jar app.jar --snapshot [input file] [snapshot file]");
+			return EXIT_FAILURE;
+		}
+
+		Snapshot.write(OrgChart.load(args[SNAPSHOT_FILE_PATH]), Path.of(args[SNAPSHOT_OUTPUT_PATH]));
+		return EXIT_SUCCESS;
+	}
+
+	/**
+	 * Parse the value of a generator setting which names one of a set of choices.
+	 * 
+	 * @param <E>   The type of the choices.
+	 * @param type  The class of the choices.
+	 * @param value The value, in any case.
+	 * @return The choice named.
+	 * @throws IllegalArgumentException if the value names none of the choices.
+	 */
+	private static <E extends Enum<E>> E parseSetting(Class<E> type, String value) throws IllegalArgumentException {
+
+		for (var choice : type.getEnumConstants()) {
+			if (choice.name().equalsIgnoreCase(value)) {
+				return choice;
+			}
+		}
+		throw new IllegalArgumentException(String.format("Unknown setting value \"%s\"; expected one of %s", value,
+				Arrays.toString(type.getEnumConstants()).toLowerCase()));
+	}
+
+	/**
+	 * Run in generator mode, writing a synthetic org chart of a given size for
+	 * load testing. The org chart is streamed to the output as it is generated,
+	 * so any size up to Generator.MAX_ROWS can be written in constant memory.
+	 * 
+	 * Optional settings follow the number of rows as name=value pairs: shape
+	 * (chain, star, tree or random), fanout (the mean number of reports in a
+	 * tree), distribution (fixed, uniform or geometric fan-out in a tree),
+	 * maxdepth (the greatest depth of a tree), duplicates (the proportion of
+	 * names repeated) and seed.
+	 * 
+	 * @param args The command line arguments; the generator option, output file
+	 *             path or "-" for standard output, number of rows and settings,
+	 *             in that order.
+	 * @return The exit code.
+	 * @throws IOException              if the output cannot be written.
+	 * @throws IllegalArgumentException if a setting is invalid.
+	 */
+	private static int runGenerate(String[] args) throws IOException, IllegalArgumentException {
+
+		if (args.length < 3) {
+			System.err.println("Wrong number of arguments.");
+			System.err.println("Usage: java -jar app.jar --generate [output file, or - for standard output] [rows] "
+					+ "[shape=chain|star|tree|random] [fanout=n] [distribution=fixed|uniform|geometric] "
+					+ "[maxdepth=n] [duplicates=rate] [seed=n]");
+			return EXIT_FAILURE;
+		}
+
+		final var builder = Generator.builder();
+		try {
+			builder.rows(Integer.parseInt(args[GENERATE_ROWS]));
+			for (var index = GENERATE_SETTINGS; index < args.length; index++) {
+				final var setting = args[index].split("=", 2);
+				if (setting.length != 2) {
+					throw new IllegalArgumentException(String.format("Setting \"%s\" is not name=value", args[index]));
+				}
+				final var value = setting[1].strip();
+				switch (setting[0].strip().toLowerCase()) {
+					case "shape" -> builder.shape(parseSetting(Generator.Shape.class, value));
+					case "fanout" -> builder.fanOut(Integer.parseInt(value));
+					case "distribution" -> builder.fanOutDistribution(parseSetting(Generator.FanOut.class, value));
+					case "maxdepth" -> builder.maxDepth(Integer.parseInt(value));
+					case "duplicates" -> builder.duplicateNameRate(Double.parseDouble(value));
+					case "seed" -> builder.seed(Long.parseLong(value));
+					default -> throw new IllegalArgumentException(String.format("Unknown setting \"%s\"", setting[0]));
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Rows and numeric settings must be numbers: " + e.getMessage());
+		}
+		final var generator = builder.build();
+
+		final var outputPath = args[GENERATE_OUTPUT_PATH];
+		if (outputPath.equals(STANDARD_OUTPUT)) {
+			generator.write(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+		} else {
+			generator.write(Path.of(outputPath));
+		}
+		return EXIT_SUCCESS;
+	}
+
+	/**
+	 * Answer a single query between two employee names given on the command line,
+	 * writing the paths between every pair of employees with those names.
+	 * 
+	 * Employees who have a name but no place in the hierarchy, such as those in
+	 * a management cycle, have no path to anyone, so they are left out; a name is
+	 * only reported as not found if no employee with it is in the hierarchy.
+	 * 
+	 * @param args           The command line arguments; input file path,
+	 *                       employee 1, employee 2 and optionally the
+	 *                       shortest-only option, in that order.
+	 * @param standardInput  The stream to read the org chart from if the input
+	 *                       file path is "-".
+	 * @param standardOutput The stream to write paths to.
+	 * @param standardError  The stream to report names not found on.
+	 * @return EXIT_SUCCESS if both names were found, EXIT_FAILURE otherwise.
+	 * @throws IOException              if the input file cannot be read.
+	 * @throws IllegalArgumentException if the input file is invalid.
+	 */
+	static int runQuery(String[] args, InputStream standardInput, OutputStream standardOutput,
+			PrintStream standardError) throws IOException, IllegalArgumentException {
+
+		argumentsSetup(args);
+
+		// build the hierarchy and name index as the records are parsed
+		final var hierarchyBuilder = CompactHierarchy.builder();
+		final var nameIndexBuilder = NameIndex.builder();
+		final var sink = hierarchyBuilder.andThen(nameIndexBuilder);
+		if (filePath.equals(STANDARD_INPUT)) {
+			Parser.parse(Channels.newChannel(standardInput), sink);
+		} else {
+			Parser.parse(filePath, sink);
+		}
+		CompactHierarchy hierarchy = hierarchyBuilder.build();
+
+		NameIndex nameIndex = nameIndexBuilder.build();
+
+		List<Employee> employees1 = inHierarchy(hierarchy, nameIndex.find(firstEmployeeName));
+		List<Employee> employees2 = inHierarchy(hierarchy, nameIndex.find(secondEmployeeName));
+
+		if (employees1.isEmpty() || employees2.isEmpty()) {
+			standardError.println("One or more supplied employee names not found.");
+			final var nameSearch = NameSearch.of(nameIndex);
+			for (var name : List.of(args[EMPLOYEE_1], args[EMPLOYEE_2])) {
+				if (!nameIndex.contains(name)) {
+					suggest(nameSearch, name, standardError);
+				}
+			}
+			return EXIT_FAILURE;
+		}
+
+		// if we're here, we have valid input; names shared by several employees
+		// are answered together, from one index over the hierarchy
+		writePaths(new SetPathFinder(EulerTourIndex.of(hierarchy)), employees1, employees2, standardOutput);
+		return EXIT_SUCCESS;
+	}
+
+	/**
+	 * Keep only the employees which have a place in a hierarchy.
+	 * 
+	 * @param hierarchy The hierarchy.
+	 * @param employees Employees found by name.
+	 * @return Those of the employees in the hierarchy, in the same order.
+	 */
+	private static List<Employee> inHierarchy(CompactHierarchy hierarchy, List<Employee> employees) {
+		return employees.stream().filter(employee -> hierarchy.indexOf(employee.id()) >= 0).toList();
+	}
+
+	/**
+	 * Write the paths between two sets of employees, one per line, or only the
+	 * shortest of them if the shortest-only option was given.
+	 * 
+	 * Paths are rendered into a buffer as they are found, so that the number of
+	 * pairs does not affect memory use.
+	 * 
+	 * @param pathFinder     The pathfinder over the hierarchy.
+	 * @param employees1     The employees matching the first name.
+	 * @param employees2     The employees matching the second name.
+	 * @param standardOutput The stream to write paths to.
+	 * @throws IOException if the paths cannot be written.
+	 */
+	private static void writePaths(SetPathFinder pathFinder, List<Employee> employees1, List<Employee> employees2,
+			OutputStream standardOutput) throws IOException {
+
+		final var output = new BufferedWriter(new OutputStreamWriter(standardOutput, StandardCharsets.UTF_8));
+		try {
+			if (shortestOnly) {
+				pathFinder.findShortest(employees1, employees2).get().render(output);
+				output.newLine();
+			} else {
+				pathFinder.findAll(employees1, employees2, path -> {
+					try {
+						path.render(output);
+						output.newLine();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+			output.flush();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
 	}
 
 	/**
 	 * Main application entry point.
 	 * 
-	 * @param args The command line arguments; input file path, employee 1 and
-	 *             employee 2, in that order.
+	 * @param args The command line arguments; input file path, employee 1,
+	 *             employee 2 and optionally the shortest-only option, in that
+	 *             order, or the batch option followed by the input file path
+	 *             and the query file path, or the server option followed by the
+	 *             input file path, port and worker threads, or the snapshot
+	 *             option followed by the input file path and the snapshot path,
+	 *             or the generator option followed by the output file path,
+	 *             number of rows and settings.
 	 * @throws Exception in the event of a miscellaneous error.
 	 */
 	public static void main(String[] args) throws Exception {
 
 		loggingSetup();
-		argumentsSetup(args);
-
-		try {
-			List<Employee> employees = Parser.parse(filePath);
-			Hierarchy hierarchy = Hierarchy.of(employees);
+		Metrics.register();
+		if (Boolean.getBoolean(METRICS_DUMP_PROPERTY)) {
+			Metrics.dumpOnExit(System.err);
+		}
 
-			List<Employee> employees1 = employees.stream()
-					.filter(employee -> normalizeName(employee.name())
-							.equalsIgnoreCase(firstEmployeeName))
-					.toList();
+		if (args.length > 0 && args[0].equals(BATCH_OPTION)) {
+			try {
+				System.exit(runBatch(args, System.in, System.out, System.err));
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(EXIT_FAILURE);
+			}
+		}
 
-			List<Employee> employees2 = employees.stream()
-					.filter(employee -> normalizeName(employee.name())
-							.equalsIgnoreCase(secondEmployeeName))
-					.toList();
+		if (args.length > 0 && args[0].equals(SNAPSHOT_OPTION)) {
+			try {
+				System.exit(runSnapshot(args));
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(EXIT_FAILURE);
+			}
+		}
 
-			if (employees1.isEmpty() || employees2.isEmpty()) {
-				System.err.println("One or more supplied employee names not found.");
+		if (args.length > 0 && args[0].equals(GENERATE_OPTION)) {
+			try {
+				System.exit(runGenerate(args));
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println(e.getMessage());
 				System.exit(EXIT_FAILURE);
 			}
+		}
 
-			// if we're here, we have valid input
-			for (var employee1 : employees1) {
-				for (var employee2 : employees2) {
-					PathFinder pathFinder = new PathFinder(hierarchy);
-					logger.info(String.format("Searching for path between %s and %s",
-							employee1.toString(), employee2.toString()));
-					pathFinder.findShortestPath(employee1, employee2);
-					System.out.println(pathFinder.toString());
+		if (args.length > 0 && args[0].equals(SERVE_OPTION)) {
+			try {
+				if (runServer(args) == EXIT_SUCCESS) {
+					return;
 				}
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println(e.getMessage());
 			}
+			System.exit(EXIT_FAILURE);
+		}
 
-			System.exit(EXIT_SUCCESS);
-
-		} catch (IOException e) {
+		try {
+			System.exit(runQuery(args, System.in, System.out, System.err));
+		} catch (IOException | IllegalArgumentException e) {
 			System.err.println(e.getMessage());
 			System.exit(EXIT_FAILURE);
 		}
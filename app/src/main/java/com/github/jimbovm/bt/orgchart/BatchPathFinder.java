@@ -0,0 +1,283 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Answers many common manager queries at once using Tarjan's offline lowest
+ * common ancestor algorithm.
+ *
+ * All pairs are supplied up front. A single depth-first pass over the hierarchy
+ * then answers every query as the second employee of the pair is finished,
+ * using a union-find structure over the employees visited so far. Because
+ * employee indices in a CompactHierarchy are in depth-first pre-order, the pass
+ * is a sequential sweep over the hierarchy's arrays rather than a series of
+ * random lookups, which suits very large hierarchies and query sets. The total
+ * cost is O((n + q) * a(n)) for n employees and q queries, where a is the
+ * inverse Ackermann function, and results are returned in input order.
+ *
+ * Instances hold no query state and may be shared between threads.
+ */
+public final class BatchPathFinder {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** The hierarchy to answer queries over. */
+	private final CompactHierarchy hierarchy;
+
+	/**
+	 * Create a new batch pathfinder for a supplied hierarchy.
+	 *
+	 * @param hierarchy The hierarchy to answer queries over.
+	 */
+	public BatchPathFinder(CompactHierarchy hierarchy) {
+		this.hierarchy = Objects.requireNonNull(hierarchy);
+	}
+
+	/**
+	 * Find the lowest-ranked common managers of many pairs of employees.
+	 *
+	 * @param firsts  The indices of the first employee of each pair.
+	 * @param seconds The indices of the second employee of each pair.
+	 * @return The indices of the common manager of each pair, in input order.
+	 * @throws IllegalArgumentException if the arrays differ in length or contain
+	 *                                  an index outside the hierarchy.
+	 */
+	public int[] lowestCommonManagers(int[] firsts, int[] seconds) throws IllegalArgumentException {
+
+		if (firsts.length != seconds.length) {
+			throw new IllegalArgumentException(String.format("Mismatched query pairs: %d first employees, %d second",
+					firsts.length, seconds.length));
+		}
+
+		final var size = this.hierarchy.size();
+		final var queries = firsts.length;
+
+		// group queries by each of their employees, in compressed sparse row form
+		final var queryOffsets = new int[size + 1];
+		for (var query = 0; query < queries; query++) {
+			checkIndex(firsts[query]);
+			checkIndex(seconds[query]);
+			queryOffsets[firsts[query] + 1]++;
+			if (seconds[query] != firsts[query]) {
+				queryOffsets[seconds[query] + 1]++;
+			}
+		}
+		for (var index = 0; index < size; index++) {
+			queryOffsets[index + 1] += queryOffsets[index];
+		}
+		final var queriesByEmployee = new int[queryOffsets[size]];
+		final var fill = queryOffsets.clone();
+		for (var query = 0; query < queries; query++) {
+			queriesByEmployee[fill[firsts[query]]++] = query;
+			if (seconds[query] != firsts[query]) {
+				queriesByEmployee[fill[seconds[query]]++] = query;
+			}
+		}
+
+		final var pass = new Pass(size, firsts, seconds, queryOffsets, queriesByEmployee);
+
+		// enter employees in pre-order, first finishing every employee whose
+		// subtree ends before the next one starts
+		var last = CompactHierarchy.NO_MANAGER;
+		for (var index = 0; index < size; index++) {
+			final var manager = this.hierarchy.manager(index);
+			for (var finished = last; finished != manager; finished = this.hierarchy.manager(finished)) {
+				pass.finish(finished);
+			}
+			pass.enter(index);
+			last = index;
+		}
+		for (var finished = last; finished != CompactHierarchy.NO_MANAGER; finished = this.hierarchy
+				.manager(finished)) {
+			pass.finish(finished);
+		}
+
+		logger.info(() -> String.format("Answered %d common manager queries over %d employees", queries, size));
+		return pass.results;
+	}
+
+	/**
+	 * Find the highest common managers of many pairs of employees.
+	 *
+	 * @param employees1 The first employee of each pair.
+	 * @param employees2 The second employee of each pair.
+	 * @return The common manager of each pair, in input order.
+	 * @throws IllegalArgumentException if the lists differ in length or contain an
+	 *                                  employee who is not in the hierarchy.
+	 */
+	public List<Employee> highestCommonManagers(List<Employee> employees1, List<Employee> employees2)
+			throws IllegalArgumentException {
+
+		final var commonManagers = lowestCommonManagers(indicesOf(employees1), indicesOf(employees2));
+
+		List<Employee> results = new ArrayList<>(commonManagers.length);
+		for (var commonManager : commonManagers) {
+			results.add(this.hierarchy.employee(commonManager));
+		}
+		return results;
+	}
+
+	/**
+	 * Look up the indices of a list of employees.
+	 *
+	 * @param employees A list of employees.
+	 * @return Their indices in the hierarchy, in list order.
+	 * @throws IllegalArgumentException if an employee is not in the hierarchy.
+	 */
+	private int[] indicesOf(List<Employee> employees) throws IllegalArgumentException {
+
+		final var indices = new int[employees.size()];
+		for (var i = 0; i < indices.length; i++) {
+			indices[i] = this.hierarchy.indexOf(employees.get(i).id());
+			if (indices[i] < 0) {
+				throw new IllegalArgumentException(String.format("Employee %s not in hierarchy", employees.get(i)));
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Check that an index refers to an employee in the hierarchy.
+	 *
+	 * @param index An employee index.
+	 * @throws IllegalArgumentException if it does not.
+	 */
+	private void checkIndex(int index) throws IllegalArgumentException {
+		if (index < 0 || index >= this.hierarchy.size()) {
+			throw new IllegalArgumentException(String.format("Employee index %d not in hierarchy", index));
+		}
+	}
+
+	/**
+	 * State of a single pass of Tarjan's algorithm.
+	 */
+	private final class Pass {
+
+		/** The first employee of each query. */
+		private final int[] firsts;
+
+		/** The second employee of each query. */
+		private final int[] seconds;
+
+		/** Offsets into queriesByEmployee by employee index. */
+		private final int[] queryOffsets;
+
+		/** Query numbers grouped by the employees they involve. */
+		private final int[] queriesByEmployee;
+
+		/** Union-find parent of each employee. */
+		private final int[] sets;
+
+		/** Union-find rank of each employee's set. */
+		private final byte[] ranks;
+
+		/** The manager which each set has been merged up to. */
+		private final int[] ancestors;
+
+		/** Bit set of employees whose subtrees have been finished. */
+		private final long[] finished;
+
+		/** The common manager of each query, by query number. */
+		private final int[] results;
+
+		/**
+		 * Create the state for a pass.
+		 *
+		 * @param size              The number of employees.
+		 * @param firsts            The first employee of each query.
+		 * @param seconds           The second employee of each query.
+		 * @param queryOffsets      Offsets into queriesByEmployee.
+		 * @param queriesByEmployee Query numbers grouped by employee.
+		 */
+		Pass(int size, int[] firsts, int[] seconds, int[] queryOffsets, int[] queriesByEmployee) {
+			this.firsts = firsts;
+			this.seconds = seconds;
+			this.queryOffsets = queryOffsets;
+			this.queriesByEmployee = queriesByEmployee;
+			this.sets = new int[size];
+			this.ranks = new byte[size];
+			this.ancestors = new int[size];
+			this.finished = new long[(size + 63) >>> 6];
+			this.results = new int[firsts.length];
+		}
+
+		/**
+		 * Enter an employee, making them a set of their own.
+		 *
+		 * @param index The index of the employee.
+		 */
+		void enter(int index) {
+			this.sets[index] = index;
+			this.ancestors[index] = index;
+		}
+
+		/**
+		 * Finish an employee once their whole subtree has been finished, answering
+		 * any queries whose other employee is already finished and merging them into
+		 * their manager's set.
+		 *
+		 * @param index The index of the employee.
+		 */
+		void finish(int index) {
+
+			this.finished[index >>> 6] |= 1L << index;
+
+			for (var i = this.queryOffsets[index]; i < this.queryOffsets[index + 1]; i++) {
+				final var query = this.queriesByEmployee[i];
+				final var other = this.firsts[query] == index ? this.seconds[query] : this.firsts[query];
+				if ((this.finished[other >>> 6] & (1L << other)) != 0) {
+					this.results[query] = this.ancestors[find(other)];
+				}
+			}
+
+			final var manager = hierarchy.manager(index);
+			if (manager != CompactHierarchy.NO_MANAGER) {
+				this.ancestors[union(manager, index)] = manager;
+			}
+		}
+
+		/**
+		 * Find the representative of an employee's set, halving the path to it.
+		 *
+		 * @param index The index of the employee.
+		 * @return The index of the set's representative.
+		 */
+		private int find(int index) {
+			while (this.sets[index] != index) {
+				this.sets[index] = this.sets[this.sets[index]];
+				index = this.sets[index];
+			}
+			return index;
+		}
+
+		/**
+		 * Merge the sets of two employees by rank.
+		 *
+		 * @param first  The index of the first employee.
+		 * @param second The index of the second employee.
+		 * @return The representative of the merged set.
+		 */
+		private int union(int first, int second) {
+
+			first = find(first);
+			second = find(second);
+			if (first == second) {
+				return first;
+			}
+			if (this.ranks[first] < this.ranks[second]) {
+				final var swap = first;
+				first = second;
+				second = swap;
+			}
+			this.sets[second] = first;
+			if (this.ranks[first] == this.ranks[second]) {
+				this.ranks[first]++;
+			}
+			return first;
+		}
+	}
+}
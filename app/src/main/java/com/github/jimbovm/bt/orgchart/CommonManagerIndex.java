@@ -0,0 +1,28 @@
+package com.github.jimbovm.bt.orgchart;
+
+/**
+ * An index over a compact hierarchy which can find the lowest-ranked common
+ * manager of two employees, i.e. their lowest common ancestor in the tree.
+ *
+ * Implementations trade preprocessing time and memory for query time; all
+ * refer to employees by their index in the underlying CompactHierarchy.
+ */
+public interface CommonManagerIndex {
+
+	/**
+	 * Return the hierarchy this index was built over.
+	 *
+	 * @return The indexed hierarchy.
+	 */
+	CompactHierarchy hierarchy();
+
+	/**
+	 * Find the lowest-ranked common manager of two employees.
+	 *
+	 * @param first  The index of the first employee.
+	 * @param second The index of the second employee.
+	 * @return The index of the lowest-ranked common manager, which is one of the
+	 *         two employees if one manages the other, directly or indirectly.
+	 */
+	int lowestCommonManager(int first, int second);
+}
@@ -0,0 +1,536 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Compact, array-based representation of an organisational hierarchy.
+ *
+ * Where Hierarchy is a tree of node objects, this class stores the same tree as
+ * a structure of primitive arrays. Every employee reachable from the chief is
+ * assigned an index, in depth-first pre-order with reports in input order, so
+ * the chief is always at index 0. For each index the arrays hold the employee's
+ * ID, the index of their manager and their depth below the chief; direct
+ * reports are stored in compressed sparse row form, as one offsets array into a
+ * flat array of report indices. IDs are resolved to indices through an
+ * open-addressing table of ints.
+ *
+ * The arrays cost 20 bytes per employee, and the ID table between roughly 5.3
+ * and 10.7 more depending on how close the headcount is to a power of two, for
+ * a total of 25 to 31 bytes per employee on top of a reference to each Employee
+ * record (which holds the name). A hierarchy loaded from a Snapshot holds no
+ * Employee records at all; it creates them from names in the mapped snapshot
+ * as they are asked for.
+ *
+ * The hierarchy is also the simplest CommonManagerIndex, answering queries by
+ * climbing reporting lines with no additional memory.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class CompactHierarchy implements CommonManagerIndex {
+
+	/** Manager index of the chief, who has no manager. */
+	public static final int NO_MANAGER = -1;
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/**
+	 * Employee records by index, which are either held in an array or, for a
+	 * hierarchy loaded from a snapshot, created from the snapshot on demand.
+	 */
+	private final IntFunction<Employee> employees;
+
+	/** Employee IDs by index. */
+	private final int[] ids;
+
+	/** Index of each employee's manager, or NO_MANAGER for the chief. */
+	private final int[] managers;
+
+	/** Depth of each employee below the chief, who is at depth 0. */
+	private final int[] depths;
+
+	/**
+	 * Offsets into the reports array; the reports of the employee at index i are
+	 * at positions reportOffsets[i] (inclusive) to reportOffsets[i + 1]
+	 * (exclusive).
+	 */
+	private final int[] reportOffsets;
+
+	/** Indices of direct reports, grouped by manager. */
+	private final int[] reports;
+
+	/** Index from employee ID to employee index. */
+	private final IdIndex idIndex;
+
+	/**
+	 * Create a compact hierarchy from its component arrays.
+	 * Internal use only. CompactHierarchy must be substantiated using of().
+	 */
+	private CompactHierarchy(Employee[] employees, int[] ids, int[] managers, int[] depths, int[] reportOffsets,
+			int[] reports) {
+		this(index -> employees[index], ids, managers, depths, reportOffsets, reports, new IdIndex(ids, ids.length));
+	}
+
+	/**
+	 * Create a compact hierarchy from its component arrays and ID index.
+	 * Internal use only. CompactHierarchy must be substantiated using of().
+	 */
+	private CompactHierarchy(IntFunction<Employee> employees, int[] ids, int[] managers, int[] depths,
+			int[] reportOffsets, int[] reports, IdIndex idIndex) {
+
+		this.employees = employees;
+		this.ids = ids;
+		this.managers = managers;
+		this.depths = depths;
+		this.reportOffsets = reportOffsets;
+		this.reports = reports;
+		this.idIndex = idIndex;
+	}
+
+	/**
+	 * Create a compact hierarchy from a list of employees, such as that returned by
+	 * the parser.
+	 *
+	 * As with Hierarchy.of(), there must be a single chief, and employees who
+	 * cannot be reached from the chief by following reporting lines are not part of
+	 * the hierarchy.
+	 *
+	 * @param employees A list of Employee records.
+	 * @return The organisational hierarchy in compact form.
+	 * @throws IllegalArgumentException if the list contains multiple chiefs or no
+	 *                                  chief, or if an employee ID occurs more than
+	 *                                  once.
+	 */
+	public static CompactHierarchy of(List<Employee> employees) throws IllegalArgumentException {
+
+		employees = Objects.requireNonNullElse(employees, List.of());
+		return of(employees.toArray(new Employee[0]), employees.size());
+	}
+
+	/**
+	 * Create a compact hierarchy from the leading entries of an array of
+	 * employees, in input order.
+	 *
+	 * @param employees An array of Employee records.
+	 * @param count     The number of leading entries which are employees.
+	 * @return The organisational hierarchy in compact form.
+	 * @throws IllegalArgumentException if the employees include multiple chiefs
+	 *                                  or no chief, or if an employee ID occurs
+	 *                                  more than once.
+	 */
+	private static CompactHierarchy of(Employee[] employees, int count) throws IllegalArgumentException {
+
+		final var start = System.nanoTime();
+		// index input positions by ID; this also rejects duplicate IDs
+		final var inputIds = new int[count];
+		var chief = NO_MANAGER;
+		for (var position = 0; position < count; position++) {
+			final var employee = employees[position];
+			inputIds[position] = employee.id();
+			if (employee.isChief()) {
+				if (chief != NO_MANAGER) {
+					throw new IllegalArgumentException(String.format(
+							"Multiple chiefs; only one employee may be answerable to no one (this is an assumption; see README)\nEmployees %s and %s are both chiefs",
+							employees[chief], employee));
+				}
+				chief = position;
+			}
+		}
+		final var inputIndex = new IdIndex(inputIds, count);
+
+		if (count == 0) {
+			return new CompactHierarchy(new Employee[0], new int[0], new int[0], new int[0], new int[1], new int[0]);
+		}
+		if (chief == NO_MANAGER) {
+			throw new IllegalArgumentException("No chief; exactly one employee must be answerable to no one");
+		}
+
+		// group input positions by manager position, keeping input order
+		final var inputManagers = new int[count];
+		final var inputOffsets = new int[count + 1];
+		for (var position = 0; position < count; position++) {
+			final var employee = employees[position];
+			inputManagers[position] = employee.isChief() ? NO_MANAGER : inputIndex.get(employee.manager());
+			if (inputManagers[position] != NO_MANAGER) {
+				inputOffsets[inputManagers[position] + 1]++;
+			}
+		}
+		for (var position = 0; position < count; position++) {
+			inputOffsets[position + 1] += inputOffsets[position];
+		}
+		final var inputReports = new int[inputOffsets[count]];
+		final var fill = inputOffsets.clone();
+		for (var position = 0; position < count; position++) {
+			if (inputManagers[position] != NO_MANAGER) {
+				inputReports[fill[inputManagers[position]]++] = position;
+			}
+		}
+
+		// number the employees reachable from the chief in pre-order
+		final var indexOfPosition = new int[count];
+		final var order = new int[count];
+		final var pending = new int[count];
+		var top = 0;
+		var size = 0;
+		pending[top++] = chief;
+		while (top > 0) {
+			final var position = pending[--top];
+			indexOfPosition[position] = size;
+			order[size++] = position;
+			// push in reverse so that the first report is numbered first
+			for (var report = inputOffsets[position + 1] - 1; report >= inputOffsets[position]; report--) {
+				pending[top++] = inputReports[report];
+			}
+		}
+
+		if (size < count) {
+			final var unreachable = count - size;
+			logger.fine(() -> String.format("%d employees are not reachable from the chief", unreachable));
+		}
+
+		// lay out the reachable employees by index
+		final var compactEmployees = new Employee[size];
+		final var ids = new int[size];
+		final var managers = new int[size];
+		final var depths = new int[size];
+		final var reportOffsets = new int[size + 1];
+		var maxDepth = 0;
+		for (var index = 0; index < size; index++) {
+			final var position = order[index];
+			compactEmployees[index] = employees[position];
+			ids[index] = inputIds[position];
+			managers[index] = index == 0 ? NO_MANAGER : indexOfPosition[inputManagers[position]];
+			depths[index] = index == 0 ? 0 : depths[managers[index]] + 1;
+			maxDepth = Math.max(maxDepth, depths[index]);
+			if (index != 0) {
+				reportOffsets[managers[index] + 1]++;
+			}
+		}
+		var maxFanOut = 0;
+		for (var index = 0; index < size; index++) {
+			maxFanOut = Math.max(maxFanOut, reportOffsets[index + 1]);
+			reportOffsets[index + 1] += reportOffsets[index];
+		}
+		final var reports = new int[size - 1];
+		System.arraycopy(reportOffsets, 0, fill, 0, size);
+		for (var index = 1; index < size; index++) {
+			reports[fill[managers[index]]++] = index;
+		}
+
+		Metrics.recordBuild(size, maxDepth, maxFanOut, System.nanoTime() - start);
+		return new CompactHierarchy(compactEmployees, ids, managers, depths, reportOffsets, reports);
+	}
+
+	/**
+	 * Create a builder which accepts employees one at a time, such as from
+	 * Parser.parse() with a sink, so that no list of every employee is needed.
+	 *
+	 * @return A new, empty builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder of a CompactHierarchy from employees supplied one at a time.
+	 *
+	 * Accepted employees are held in a single growing array, in input order,
+	 * until the hierarchy is built.
+	 */
+	public static final class Builder implements Consumer<Employee> {
+
+		/** Initial capacity of the employee array. */
+		private static final int INITIAL_CAPACITY = 16;
+
+		/** The employees accepted so far, followed by unused capacity. */
+		private Employee[] employees = new Employee[INITIAL_CAPACITY];
+
+		/** The number of employees accepted so far. */
+		private int count;
+
+		/**
+		 * Create a new, empty builder.
+		 * Internal use only. Builder must be substantiated using
+		 * CompactHierarchy.builder().
+		 */
+		private Builder() {
+
+		}
+
+		/**
+		 * Add an employee to the hierarchy being built.
+		 *
+		 * @param employee An Employee record.
+		 */
+		@Override
+		public void accept(Employee employee) {
+
+			Objects.requireNonNull(employee);
+			if (this.count == this.employees.length) {
+				this.employees = Arrays.copyOf(this.employees, this.count + (this.count >> 1));
+			}
+			this.employees[this.count++] = employee;
+		}
+
+		/**
+		 * Build the hierarchy from the employees accepted so far.
+		 *
+		 * @return The organisational hierarchy in compact form.
+		 * @throws IllegalArgumentException if the employees include multiple chiefs
+		 *                                  or no chief, or if an employee ID occurs
+		 *                                  more than once.
+		 */
+		public CompactHierarchy build() throws IllegalArgumentException {
+			return of(this.employees, this.count);
+		}
+	}
+
+	/**
+	 * Create a compact hierarchy from a tree-form hierarchy.
+	 *
+	 * Indices follow the pre-order of the tree, so they are the same as if the
+	 * hierarchy had been built from the employee list it was created from.
+	 *
+	 * @param hierarchy An organisational hierarchy.
+	 * @return The organisational hierarchy in compact form.
+	 */
+	public static CompactHierarchy of(Hierarchy hierarchy) {
+
+		Objects.requireNonNull(hierarchy);
+		List<Employee> employees = new ArrayList<>();
+
+		if (hierarchy.getEmployee().isPresent()) {
+			Deque<Hierarchy> pending = new ArrayDeque<>();
+			pending.push(hierarchy);
+			while (!pending.isEmpty()) {
+				final var node = pending.pop();
+				employees.add(node.getEmployee().get());
+				final var reports = node.getReports();
+				for (var i = reports.size() - 1; i >= 0; i--) {
+					pending.push(reports.get(i));
+				}
+			}
+		}
+
+		return of(employees);
+	}
+
+	@Override
+	public CompactHierarchy hierarchy() {
+		return this;
+	}
+
+	/**
+	 * Return the number of employees in the hierarchy.
+	 *
+	 * @return The number of employees reachable from the chief.
+	 */
+	public int size() {
+		return this.ids.length;
+	}
+
+	/**
+	 * Return the index of the employee with a given ID.
+	 *
+	 * @param id An employee ID.
+	 * @return The index of the employee, or -1 if there is no such employee in the
+	 *         hierarchy.
+	 */
+	public int indexOf(int id) {
+		return this.idIndex.get(id);
+	}
+
+	/**
+	 * Return the employee at an index.
+	 *
+	 * @param index An employee index.
+	 * @return The Employee record at that index.
+	 */
+	public Employee employee(int index) {
+		return this.employees.apply(index);
+	}
+
+	/**
+	 * Return the ID of the employee at an index.
+	 *
+	 * @param index An employee index.
+	 * @return The employee's ID.
+	 */
+	public int id(int index) {
+		return this.ids[index];
+	}
+
+	/**
+	 * Return the index of the manager of the employee at an index.
+	 *
+	 * @param index An employee index.
+	 * @return The index of the employee's manager, or NO_MANAGER for the chief.
+	 */
+	public int manager(int index) {
+		return this.managers[index];
+	}
+
+	/**
+	 * Return the depth of the employee at an index below the chief.
+	 *
+	 * @param index An employee index.
+	 * @return The number of reporting lines between the employee and the chief.
+	 */
+	public int depth(int index) {
+		return this.depths[index];
+	}
+
+	/**
+	 * Render the hierarchy as a nested tree, in the same form as
+	 * Hierarchy.render().
+	 *
+	 * As the employees are stored in pre-order with their depths, they are written
+	 * in a single pass over the arrays, using no memory beyond what the
+	 * destination does itself, however large or deep the hierarchy.
+	 *
+	 * @param <A>         The type of the destination.
+	 * @param destination The destination, such as a StringBuilder or Writer.
+	 * @return The destination.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	public <A extends Appendable> A render(A destination) throws IOException {
+
+		if (this.size() == 0) {
+			destination.append(Hierarchy.EMPTY);
+		}
+		for (var index = 0; index < this.size(); index++) {
+			Hierarchy.appendLine(destination, this.employee(index), this.depths[index]);
+		}
+		return destination;
+	}
+
+	/**
+	 * Return the number of direct reports of the employee at an index.
+	 *
+	 * @param index An employee index.
+	 * @return The number of employees reporting directly to the employee.
+	 */
+	public int reportCount(int index) {
+		return this.reportOffsets[index + 1] - this.reportOffsets[index];
+	}
+
+	/**
+	 * Return one of the direct reports of the employee at an index.
+	 *
+	 * @param index  An employee index.
+	 * @param report The number of the report, from 0 to reportCount(index) - 1, in
+	 *               input order.
+	 * @return The index of the direct report.
+	 */
+	public int report(int index, int report) {
+		return this.reports[this.reportOffsets[index] + report];
+	}
+
+	/**
+	 * Find the lowest-ranked common manager of two employees by climbing their
+	 * reporting lines.
+	 *
+	 * This takes time proportional to the depth of the employees in the
+	 * hierarchy and needs no additional memory.
+	 *
+	 * @param first  The index of the first employee.
+	 * @param second The index of the second employee.
+	 * @return The index of the lowest-ranked common manager, which is one of the
+	 *         two employees if one manages the other, directly or indirectly.
+	 */
+	@Override
+	public int lowestCommonManager(int first, int second) {
+
+		while (this.depths[first] > this.depths[second]) {
+			first = this.managers[first];
+		}
+		while (this.depths[second] > this.depths[first]) {
+			second = this.managers[second];
+		}
+		while (first != second) {
+			first = this.managers[first];
+			second = this.managers[second];
+		}
+		return first;
+	}
+
+	/**
+	 * Write the hierarchy to a snapshot, with employee names as UTF-8.
+	 *
+	 * @param output The snapshot being written.
+	 * @throws IOException if there is a problem writing the snapshot, or the
+	 *                     names are too long to store.
+	 */
+	void writeTo(Snapshot.Output output) throws IOException {
+
+		output.writeInts(this.ids);
+		output.writeInts(this.managers);
+		output.writeInts(this.depths);
+		output.writeInts(this.reportOffsets);
+		output.writeInts(this.reports);
+		this.idIndex.writeTo(output);
+
+		// offsets of the names first, then the names, rather than holding them all
+		// encoded at once
+		final var size = size();
+		final var nameOffsets = new int[size + 1];
+		for (var index = 0; index < size; index++) {
+			final long end = nameOffsets[index] + (long) Snapshot.utf8Length(employee(index).name());
+			if (end > Integer.MAX_VALUE) {
+				throw new IOException("Employee names too long to write to a snapshot");
+			}
+			nameOffsets[index + 1] = (int) end;
+		}
+		output.writeInts(nameOffsets);
+		output.startBytes(nameOffsets[size]);
+		for (var index = 0; index < size; index++) {
+			output.writeUtf8(employee(index).name());
+		}
+	}
+
+	/**
+	 * Read a hierarchy from a snapshot.
+	 *
+	 * The arrays are copied from the snapshot, but the names are left in the
+	 * mapped file and decoded only when an Employee record is needed.
+	 *
+	 * @param input The snapshot being read.
+	 * @return The hierarchy.
+	 * @throws IOException if there is a problem reading the snapshot.
+	 */
+	static CompactHierarchy readFrom(Snapshot.Input input) throws IOException {
+
+		final var ids = input.readInts();
+		final var managers = input.readInts();
+		final var depths = input.readInts();
+		final var reportOffsets = input.readInts();
+		final var reports = input.readInts();
+		final var idIndex = IdIndex.readFrom(input, ids);
+		final var nameOffsets = input.readInts();
+		final var names = input.mapBytes();
+
+		final var size = ids.length;
+		if (managers.length != size || depths.length != size || reportOffsets.length != size + 1
+				|| reports.length != Math.max(size - 1, 0) || nameOffsets.length != size + 1
+				|| nameOffsets[size] != names.capacity()) {
+			throw new IOException("Corrupt snapshot: hierarchy arrays do not match");
+		}
+
+		return new CompactHierarchy(index -> {
+			final var name = new byte[nameOffsets[index + 1] - nameOffsets[index]];
+			names.get(nameOffsets[index], name);
+			final var manager = managers[index] == NO_MANAGER ? ids[index] : ids[managers[index]];
+			return new Employee(ids[index], new String(name, StandardCharsets.UTF_8), manager);
+		}, ids, managers, depths, reportOffsets, reports, idIndex);
+	}
+}
@@ -0,0 +1,715 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Mutable organisational hierarchy which supports hires, leavers and moves
+ * without rebuilding, while still answering common manager queries.
+ *
+ * CompactHierarchy and the indices over it are immutable, so any change to the
+ * organisation means building them again from the full list of employees. This
+ * class instead keeps the tree as a link-cut tree (Sleator and Tarjan): the
+ * tree is split into paths, each held in a splay tree keyed by depth, with the
+ * top of each path pointing to the manager above it. Re-rooting a subtree is a
+ * cut and a link, and common manager and depth queries expose the path from an
+ * employee to the chief by splaying. Every operation takes O(log n) amortized
+ * time, where n is the number of employees, except that removing an employee
+ * also moves each of their direct reports and so takes O(k log n) for k
+ * reports.
+ *
+ * Moving an employee under one of their own reports, directly or indirectly,
+ * would create a cycle. A move is therefore only made if the employee is not
+ * the lowest-ranked common manager of themselves and their new manager, which
+ * is a single O(log n) query rather than a walk of their subtree.
+ *
+ * Employees are referred to by ID. Internally each is held in a slot of a set
+ * of growable arrays, and slots freed by leavers are reused by later hires.
+ * The current state can be frozen into a CompactHierarchy at any time, in O(n),
+ * to build the immutable indices over it.
+ *
+ * Instances are not thread-safe; concurrent use must be synchronised
+ * externally.
+ */
+public final class DynamicHierarchy {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Placeholder for an absent slot. */
+	private static final int NONE = -1;
+
+	/** Number of slots allocated for an empty hierarchy. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Slots of employees, keyed by ID. */
+	private final Map<Integer, Integer> slots = new HashMap<>();
+
+	/** Employee records by slot, or null for free slots. */
+	private Employee[] employees;
+
+	/** Slot of each employee's manager, or NONE for the chief. */
+	private int[] managers;
+
+	/** Slot of each employee's first direct report, or NONE. */
+	private int[] firstReports;
+
+	/** Slot of each employee's last direct report, or NONE. */
+	private int[] lastReports;
+
+	/** Slot of the next report of the same manager, or NONE. */
+	private int[] nextReports;
+
+	/** Slot of the previous report of the same manager, or NONE. */
+	private int[] previousReports;
+
+	/** Splay tree children; ancestors are to the left and descendants right. */
+	private int[] lefts;
+
+	/** Right splay tree children. */
+	private int[] rights;
+
+	/**
+	 * Splay tree parents, or for the root of a splay tree, the manager of the top
+	 * of its path.
+	 */
+	private int[] parents;
+
+	/** Number of employees in the splay subtree rooted at each slot. */
+	private int[] sizes;
+
+	/** Free slots, as a stack. */
+	private int[] freeSlots = new int[0];
+
+	/** Number of free slots on the stack. */
+	private int freeCount;
+
+	/** Number of slots ever used, including free ones. */
+	private int slotCount;
+
+	/** Slot of the chief, or NONE if there are no employees. */
+	private int chief = NONE;
+
+	/**
+	 * Create an empty hierarchy.
+	 * Internal use only. DynamicHierarchy must be substantiated using of().
+	 */
+	private DynamicHierarchy(int capacity) {
+		this.employees = new Employee[capacity];
+		this.managers = new int[capacity];
+		this.firstReports = new int[capacity];
+		this.lastReports = new int[capacity];
+		this.nextReports = new int[capacity];
+		this.previousReports = new int[capacity];
+		this.lefts = new int[capacity];
+		this.rights = new int[capacity];
+		this.parents = new int[capacity];
+		this.sizes = new int[capacity];
+	}
+
+	/**
+	 * Create a hierarchy with no employees, to which the chief must be added
+	 * first.
+	 *
+	 * @return The hierarchy.
+	 */
+	public static DynamicHierarchy of() {
+		return new DynamicHierarchy(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a hierarchy from a list of employees.
+	 *
+	 * @param employees A list of Employee records.
+	 * @return The hierarchy.
+	 * @throws IllegalArgumentException if the employees do not form a valid
+	 *                                  hierarchy.
+	 */
+	public static DynamicHierarchy of(List<Employee> employees) throws IllegalArgumentException {
+		return of(CompactHierarchy.of(employees));
+	}
+
+	/**
+	 * Create a hierarchy with the same employees as a compact hierarchy, in O(n).
+	 *
+	 * Employees not reachable from the chief are not part of a compact hierarchy
+	 * and so are not copied.
+	 *
+	 * @param hierarchy The compact hierarchy.
+	 * @return The hierarchy.
+	 */
+	public static DynamicHierarchy of(CompactHierarchy hierarchy) {
+
+		Objects.requireNonNull(hierarchy);
+		final var size = hierarchy.size();
+		final var dynamic = new DynamicHierarchy(Math.max(INITIAL_CAPACITY, size));
+
+		// every employee starts on a path of their own, so slots are indices
+		for (var index = 0; index < size; index++) {
+			dynamic.employees[index] = hierarchy.employee(index);
+			dynamic.slots.put(hierarchy.id(index), index);
+			dynamic.managers[index] = hierarchy.manager(index);
+			dynamic.parents[index] = hierarchy.manager(index);
+			dynamic.lefts[index] = NONE;
+			dynamic.rights[index] = NONE;
+			dynamic.sizes[index] = 1;
+			dynamic.firstReports[index] = NONE;
+			dynamic.lastReports[index] = NONE;
+			dynamic.nextReports[index] = NONE;
+			dynamic.previousReports[index] = NONE;
+		}
+		for (var index = 1; index < size; index++) {
+			dynamic.linkReport(index, hierarchy.manager(index));
+		}
+		dynamic.slotCount = size;
+		dynamic.chief = size > 0 ? 0 : NONE;
+
+		logger.fine(() -> String.format("Created dynamic hierarchy of %d employees", size));
+		return dynamic;
+	}
+
+	/**
+	 * Return the number of employees in the hierarchy.
+	 *
+	 * @return The number of employees.
+	 */
+	public int size() {
+		return this.slots.size();
+	}
+
+	/**
+	 * Check whether an employee is in the hierarchy.
+	 *
+	 * @param id An employee ID.
+	 * @return True if an employee with that ID is in the hierarchy.
+	 */
+	public boolean contains(int id) {
+		return this.slots.containsKey(id);
+	}
+
+	/**
+	 * Return the record of an employee, whose manager is kept up to date as
+	 * employees move.
+	 *
+	 * @param id An employee ID.
+	 * @return The employee.
+	 * @throws IllegalArgumentException if the employee is not in the hierarchy.
+	 */
+	public Employee employee(int id) throws IllegalArgumentException {
+		return this.employees[slotOf(id)];
+	}
+
+	/**
+	 * Return the chief of the organisation.
+	 *
+	 * @return The chief.
+	 * @throws IllegalStateException if there are no employees.
+	 */
+	public Employee chief() throws IllegalStateException {
+		if (this.chief == NONE) {
+			throw new IllegalStateException("No chief; the hierarchy is empty");
+		}
+		return this.employees[this.chief];
+	}
+
+	/**
+	 * Return the direct reports of an employee.
+	 *
+	 * @param id An employee ID.
+	 * @return An unmodifiable list of direct reports, in the order they joined
+	 *         their manager.
+	 * @throws IllegalArgumentException if the employee is not in the hierarchy.
+	 */
+	public List<Employee> reports(int id) throws IllegalArgumentException {
+
+		List<Employee> reports = new ArrayList<>();
+		for (var report = this.firstReports[slotOf(id)]; report != NONE; report = this.nextReports[report]) {
+			reports.add(this.employees[report]);
+		}
+		return Collections.unmodifiableList(reports);
+	}
+
+	/**
+	 * Return the depth of an employee below the chief, who is at depth 0.
+	 *
+	 * @param id An employee ID.
+	 * @return The number of managers above the employee.
+	 * @throws IllegalArgumentException if the employee is not in the hierarchy.
+	 */
+	public int depth(int id) throws IllegalArgumentException {
+		return depthOf(slotOf(id));
+	}
+
+	/**
+	 * Find the lowest-ranked common manager of two employees.
+	 *
+	 * @param first  The ID of the first employee.
+	 * @param second The ID of the second employee.
+	 * @return The lowest-ranked common manager, who is one of the two employees if
+	 *         one manages the other, directly or indirectly.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	public Employee lowestCommonManager(int first, int second) throws IllegalArgumentException {
+		return this.employees[commonManagerOf(slotOf(first), slotOf(second))];
+	}
+
+	/**
+	 * Return the number of reporting lines between two employees.
+	 *
+	 * @param first  The ID of the first employee.
+	 * @param second The ID of the second employee.
+	 * @return The number of steps between the employees; 0 if they are the same.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	public int distance(int first, int second) throws IllegalArgumentException {
+
+		final var firstSlot = slotOf(first);
+		final var secondSlot = slotOf(second);
+		final var commonManager = commonManagerOf(firstSlot, secondSlot);
+		return depthOf(firstSlot) + depthOf(secondSlot) - 2 * depthOf(commonManager);
+	}
+
+	/**
+	 * Find the shortest path between two employees, in time proportional to its
+	 * length.
+	 *
+	 * @param first  The ID of the first employee.
+	 * @param second The ID of the second employee.
+	 * @return The employees on the path, from the first employee up to their
+	 *         lowest-ranked common manager and down to the second employee.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	public List<Employee> path(int first, int second) throws IllegalArgumentException {
+
+		final var firstSlot = slotOf(first);
+		final var secondSlot = slotOf(second);
+		final var commonManager = commonManagerOf(firstSlot, secondSlot);
+
+		List<Employee> path = new ArrayList<>();
+		for (var current = firstSlot; current != commonManager; current = this.managers[current]) {
+			path.add(this.employees[current]);
+		}
+		path.add(this.employees[commonManager]);
+
+		final var descentStart = path.size();
+		for (var current = secondSlot; current != commonManager; current = this.managers[current]) {
+			path.add(this.employees[current]);
+		}
+		Collections.reverse(path.subList(descentStart, path.size()));
+
+		return path;
+	}
+
+	/**
+	 * Add a new employee under an existing manager, or as the chief of an empty
+	 * hierarchy.
+	 *
+	 * @param employee The new employee.
+	 * @throws IllegalArgumentException if the ID is already in use, the manager is
+	 *                                  not in the hierarchy, or the employee is a
+	 *                                  second chief.
+	 */
+	public void add(Employee employee) throws IllegalArgumentException {
+
+		Objects.requireNonNull(employee);
+		if (this.contains(employee.id())) {
+			throw new IllegalArgumentException(String.format("Duplicate employee ID %d", employee.id()));
+		}
+
+		final int manager;
+		if (employee.isChief()) {
+			if (this.chief != NONE) {
+				throw new IllegalArgumentException(String.format(
+						"Multiple chiefs; %s cannot join as %s is already chief", employee, this.chief()));
+			}
+			manager = NONE;
+		} else {
+			manager = slotOf(employee.manager());
+		}
+
+		final var slot = allocate();
+		this.employees[slot] = employee;
+		this.slots.put(employee.id(), slot);
+		this.lefts[slot] = NONE;
+		this.rights[slot] = NONE;
+		this.sizes[slot] = 1;
+		this.firstReports[slot] = NONE;
+		this.lastReports[slot] = NONE;
+		this.managers[slot] = manager;
+		this.parents[slot] = manager;
+		if (manager == NONE) {
+			this.nextReports[slot] = NONE;
+			this.previousReports[slot] = NONE;
+			this.chief = slot;
+		} else {
+			linkReport(slot, manager);
+		}
+
+		logger.fine(() -> String.format("Added %s", employee));
+	}
+
+	/**
+	 * Remove an employee, whose direct reports then report to the employee's own
+	 * manager.
+	 *
+	 * The chief can only be removed once they are the last employee.
+	 *
+	 * @param id The ID of the employee who is leaving.
+	 * @return The employee removed.
+	 * @throws IllegalArgumentException if the employee is not in the hierarchy, or
+	 *                                  is the chief and still has reports.
+	 */
+	public Employee remove(int id) throws IllegalArgumentException {
+
+		final var slot = slotOf(id);
+		final var manager = this.managers[slot];
+		if (manager == NONE && this.firstReports[slot] != NONE) {
+			throw new IllegalArgumentException(String.format(
+					"Cannot remove chief %s while they have reports", this.employees[slot]));
+		}
+
+		while (this.firstReports[slot] != NONE) {
+			reassign(this.firstReports[slot], manager);
+		}
+
+		final var employee = this.employees[slot];
+		if (manager == NONE) {
+			this.chief = NONE;
+		} else {
+			cut(slot);
+			unlinkReport(slot);
+		}
+		release(slot);
+		this.slots.remove(id);
+
+		logger.fine(() -> String.format("Removed %s", employee));
+		return employee;
+	}
+
+	/**
+	 * Move an employee, with everyone who reports to them, to a new manager.
+	 *
+	 * @param id      The ID of the employee to move.
+	 * @param manager The ID of their new manager.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy,
+	 *                                  or the new manager reports to the employee,
+	 *                                  directly or indirectly, or is the employee.
+	 */
+	public void move(int id, int manager) throws IllegalArgumentException {
+
+		final var slot = slotOf(id);
+		final var managerSlot = slotOf(manager);
+
+		// the chief manages everyone, so can never be moved without a cycle
+		if (commonManagerOf(slot, managerSlot) == slot) {
+			throw new IllegalArgumentException(String.format(
+					"Cannot move %s under %s; %s reports to them", this.employees[slot],
+					this.employees[managerSlot], this.employees[managerSlot]));
+		}
+		if (this.managers[slot] != managerSlot) {
+			reassign(slot, managerSlot);
+		}
+
+		logger.fine(() -> String.format("Moved %s under %s", this.employees[slot], this.employees[managerSlot]));
+	}
+
+	/**
+	 * Freeze the current state of the hierarchy, in O(n).
+	 *
+	 * @return A compact hierarchy of the same employees, with reports in the order
+	 *         they joined their manager.
+	 */
+	public CompactHierarchy toCompactHierarchy() {
+
+		List<Employee> employees = new ArrayList<>(this.size());
+		if (this.chief != NONE) {
+
+			// pre-order walk, climbing back up through managers when a subtree ends
+			var current = this.chief;
+			while (current != NONE) {
+				employees.add(this.employees[current]);
+				if (this.firstReports[current] != NONE) {
+					current = this.firstReports[current];
+					continue;
+				}
+				while (current != NONE && this.nextReports[current] == NONE) {
+					current = this.managers[current];
+				}
+				if (current != NONE) {
+					current = this.nextReports[current];
+				}
+			}
+		}
+		return CompactHierarchy.of(employees);
+	}
+
+	/**
+	 * Look up the slot of an employee.
+	 *
+	 * @param id An employee ID.
+	 * @return The employee's slot.
+	 * @throws IllegalArgumentException if the employee is not in the hierarchy.
+	 */
+	private int slotOf(int id) throws IllegalArgumentException {
+
+		final var slot = this.slots.get(id);
+		if (slot == null) {
+			throw new IllegalArgumentException(String.format("Employee ID %d not in hierarchy", id));
+		}
+		return slot;
+	}
+
+	/**
+	 * Take a free slot, growing the arrays if there is none.
+	 *
+	 * @return The slot.
+	 */
+	private int allocate() {
+
+		if (this.freeCount > 0) {
+			return this.freeSlots[--this.freeCount];
+		}
+		if (this.slotCount == this.employees.length) {
+			final var capacity = Math.max(INITIAL_CAPACITY, this.slotCount * 2);
+			this.employees = Arrays.copyOf(this.employees, capacity);
+			this.managers = Arrays.copyOf(this.managers, capacity);
+			this.firstReports = Arrays.copyOf(this.firstReports, capacity);
+			this.lastReports = Arrays.copyOf(this.lastReports, capacity);
+			this.nextReports = Arrays.copyOf(this.nextReports, capacity);
+			this.previousReports = Arrays.copyOf(this.previousReports, capacity);
+			this.lefts = Arrays.copyOf(this.lefts, capacity);
+			this.rights = Arrays.copyOf(this.rights, capacity);
+			this.parents = Arrays.copyOf(this.parents, capacity);
+			this.sizes = Arrays.copyOf(this.sizes, capacity);
+		}
+		return this.slotCount++;
+	}
+
+	/**
+	 * Return a slot to the free stack.
+	 *
+	 * @param slot A slot with no reports and no links in the link-cut tree.
+	 */
+	private void release(int slot) {
+
+		this.employees[slot] = null;
+		if (this.freeCount == this.freeSlots.length) {
+			this.freeSlots = Arrays.copyOf(this.freeSlots, Math.max(INITIAL_CAPACITY, this.freeCount * 2));
+		}
+		this.freeSlots[this.freeCount++] = slot;
+	}
+
+	/**
+	 * Move an employee to a new manager who is known not to report to them.
+	 *
+	 * @param slot    The slot of the employee, who is not the chief.
+	 * @param manager The slot of the new manager.
+	 */
+	private void reassign(int slot, int manager) {
+
+		cut(slot);
+		unlinkReport(slot);
+		final var employee = this.employees[slot];
+		this.employees[slot] = new Employee(employee.id(), employee.name(), this.employees[manager].id());
+		this.managers[slot] = manager;
+		this.parents[slot] = manager;
+		linkReport(slot, manager);
+	}
+
+	/**
+	 * Add an employee at the end of their manager's list of reports.
+	 *
+	 * @param slot    The slot of the employee.
+	 * @param manager The slot of their manager.
+	 */
+	private void linkReport(int slot, int manager) {
+
+		final var previous = this.lastReports[manager];
+		this.previousReports[slot] = previous;
+		this.nextReports[slot] = NONE;
+		if (previous == NONE) {
+			this.firstReports[manager] = slot;
+		} else {
+			this.nextReports[previous] = slot;
+		}
+		this.lastReports[manager] = slot;
+	}
+
+	/**
+	 * Remove an employee from their manager's list of reports.
+	 *
+	 * @param slot The slot of the employee, who is not the chief.
+	 */
+	private void unlinkReport(int slot) {
+
+		final var next = this.nextReports[slot];
+		final var previous = this.previousReports[slot];
+		if (previous == NONE) {
+			this.firstReports[this.managers[slot]] = next;
+		} else {
+			this.nextReports[previous] = next;
+		}
+		if (next == NONE) {
+			this.lastReports[this.managers[slot]] = previous;
+		} else {
+			this.previousReports[next] = previous;
+		}
+	}
+
+	/**
+	 * Return the depth of an employee, from the ancestors on their exposed path.
+	 *
+	 * @param slot The slot of the employee.
+	 * @return Their depth below the chief.
+	 */
+	private int depthOf(int slot) {
+		access(slot);
+		return sizeOf(this.lefts[slot]);
+	}
+
+	/**
+	 * Find the lowest-ranked common manager of two employees; after exposing the
+	 * path from the first to the chief, it is where the path from the second
+	 * joins it.
+	 *
+	 * @param first  The slot of the first employee.
+	 * @param second The slot of the second employee.
+	 * @return The slot of the common manager.
+	 */
+	private int commonManagerOf(int first, int second) {
+		access(first);
+		return access(second);
+	}
+
+	/**
+	 * Detach an employee, with their subtree, from their manager in the link-cut
+	 * tree, leaving them at the top of a tree of their own.
+	 *
+	 * @param slot The slot of the employee, who is not the chief.
+	 */
+	private void cut(int slot) {
+
+		access(slot);
+		final var ancestors = this.lefts[slot];
+		this.parents[ancestors] = NONE;
+		this.lefts[slot] = NONE;
+		update(slot);
+	}
+
+	/**
+	 * Expose the path from the chief to an employee, making it a single splay
+	 * tree with the employee at its root and no descendants on it.
+	 *
+	 * @param slot The slot of the employee.
+	 * @return The last slot at which the exposed path joined a path above it,
+	 *         which is the slot itself if it was already on the chief's path.
+	 */
+	private int access(int slot) {
+
+		var last = NONE;
+		for (var current = slot; current != NONE; current = this.parents[current]) {
+			splay(current);
+			this.rights[current] = last;
+			update(current);
+			last = current;
+		}
+		splay(slot);
+		return last;
+	}
+
+	/**
+	 * Rotate a node to the root of its splay tree.
+	 *
+	 * @param slot The slot of the node.
+	 */
+	private void splay(int slot) {
+
+		while (!isSplayRoot(slot)) {
+			final var parent = this.parents[slot];
+			if (!isSplayRoot(parent)) {
+				final var grandparent = this.parents[parent];
+				final var zigZig = (this.lefts[grandparent] == parent) == (this.lefts[parent] == slot);
+				rotate(zigZig ? parent : slot);
+			}
+			rotate(slot);
+		}
+	}
+
+	/**
+	 * Rotate a node above its splay tree parent.
+	 *
+	 * @param slot The slot of the node, which is not a splay tree root.
+	 */
+	private void rotate(int slot) {
+
+		final var parent = this.parents[slot];
+		final var grandparent = this.parents[parent];
+
+		// the grandparent link is kept even if it is only a path parent
+		if (!isSplayRoot(parent)) {
+			if (this.lefts[grandparent] == parent) {
+				this.lefts[grandparent] = slot;
+			} else {
+				this.rights[grandparent] = slot;
+			}
+		}
+		this.parents[slot] = grandparent;
+
+		if (this.lefts[parent] == slot) {
+			final var moved = this.rights[slot];
+			this.lefts[parent] = moved;
+			if (moved != NONE) {
+				this.parents[moved] = parent;
+			}
+			this.rights[slot] = parent;
+		} else {
+			final var moved = this.lefts[slot];
+			this.rights[parent] = moved;
+			if (moved != NONE) {
+				this.parents[moved] = parent;
+			}
+			this.lefts[slot] = parent;
+		}
+		this.parents[parent] = slot;
+
+		update(parent);
+		update(slot);
+	}
+
+	/**
+	 * Check whether a node is the root of its splay tree, i.e. it is not a child
+	 * of its parent, if any, which is then a path parent.
+	 *
+	 * @param slot The slot of the node.
+	 * @return True if the node is the root of its splay tree.
+	 */
+	private boolean isSplayRoot(int slot) {
+		final var parent = this.parents[slot];
+		return parent == NONE || (this.lefts[parent] != slot && this.rights[parent] != slot);
+	}
+
+	/**
+	 * Recompute the size of a splay subtree from its children.
+	 *
+	 * @param slot The slot of the root of the subtree.
+	 */
+	private void update(int slot) {
+		this.sizes[slot] = 1 + sizeOf(this.lefts[slot]) + sizeOf(this.rights[slot]);
+	}
+
+	/**
+	 * Return the size of a splay subtree.
+	 *
+	 * @param slot The slot of the root of the subtree, or NONE.
+	 * @return The number of nodes in the subtree.
+	 */
+	private int sizeOf(int slot) {
+		return slot == NONE ? 0 : this.sizes[slot];
+	}
+}
@@ -1,5 +1,6 @@
 package com.github.jimbovm.bt.orgchart;
 
+import java.io.IOException;
 import java.util.Optional;
 
 /**
@@ -49,4 +50,33 @@ public record Employee(
 	public String toString() {
 		return String.format("%s (%d)", this.name, this.id);
 	}
+
+	/**
+	 * Append the string representation of this employee to a destination, as
+	 * returned by toString(), without creating any intermediate strings.
+	 * 
+	 * @param destination The destination, such as a StringBuilder or Writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	void appendTo(Appendable destination) throws IOException {
+
+		destination.append(this.name).append(" (");
+		if (destination instanceof StringBuilder builder) {
+			builder.append(this.id);
+		} else {
+			// digits one at a time, most significant first
+			if (this.id < 0) {
+				destination.append('-');
+			}
+			final var magnitude = Math.abs((long) this.id);
+			var divisor = 1L;
+			while (divisor * 10 <= magnitude) {
+				divisor *= 10;
+			}
+			for (; divisor > 0; divisor /= 10) {
+				destination.append((char) ('0' + magnitude / divisor % 10));
+			}
+		}
+		destination.append(')');
+	}
 }
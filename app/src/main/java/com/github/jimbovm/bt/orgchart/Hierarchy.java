@@ -1,9 +1,19 @@
 package com.github.jimbovm.bt.orgchart;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +29,15 @@ public final class Hierarchy {
 	/** Logger implementation. */
 	private static Logger logger = Logger.getGlobal();
 
+	/** Representation of a hierarchy with no employees. */
+	static final String EMPTY = "Empty organisation";
+
+	/** Tabs for indenting rendered lines, appended in runs of up to this many. */
+	private static final String INDENT = "\t".repeat(64);
+
+	/** Separator between rendered lines. */
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
 	/** The employee represented by this node in the hierarchy. */
 	private Optional<Employee> employee = Optional.empty();
 
@@ -36,61 +55,146 @@ public final class Hierarchy {
 	 * @return The organisational hierarchy with the chief at the root.
 	 * @throws IllegalArgumentException in the event of a list of employees that
 	 *                                  contains multiple chiefs, i.e. employees
-	 *                                  that "manage themselves".
+	 *                                  that "manage themselves", or no chief.
 	 */
 	public static Hierarchy of(List<Employee> employees) throws IllegalArgumentException {
 
-		Objects.requireNonNullElse(employees, List.of());
-		if (employees.isEmpty()) {
-			return new Hierarchy();
+		employees = Objects.requireNonNullElse(employees, List.of());
+
+		var builder = builder();
+		employees.forEach(builder);
+		return builder.build();
+	}
+
+	/**
+	 * Create a builder which accepts employees one at a time, such as from
+	 * Parser.parse() with a sink, so that no list of every employee is needed.
+	 * 
+	 * @return A new, empty builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder of a Hierarchy from employees supplied one at a time.
+	 * 
+	 * Employees are indexed by the ID of their manager as they arrive, in a single
+	 * pass. The order of each manager's direct reports is the order in which they
+	 * are accepted. Chiefs are not indexed as reports to themselves.
+	 */
+	public static final class Builder implements Consumer<Employee> {
+
+		/** Employees who are answerable to no one. */
+		private final List<Employee> chiefs = new ArrayList<>();
+
+		/** Direct reports keyed by manager ID. */
+		private final Map<Integer, List<Employee>> reportsByManager = new HashMap<>();
+
+		/**
+		 * Create a new, empty builder.
+		 * Internal use only. Builder must be substantiated using Hierarchy.builder().
+		 */
+		private Builder() {
+
 		}
 
-		List<Employee> chiefs = employees.stream()
-				.filter(employee -> employee.id() == employee.manager())
-				.toList();
-		if (chiefs.size() > 1) {
-			final var message1 = "Multiple chiefs; only one employee may be answerable to no one (this is an assumption; see README)\n";
-			final var multipleChiefs = employees.stream()
-					.filter(employee -> employee.id() == employee.manager()).toList();
-			final var message2 = String.format("Employees %s are all chiefs", multipleChiefs.toString());
-			throw new IllegalArgumentException(message1 + message2);
+		/**
+		 * Add an employee to the hierarchy being built.
+		 * 
+		 * @param employee An Employee record.
+		 */
+		@Override
+		public void accept(Employee employee) {
+
+			if (employee.isChief()) {
+				this.chiefs.add(employee);
+			} else {
+				this.reportsByManager.computeIfAbsent(employee.manager(), manager -> new ArrayList<>()).add(employee);
+			}
 		}
 
-		// if we're here, we have one chief as required
-		Employee chief = chiefs.get(0);
-		var orgRoot = buildHierarchy(employees, chief);
+		/**
+		 * Build the hierarchy from the employees accepted so far.
+		 * 
+		 * @return The organisational hierarchy with the chief at the root, which is
+		 *         empty if no employees have been accepted.
+		 * @throws IllegalArgumentException if there are multiple chiefs, or
+		 *                                  employees but no chief.
+		 */
+		public Hierarchy build() throws IllegalArgumentException {
+
+			if (this.chiefs.size() > 1) {
+				final var message1 = "Multiple chiefs; only one employee may be answerable to no one (this is an assumption; see README)\n";
+				final var message2 = String.format("Employees %s are all chiefs", this.chiefs.toString());
+				throw new IllegalArgumentException(message1 + message2);
+			}
+			if (this.chiefs.isEmpty()) {
+				if (this.reportsByManager.isEmpty()) {
+					return new Hierarchy();
+				}
+				throw new IllegalArgumentException("No chief; exactly one employee must be answerable to no one");
+			}
 
-		return orgRoot;
+			// if we're here, we have one chief as required
+			return buildHierarchy(this.reportsByManager, this.chiefs.get(0));
+		}
 	}
 
 	/**
-	 * Recursively build the organisational hierarchy.
+	 * Build the organisational hierarchy.
 	 * 
-	 * @param employees A list of Employee records.
-	 * @param manager   An employee who may have direct reports.
+	 * The tree is built iteratively using an explicit stack of nodes still to be
+	 * expanded, so its depth is limited by the heap and not the thread stack. The
+	 * time taken and the shape of the tree are recorded in Metrics.
+	 * 
+	 * @param reportsByManager Employee records indexed by manager ID.
+	 * @param chief            The employee at the root of the organisation.
 	 * @return The complete organisational hierarchy in tree form.
 	 */
-	private static Hierarchy buildHierarchy(List<Employee> employees, Employee manager) {
+	private static Hierarchy buildHierarchy(Map<Integer, List<Employee>> reportsByManager, Employee chief) {
+
+		final var start = System.nanoTime();
+		final var fine = logger.isLoggable(Level.FINE);
+
+		var root = new Hierarchy();
+		root.setEmployee(chief);
 
-		var hierarchy = new Hierarchy();
-		hierarchy.setEmployee(manager);
+		Deque<Hierarchy> pending = new ArrayDeque<>();
+		Deque<Integer> pendingDepths = new ArrayDeque<>();
+		pending.push(root);
+		pendingDepths.push(0);
 
-		for (var employee : employees) {
+		var size = 0;
+		var maxDepth = 0;
+		var maxFanOut = 0;
+		while (!pending.isEmpty()) {
 
-			final var employeeIsReport = employee.manager() == manager.id();
-			final var employeeIsBoss = employee.id() == manager.id();
+			final var hierarchy = pending.pop();
+			final int depth = pendingDepths.pop();
+			final var manager = hierarchy.getEmployee().get();
+			final var reportsOfManager = reportsByManager.getOrDefault(manager.id(), List.of());
+			size++;
+			maxDepth = Math.max(maxDepth, depth);
+			maxFanOut = Math.max(maxFanOut, reportsOfManager.size());
 
-			if (employeeIsReport && !(employeeIsBoss)) {
+			for (var employee : reportsOfManager) {
 
-				logger.fine(String.format("Employee %s (%d) reports to %s (%d)", employee.name(),
-						employee.id(), manager.name(), manager.id()));
+				if (fine) {
+					logger.fine(String.format("Employee %s (%d) reports to %s (%d)", employee.name(),
+							employee.id(), manager.name(), manager.id()));
+				}
 
-				var reports = buildHierarchy(employees, employee);
+				var reports = new Hierarchy();
+				reports.setEmployee(employee);
 				hierarchy.addReport(reports);
+				pending.push(reports);
+				pendingDepths.push(depth + 1);
 			}
 		}
 
-		return hierarchy;
+		Metrics.recordBuild(size, maxDepth, maxFanOut, System.nanoTime() - start);
+		return root;
 	}
 
 	/**
@@ -153,6 +257,10 @@ public final class Hierarchy {
 	 * Return whether an employee reports directly the employee at the head of this
 	 * hierarchy.
 	 * 
+	 * Each report is checked in turn. To check reporting lines repeatedly, load an
+	 * OrgChart instead, which answers isDirectReport() and isAncestorOf() in
+	 * constant time.
+	 * 
 	 * @param employee The employee to check for direct reporting.
 	 * @return True if the employee is a direct report, false otherwise.
 	 */
@@ -162,40 +270,87 @@ public final class Hierarchy {
 	}
 
 	/**
-	 * Helper method for toString().
+	 * Render the hierarchy as a nested tree, one employee per line, indented with
+	 * a tab for each level below the chief.
+	 * 
+	 * The tree is written to the destination as it is walked, so however large the
+	 * hierarchy, no string of the whole is built and nothing is allocated per line
+	 * beyond what the destination does itself; to dump a large hierarchy, pass a
+	 * buffered Writer. Nodes are visited in depth-first pre-order using an explicit
+	 * stack of the reports still to be rendered at each level, so arbitrarily deep
+	 * hierarchies can be rendered, in memory proportional to the depth.
 	 * 
-	 * @param hierarchy The hierarchy to generate a recursive representation of.
-	 * @param builder   A StringBuilder instance.
-	 * @param depth     The depth of the nested hierarchy.
-	 * @return A StringBuilder instance into which a tree representation has been
-	 *         rendered.
+	 * @param <A>         The type of the destination.
+	 * @param destination The destination, such as a StringBuilder or Writer.
+	 * @return The destination.
+	 * @throws IOException if the destination cannot be written.
 	 */
-	private StringBuilder toStringHelper(Hierarchy hierarchy, StringBuilder builder,
-			int depth) {
+	public <A extends Appendable> A render(A destination) throws IOException {
 
-		builder.append("\t".repeat(depth) + hierarchy.getEmployee().get().toString()
-				+ System.getProperty("line.separator"));
+		if (this.employee.isEmpty()) {
+			destination.append(EMPTY);
+			return destination;
+		}
+
+		appendLine(destination, this.employee.get(), 0);
+		Deque<Iterator<Hierarchy>> pending = new ArrayDeque<>();
+		pending.push(this.reports.iterator());
+
+		while (!pending.isEmpty()) {
+
+			final var reports = pending.peek();
+			if (!reports.hasNext()) {
+				pending.pop();
+				continue;
+			}
 
-		for (var report : hierarchy.getReports()) {
-			toStringHelper(report, builder, depth + 1);
+			// the reports of a manager at depth n are on the stack n + 1 deep
+			final var report = reports.next();
+			appendLine(destination, report.getEmployee().get(), pending.size());
+			if (!report.getReports().isEmpty()) {
+				pending.push(report.getReports().iterator());
+			}
 		}
 
-		return builder;
+		return destination;
+	}
+
+	/**
+	 * Append one line of a rendered hierarchy.
+	 * 
+	 * @param destination The destination.
+	 * @param employee    The employee on the line.
+	 * @param depth       The depth of the employee below the chief.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	static void appendLine(Appendable destination, Employee employee, int depth) throws IOException {
+
+		// a Writer would copy a subsequence of the indent into a new string
+		for (var remaining = depth; remaining > 0; remaining -= INDENT.length()) {
+			final var length = Math.min(remaining, INDENT.length());
+			if (destination instanceof Writer writer) {
+				writer.write(INDENT, 0, length);
+			} else {
+				destination.append(INDENT, 0, length);
+			}
+		}
+		employee.appendTo(destination);
+		destination.append(LINE_SEPARATOR);
 	}
 
 	/**
 	 * Returns a representation of the hierarchy as a nested tree.
 	 * 
 	 * @return A tree representation of the hierarchy
+	 * @see #render(Appendable)
 	 */
 	public String toString() {
 
-		var builder = new StringBuilder();
-
-		if (this.employee.isEmpty()) {
-			return "Empty organisation";
+		try {
+			return this.render(new StringBuilder()).toString();
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new UncheckedIOException(e);
 		}
-
-		return this.toStringHelper(this, builder, 0).toString();
 	}
 }
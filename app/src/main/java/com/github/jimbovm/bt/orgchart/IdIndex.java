@@ -0,0 +1,129 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+
+/**
+ * Open-addressing hash index from employee ID to array position.
+ *
+ * The index does not store keys itself; each slot holds a position plus one
+ * (zero marks an empty slot) and the key is read back from the ID array the
+ * index was built over. This keeps the index to a single int per slot with no
+ * boxed Integer keys or entry objects. Capacity is the smallest power of two
+ * which keeps the load factor at or below 0.75, so the index costs between
+ * roughly 5.3 and 10.7 bytes per entry.
+ */
+final class IdIndex {
+
+	/** Marker returned by lookups for an ID which is not indexed. */
+	static final int ABSENT = -1;
+
+	/** Maximum load factor of the slot table. */
+	private static final double LOAD_FACTOR = 0.75;
+
+	/** The IDs indexed, in position order; shared with the owner of the index. */
+	private final int[] ids;
+
+	/** Slot table of positions plus one, or zero for an empty slot. */
+	private final int[] slots;
+
+	/** Bit mask reducing a hash to a slot number. */
+	private final int mask;
+
+	/**
+	 * Build an index over the first count entries of an ID array.
+	 *
+	 * @param ids   The IDs to index; the array is shared, not copied.
+	 * @param count The number of leading entries of the array to index.
+	 * @throws IllegalArgumentException if an ID occurs more than once.
+	 */
+	IdIndex(int[] ids, int count) throws IllegalArgumentException {
+
+		this.ids = ids;
+
+		var capacity = Integer.highestOneBit(Math.max((int) Math.ceil(count / LOAD_FACTOR), 2) - 1) << 1;
+		this.slots = new int[capacity];
+		this.mask = capacity - 1;
+
+		for (var position = 0; position < count; position++) {
+			final var id = ids[position];
+			var slot = hash(id) & this.mask;
+			while (this.slots[slot] != 0) {
+				if (ids[this.slots[slot] - 1] == id) {
+					throw new IllegalArgumentException(String.format("Duplicate employee ID %d", id));
+				}
+				slot = (slot + 1) & this.mask;
+			}
+			this.slots[slot] = position + 1;
+		}
+	}
+
+	/**
+	 * Create an index from a slot table written by writeTo().
+	 *
+	 * @param ids   The IDs indexed; the array is shared, not copied.
+	 * @param slots The slot table, whose length is a power of two.
+	 */
+	private IdIndex(int[] ids, int[] slots) {
+		this.ids = ids;
+		this.slots = slots;
+		this.mask = slots.length - 1;
+	}
+
+	/**
+	 * Write the index to a snapshot.
+	 *
+	 * @param output The snapshot being written.
+	 * @throws IOException if there is a problem writing the snapshot.
+	 */
+	void writeTo(Snapshot.Output output) throws IOException {
+		output.writeInts(this.slots);
+	}
+
+	/**
+	 * Read an index from a snapshot.
+	 *
+	 * @param input The snapshot being read.
+	 * @param ids   The IDs indexed, already read from the snapshot.
+	 * @return The index.
+	 * @throws IOException if there is a problem reading the snapshot.
+	 */
+	static IdIndex readFrom(Snapshot.Input input, int[] ids) throws IOException {
+
+		final var slots = input.readInts();
+		if (Integer.bitCount(slots.length) != 1) {
+			throw new IOException("Corrupt snapshot: ID table size is not a power of two");
+		}
+		return new IdIndex(ids, slots);
+	}
+
+	/**
+	 * Spread the bits of an ID so that sequential IDs do not cluster.
+	 *
+	 * @param id An employee ID.
+	 * @return A well-mixed hash of the ID.
+	 */
+	private static int hash(int id) {
+		final var mixed = id * 0x9E3779B9;
+		return mixed ^ (mixed >>> 16);
+	}
+
+	/**
+	 * Look up the position of an ID.
+	 *
+	 * @param id The employee ID to look up.
+	 * @return The position of the ID in the indexed array, or ABSENT if it is not
+	 *         present.
+	 */
+	int get(int id) {
+
+		var slot = hash(id) & this.mask;
+		while (this.slots[slot] != 0) {
+			final var position = this.slots[slot] - 1;
+			if (this.ids[position] == id) {
+				return position;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		return ABSENT;
+	}
+}
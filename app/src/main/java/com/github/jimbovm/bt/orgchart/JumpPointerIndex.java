@@ -0,0 +1,115 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.Objects;
+
+/**
+ * Common manager index using binary lifting.
+ *
+ * For every employee the index stores jump pointers to their manager 1, 2, 4,
+ * 8 and so on levels up, up to the depth of the hierarchy, so that any
+ * reporting line can be climbed in a logarithmic number of jumps. Building the
+ * index takes O(n log d) time for n employees and a maximum depth of d, and it
+ * costs 4 bytes per employee per power of two up to d; a query takes O(log d).
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class JumpPointerIndex implements CommonManagerIndex {
+
+	/** The indexed hierarchy. */
+	private final CompactHierarchy hierarchy;
+
+	/**
+	 * Jump pointers; jumps[k][i] is the index of the manager 2^k levels above the
+	 * employee at index i, or the chief if the employee is fewer levels down.
+	 */
+	private final int[][] jumps;
+
+	/**
+	 * Create a new index over a hierarchy.
+	 * Internal use only. JumpPointerIndex must be substantiated using of().
+	 */
+	private JumpPointerIndex(CompactHierarchy hierarchy, int[][] jumps) {
+		this.hierarchy = hierarchy;
+		this.jumps = jumps;
+	}
+
+	/**
+	 * Precompute jump pointers for a hierarchy.
+	 *
+	 * @param hierarchy The hierarchy to index.
+	 * @return The index.
+	 */
+	public static JumpPointerIndex of(CompactHierarchy hierarchy) {
+
+		Objects.requireNonNull(hierarchy);
+		final var size = hierarchy.size();
+
+		var maxDepth = 0;
+		for (var index = 0; index < size; index++) {
+			maxDepth = Math.max(maxDepth, hierarchy.depth(index));
+		}
+		final var levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth));
+
+		final var jumps = new int[levels][size];
+		for (var index = 1; index < size; index++) {
+			jumps[0][index] = hierarchy.manager(index);
+		}
+		// the chief at index 0 jumps to themselves, which the arrays already hold
+		for (var level = 1; level < levels; level++) {
+			final var half = jumps[level - 1];
+			final var full = jumps[level];
+			for (var index = 0; index < size; index++) {
+				full[index] = half[half[index]];
+			}
+		}
+
+		return new JumpPointerIndex(hierarchy, jumps);
+	}
+
+	/**
+	 * Precompute jump pointers for a hierarchy.
+	 *
+	 * @param hierarchy The hierarchy to index.
+	 * @return The index.
+	 */
+	public static JumpPointerIndex of(Hierarchy hierarchy) {
+		return of(CompactHierarchy.of(hierarchy));
+	}
+
+	@Override
+	public CompactHierarchy hierarchy() {
+		return this.hierarchy;
+	}
+
+	@Override
+	public int lowestCommonManager(int first, int second) {
+
+		// bring the deeper employee up to the level of the other
+		var difference = this.hierarchy.depth(first) - this.hierarchy.depth(second);
+		if (difference < 0) {
+			final var swap = first;
+			first = second;
+			second = swap;
+			difference = -difference;
+		}
+		for (var level = 0; difference != 0; level++, difference >>>= 1) {
+			if ((difference & 1) != 0) {
+				first = this.jumps[level][first];
+			}
+		}
+
+		if (first == second) {
+			return first;
+		}
+
+		// climb both in the largest jumps which do not reach a common manager
+		for (var level = this.jumps.length - 1; level >= 0; level--) {
+			if (this.jumps[level][first] != this.jumps[level][second]) {
+				first = this.jumps[level][first];
+				second = this.jumps[level][second];
+			}
+		}
+
+		return this.jumps[0][first];
+	}
+}
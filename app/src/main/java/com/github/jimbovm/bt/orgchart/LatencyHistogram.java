@@ -0,0 +1,177 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ *
+ * Latencies are counted in log-linear buckets: each power of two is split into
+ * four buckets of equal width, so a percentile read from the histogram is never
+ * more than 25% above the true value, and the whole range of a long fits in 248
+ * buckets. Each bucket is a LongAdder, so recording from many threads at once
+ * does not contend, and recording never allocates. Percentiles are computed
+ * from the counts as they are when read, which may include some latencies
+ * recorded while reading.
+ */
+public final class LatencyHistogram {
+
+	/** Log2 of the number of buckets per power of two. */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	/** Number of buckets per power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Number of buckets needed for any non-negative long. */
+	private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+	/** Count of latencies in each bucket. */
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	/** Number of latencies recorded. */
+	private final LongAdder count = new LongAdder();
+
+	/** Sum of the latencies recorded. */
+	private final LongAdder total = new LongAdder();
+
+	/** Largest latency recorded. */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Create an empty histogram.
+	 */
+	public LatencyHistogram() {
+		for (var bucket = 0; bucket < BUCKETS; bucket++) {
+			this.buckets[bucket] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param nanoseconds The latency; negative values are counted as 0.
+	 */
+	public void record(long nanoseconds) {
+
+		final var value = Math.max(0, nanoseconds);
+		this.buckets[bucketOf(value)].increment();
+		this.count.increment();
+		this.total.add(value);
+		this.max.accumulate(value);
+	}
+
+	/**
+	 * Return the number of latencies recorded.
+	 *
+	 * @return The count.
+	 */
+	public long count() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Return the mean latency.
+	 *
+	 * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+	 */
+	public double mean() {
+		final var count = this.count.sum();
+		return count == 0 ? 0 : (double) this.total.sum() / count;
+	}
+
+	/**
+	 * Return the largest latency recorded.
+	 *
+	 * @return The maximum in nanoseconds, or 0 if nothing has been recorded.
+	 */
+	public long max() {
+		return this.max.get();
+	}
+
+	/**
+	 * Return a percentile of the latencies recorded.
+	 *
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The upper bound of the bucket holding the percentile, capped at the
+	 *         maximum, in nanoseconds; or 0 if nothing has been recorded.
+	 * @throws IllegalArgumentException if the percentile is out of range.
+	 */
+	public long percentile(double percentile) throws IllegalArgumentException {
+
+		if (!(percentile >= 0 && percentile <= 100)) {
+			throw new IllegalArgumentException(String.format("Percentile %s not between 0 and 100", percentile));
+		}
+
+		final var counts = new long[BUCKETS];
+		var count = 0L;
+		for (var bucket = 0; bucket < BUCKETS; bucket++) {
+			counts[bucket] = this.buckets[bucket].sum();
+			count += counts[bucket];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		final var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		var seen = 0L;
+		for (var bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(bucket), this.max());
+			}
+		}
+		return this.max();
+	}
+
+	/**
+	 * Return the counts of the non-empty buckets.
+	 *
+	 * @return Counts keyed by the upper bound of each bucket in nanoseconds, in
+	 *         ascending order of latency.
+	 */
+	public Map<Long, Long> buckets() {
+
+		Map<Long, Long> buckets = new LinkedHashMap<>();
+		for (var bucket = 0; bucket < BUCKETS; bucket++) {
+			final var count = this.buckets[bucket].sum();
+			if (count > 0) {
+				buckets.put(upperBoundOf(bucket), count);
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * Find the bucket of a latency.
+	 *
+	 * @param value A non-negative latency.
+	 * @return The index of its bucket.
+	 */
+	static int bucketOf(long value) {
+
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS * (exponent - SUB_BUCKET_BITS + 1) + subBucket;
+	}
+
+	/**
+	 * Return the largest latency in a bucket.
+	 *
+	 * @param bucket The index of a bucket.
+	 * @return Its upper bound, inclusive.
+	 */
+	static long upperBoundOf(int bucket) {
+
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final var shift = bucket / SUB_BUCKETS - 1;
+		final var lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
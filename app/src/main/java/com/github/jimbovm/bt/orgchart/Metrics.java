@@ -0,0 +1,286 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters of the work done by parsing, building hierarchies and
+ * answering path queries, for watching a running process without enabling
+ * verbose logging.
+ *
+ * Recording a measurement costs a few uncontended atomic additions and never
+ * allocates, so it is always on. The metrics can be read from code, published
+ * as an MXBean under OBJECT_NAME for JMX clients such as JConsole, and written
+ * out as text when the process exits.
+ */
+public final class Metrics {
+
+	/** Object name of the MXBean publishing the metrics. */
+	public static final String OBJECT_NAME = "com.github.jimbovm.bt.orgchart:type=Metrics";
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Nanoseconds in a millisecond. */
+	private static final double NANOSECONDS_PER_MILLISECOND = 1e6;
+
+	/** Nanoseconds in a microsecond. */
+	private static final double NANOSECONDS_PER_MICROSECOND = 1e3;
+
+	/** Number of parses. */
+	private static final LongAdder parses = new LongAdder();
+
+	/** Number of records parsed. */
+	private static final LongAdder recordsParsed = new LongAdder();
+
+	/** Time spent parsing. */
+	private static final LongAdder parseNanoseconds = new LongAdder();
+
+	/** Number of hierarchies built. */
+	private static final LongAdder builds = new LongAdder();
+
+	/** Measurements of the last hierarchy built. */
+	private static volatile Build lastBuild = new Build(0, 0, 0, 0);
+
+	/** Latencies of path queries. */
+	private static final LatencyHistogram pathQueries = new LatencyHistogram();
+
+	/** Latencies of set path queries. */
+	private static final LatencyHistogram setQueries = new LatencyHistogram();
+
+	/**
+	 * Measurements of a hierarchy build, published together.
+	 *
+	 * @param nanoseconds The time taken.
+	 * @param employees   The number of employees in the hierarchy.
+	 * @param maxDepth    The greatest depth of an employee below the chief.
+	 * @param maxFanOut   The greatest number of direct reports of an employee.
+	 */
+	private record Build(long nanoseconds, int employees, int maxDepth, int maxFanOut) {
+	}
+
+	/**
+	 * Internal use only. Metrics has only static methods.
+	 */
+	private Metrics() {
+
+	}
+
+	/**
+	 * Record a completed parse.
+	 *
+	 * @param records     The number of records parsed.
+	 * @param nanoseconds The time taken.
+	 */
+	public static void recordParse(long records, long nanoseconds) {
+		parses.increment();
+		recordsParsed.add(records);
+		parseNanoseconds.add(nanoseconds);
+	}
+
+	/**
+	 * Record a completed hierarchy build.
+	 *
+	 * @param employees   The number of employees in the hierarchy.
+	 * @param maxDepth    The greatest depth of an employee below the chief.
+	 * @param maxFanOut   The greatest number of direct reports of an employee.
+	 * @param nanoseconds The time taken.
+	 */
+	public static void recordBuild(int employees, int maxDepth, int maxFanOut, long nanoseconds) {
+		builds.increment();
+		lastBuild = new Build(nanoseconds, employees, maxDepth, maxFanOut);
+	}
+
+	/**
+	 * Return the histogram of path query latencies, to which PathFinder records
+	 * every query it answers, including those answered from its cache.
+	 *
+	 * @return The histogram.
+	 */
+	public static LatencyHistogram pathQueries() {
+		return pathQueries;
+	}
+
+	/**
+	 * Return the histogram of set path query latencies, to which SetPathFinder
+	 * records every query it answers.
+	 *
+	 * A set query answers many pairs at once, so its latencies are kept apart
+	 * from those of single path queries, whose percentiles they would otherwise
+	 * distort.
+	 *
+	 * @return The histogram.
+	 */
+	public static LatencyHistogram setQueries() {
+		return setQueries;
+	}
+
+	/**
+	 * Publish the metrics over JMX through the platform MBean server. Does nothing
+	 * if they are already published.
+	 */
+	public static void register() {
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// already published
+		} catch (JMException e) {
+			logger.log(Level.WARNING, "Failed to publish metrics over JMX", e);
+		}
+	}
+
+	/**
+	 * Write the metrics to a stream when the process exits.
+	 *
+	 * @param output The stream, usually standard error.
+	 */
+	public static void dumpOnExit(PrintStream output) {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> output.print(report()), "metrics-dump"));
+	}
+
+	/**
+	 * Describe the metrics as text.
+	 *
+	 * @return A summary of the metrics, one line per area, each ending with a
+	 *         line separator.
+	 */
+	public static String report() {
+
+		final var bean = new Bean();
+		final var lineSeparator = System.lineSeparator();
+		return String.format("Parsing: %d records in %d parses, %.1f ms, %.0f records/s%s", bean.getRecordsParsed(),
+				bean.getParses(), bean.getParseMilliseconds(), bean.getParseRecordsPerSecond(), lineSeparator)
+				+ String.format("Building: %d hierarchies, last of %d employees in %.1f ms, max depth %d, "
+						+ "max fan-out %d%s", bean.getBuilds(), bean.getLastBuildEmployees(),
+						bean.getLastBuildMilliseconds(), bean.getMaxDepth(), bean.getMaxFanOut(), lineSeparator)
+				+ String.format("Path queries: %d, mean %.1f us, median %.1f us, 99th percentile %.1f us, "
+						+ "max %.1f us%s", bean.getPathQueries(), bean.getPathQueryMeanMicroseconds(),
+						bean.getPathQueryMedianMicroseconds(), bean.getPathQuery99thPercentileMicroseconds(),
+						bean.getPathQueryMaxMicroseconds(), lineSeparator)
+				+ String.format("Set queries: %d, mean %.1f us, median %.1f us, 99th percentile %.1f us, "
+						+ "max %.1f us%s", bean.getSetQueries(), bean.getSetQueryMeanMicroseconds(),
+						bean.getSetQueryMedianMicroseconds(), bean.getSetQuery99thPercentileMicroseconds(),
+						bean.getSetQueryMaxMicroseconds(), lineSeparator);
+	}
+
+	/**
+	 * The MXBean publishing the metrics.
+	 */
+	private static final class Bean implements MetricsMXBean {
+
+		@Override
+		public long getParses() {
+			return parses.sum();
+		}
+
+		@Override
+		public long getRecordsParsed() {
+			return recordsParsed.sum();
+		}
+
+		@Override
+		public double getParseMilliseconds() {
+			return parseNanoseconds.sum() / NANOSECONDS_PER_MILLISECOND;
+		}
+
+		@Override
+		public double getParseRecordsPerSecond() {
+			final var nanoseconds = parseNanoseconds.sum();
+			return nanoseconds == 0 ? 0 : recordsParsed.sum() * 1e9 / nanoseconds;
+		}
+
+		@Override
+		public long getBuilds() {
+			return builds.sum();
+		}
+
+		@Override
+		public double getLastBuildMilliseconds() {
+			return lastBuild.nanoseconds() / NANOSECONDS_PER_MILLISECOND;
+		}
+
+		@Override
+		public int getLastBuildEmployees() {
+			return lastBuild.employees();
+		}
+
+		@Override
+		public int getMaxDepth() {
+			return lastBuild.maxDepth();
+		}
+
+		@Override
+		public int getMaxFanOut() {
+			return lastBuild.maxFanOut();
+		}
+
+		@Override
+		public long getPathQueries() {
+			return pathQueries.count();
+		}
+
+		@Override
+		public double getPathQueryMeanMicroseconds() {
+			return pathQueries.mean() / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getPathQueryMedianMicroseconds() {
+			return pathQueries.percentile(50) / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getPathQuery99thPercentileMicroseconds() {
+			return pathQueries.percentile(99) / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getPathQueryMaxMicroseconds() {
+			return pathQueries.max() / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public Map<Long, Long> getPathQueryHistogram() {
+			return pathQueries.buckets();
+		}
+
+		@Override
+		public long getSetQueries() {
+			return setQueries.count();
+		}
+
+		@Override
+		public double getSetQueryMeanMicroseconds() {
+			return setQueries.mean() / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getSetQueryMedianMicroseconds() {
+			return setQueries.percentile(50) / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getSetQuery99thPercentileMicroseconds() {
+			return setQueries.percentile(99) / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public double getSetQueryMaxMicroseconds() {
+			return setQueries.max() / NANOSECONDS_PER_MICROSECOND;
+		}
+
+		@Override
+		public Map<Long, Long> getSetQueryHistogram() {
+			return setQueries.buckets();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.Map;
+
+/**
+ * Management interface through which Metrics are published over JMX, under the
+ * object name given by Metrics.OBJECT_NAME.
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * Return the number of org chart files or streams parsed.
+	 *
+	 * @return The number of parses.
+	 */
+	long getParses();
+
+	/**
+	 * Return the number of records parsed, across all parses.
+	 *
+	 * @return The number of records.
+	 */
+	long getRecordsParsed();
+
+	/**
+	 * Return the time spent parsing, across all parses.
+	 *
+	 * @return The time in milliseconds.
+	 */
+	double getParseMilliseconds();
+
+	/**
+	 * Return the parse throughput, across all parses.
+	 *
+	 * @return Records parsed per second of parsing.
+	 */
+	double getParseRecordsPerSecond();
+
+	/**
+	 * Return the number of hierarchies built.
+	 *
+	 * @return The number of builds.
+	 */
+	long getBuilds();
+
+	/**
+	 * Return the time taken by the last hierarchy build.
+	 *
+	 * @return The time in milliseconds.
+	 */
+	double getLastBuildMilliseconds();
+
+	/**
+	 * Return the number of employees in the last hierarchy built.
+	 *
+	 * @return The number of employees.
+	 */
+	int getLastBuildEmployees();
+
+	/**
+	 * Return the depth of the last hierarchy built.
+	 *
+	 * @return The greatest depth of an employee below the chief.
+	 */
+	int getMaxDepth();
+
+	/**
+	 * Return the fan-out of the last hierarchy built.
+	 *
+	 * @return The greatest number of direct reports of an employee.
+	 */
+	int getMaxFanOut();
+
+	/**
+	 * Return the number of path queries answered.
+	 *
+	 * @return The number of queries.
+	 */
+	long getPathQueries();
+
+	/**
+	 * Return the mean latency of path queries.
+	 *
+	 * @return The mean in microseconds.
+	 */
+	double getPathQueryMeanMicroseconds();
+
+	/**
+	 * Return the median latency of path queries.
+	 *
+	 * @return The median in microseconds.
+	 */
+	double getPathQueryMedianMicroseconds();
+
+	/**
+	 * Return the 99th percentile latency of path queries.
+	 *
+	 * @return The percentile in microseconds.
+	 */
+	double getPathQuery99thPercentileMicroseconds();
+
+	/**
+	 * Return the largest latency of a path query.
+	 *
+	 * @return The maximum in microseconds.
+	 */
+	double getPathQueryMaxMicroseconds();
+
+	/**
+	 * Return the histogram of path query latencies.
+	 *
+	 * @return Query counts keyed by the upper bound of each bucket in nanoseconds.
+	 */
+	Map<Long, Long> getPathQueryHistogram();
+
+	/**
+	 * Return the number of set path queries answered, each of which finds the
+	 * paths between two sets of employees.
+	 *
+	 * @return The number of queries.
+	 */
+	long getSetQueries();
+
+	/**
+	 * Return the mean latency of set path queries.
+	 *
+	 * @return The mean in microseconds.
+	 */
+	double getSetQueryMeanMicroseconds();
+
+	/**
+	 * Return the median latency of set path queries.
+	 *
+	 * @return The median in microseconds.
+	 */
+	double getSetQueryMedianMicroseconds();
+
+	/**
+	 * Return the 99th percentile latency of set path queries.
+	 *
+	 * @return The percentile in microseconds.
+	 */
+	double getSetQuery99thPercentileMicroseconds();
+
+	/**
+	 * Return the largest latency of a set path query.
+	 *
+	 * @return The maximum in microseconds.
+	 */
+	double getSetQueryMaxMicroseconds();
+
+	/**
+	 * Return the histogram of set path query latencies.
+	 *
+	 * @return Query counts keyed by the upper bound of each bucket in nanoseconds.
+	 */
+	Map<Long, Long> getSetQueryHistogram();
+}
@@ -0,0 +1,386 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Index of employees by normalized name.
+ *
+ * Names are normalized once for every employee when the index is built, so
+ * resolving a name at query time is a single normalization of the query
+ * followed by a hash lookup. Normalization replaces every run of whitespace
+ * with a single space, strips leading and trailing whitespace and converts the
+ * name to lower case; names which are entirely ASCII, as most are, are
+ * normalized with a single scan and no regular expression.
+ *
+ * An index loaded from a Snapshot keeps its names sorted in the mapped snapshot
+ * file instead, and finds them by binary search.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class NameIndex {
+
+	/** Regular expression matching runs of Unicode whitespace. */
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+",
+			Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS);
+
+	/** Highest code of an ASCII character. */
+	private static final char ASCII_MAX = 0x7f;
+
+	/** Employees by normalized name. */
+	private final Dictionary dictionary;
+
+	/**
+	 * Create a new name index.
+	 * Internal use only. NameIndex must be substantiated using of().
+	 */
+	private NameIndex(Dictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Lookup of employees by normalized name.
+	 */
+	private interface Dictionary {
+
+		/**
+		 * Find the employees with a normalized name.
+		 *
+		 * @param name A normalized name.
+		 * @return The employees with that name, which may be empty.
+		 */
+		List<Employee> find(String name);
+
+		/**
+		 * Return the distinct normalized names.
+		 *
+		 * @return An array of names.
+		 */
+		String[] names();
+	}
+
+	/**
+	 * Build a name index over a list of employees.
+	 *
+	 * @param employees A list of Employee records.
+	 * @return The index.
+	 */
+	public static NameIndex of(List<Employee> employees) {
+
+		Objects.requireNonNull(employees);
+		var builder = builder();
+		employees.forEach(builder);
+		return builder.build();
+	}
+
+	/**
+	 * Create a builder which accepts employees one at a time, such as from
+	 * Parser.parse() with a sink.
+	 *
+	 * @return A new, empty builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder of a NameIndex from employees supplied one at a time.
+	 */
+	public static final class Builder implements Consumer<Employee> {
+
+		/** Employees keyed by normalized name, in the order accepted. */
+		private Map<String, List<Employee>> employeesByName = new HashMap<>();
+
+		/**
+		 * Create a new, empty builder.
+		 * Internal use only. Builder must be substantiated using NameIndex.builder().
+		 */
+		private Builder() {
+
+		}
+
+		/**
+		 * Add an employee to the index being built.
+		 *
+		 * @param employee An Employee record.
+		 */
+		@Override
+		public void accept(Employee employee) {
+
+			// most names are unique, so start every name with a compact singleton list
+			this.employeesByName.merge(normalize(employee.name()), List.of(employee), (existing, added) -> {
+				final List<Employee> merged = (existing instanceof ArrayList) ? existing
+						: new ArrayList<>(existing);
+				merged.addAll(added);
+				return merged;
+			});
+		}
+
+		/**
+		 * Build the index from the employees accepted so far. The builder must not be
+		 * used afterwards.
+		 *
+		 * @return The index.
+		 */
+		public NameIndex build() {
+
+			final var employeesByName = Objects.requireNonNull(this.employeesByName, "Builder already used");
+			this.employeesByName = null;
+
+			employeesByName.replaceAll((name, matches) -> (matches instanceof ArrayList)
+					? Collections.unmodifiableList(matches)
+					: matches);
+
+			return new NameIndex(new Dictionary() {
+
+				@Override
+				public List<Employee> find(String name) {
+					return employeesByName.getOrDefault(name, List.of());
+				}
+
+				@Override
+				public String[] names() {
+					return employeesByName.keySet().toArray(new String[0]);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Normalize a name by replacing all runs of whitespace with a single space,
+	 * stripping leading and trailing whitespace and converting it to lower case.
+	 *
+	 * @param name The name to normalize.
+	 * @return The normalized name.
+	 */
+	public static String normalize(String name) {
+
+		final var length = name.length();
+		var normalized = true;
+
+		for (var i = 0; i < length; i++) {
+			final var c = name.charAt(i);
+			if (c > ASCII_MAX) {
+				return normalizeUnicode(name);
+			}
+			if ((c >= 'A' && c <= 'Z')
+					|| (isAsciiWhitespace(c) && (c != ' ' || i == 0 || i == length - 1
+							|| name.charAt(i - 1) == ' '))) {
+				normalized = false;
+			}
+		}
+
+		return normalized ? name : normalizeAscii(name);
+	}
+
+	/**
+	 * Normalize a name known to be entirely ASCII.
+	 *
+	 * @param name The name to normalize.
+	 * @return The normalized name.
+	 */
+	private static String normalizeAscii(String name) {
+
+		var builder = new StringBuilder(name.length());
+		var pendingSpace = false;
+
+		for (var i = 0; i < name.length(); i++) {
+			final var c = name.charAt(i);
+			if (isAsciiWhitespace(c)) {
+				pendingSpace = builder.length() > 0;
+				continue;
+			}
+			if (pendingSpace) {
+				builder.append(' ');
+				pendingSpace = false;
+			}
+			builder.append((c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Normalize a name which may contain any Unicode characters.
+	 *
+	 * @param name The name to normalize.
+	 * @return The normalized name.
+	 */
+	private static String normalizeUnicode(String name) {
+		return WHITESPACE.matcher(name).replaceAll(" ").strip().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Check whether a character is ASCII whitespace, as matched by \s.
+	 *
+	 * @param c A character.
+	 * @return True if the character is whitespace.
+	 */
+	private static boolean isAsciiWhitespace(char c) {
+		return c == ' ' || (c >= '\t' && c <= '\r');
+	}
+
+	/**
+	 * Find the employees with a name.
+	 *
+	 * @param name A name, which need not be normalized.
+	 * @return The employees with that name after normalization, in input order;
+	 *         empty if there are none.
+	 */
+	public List<Employee> find(String name) {
+		return this.dictionary.find(normalize(name));
+	}
+
+	/**
+	 * Return the distinct normalized names in the index.
+	 *
+	 * @return An array of normalized names, in no particular order.
+	 */
+	String[] names() {
+		return this.dictionary.names();
+	}
+
+	/**
+	 * Check whether any employee has a name.
+	 *
+	 * @param name A name, which need not be normalized.
+	 * @return True if at least one employee has that name after normalization.
+	 */
+	public boolean contains(String name) {
+		return !this.dictionary.find(normalize(name)).isEmpty();
+	}
+
+	/**
+	 * Write the index to a snapshot as a sorted dictionary.
+	 *
+	 * Employees are written as their indices in a hierarchy, so any employee who
+	 * is not part of it is left out.
+	 *
+	 * @param output    The snapshot being written.
+	 * @param hierarchy The hierarchy the employees belong to.
+	 * @throws IOException if there is a problem writing the snapshot, or the
+	 *                     names are too long to store.
+	 */
+	void writeTo(Snapshot.Output output, CompactHierarchy hierarchy) throws IOException {
+
+		final var allNames = names();
+		Arrays.sort(allNames);
+
+		List<String> names = new ArrayList<>(allNames.length);
+		var nameOffsets = new int[allNames.length + 1];
+		var employeeOffsets = new int[allNames.length + 1];
+		var employees = new int[allNames.length];
+		var count = 0;
+
+		for (var name : allNames) {
+			final var start = count;
+			for (var employee : this.dictionary.find(name)) {
+				final var index = hierarchy.indexOf(employee.id());
+				if (index >= 0) {
+					if (count == employees.length) {
+						employees = Arrays.copyOf(employees, count + (count >> 1) + 1);
+					}
+					employees[count++] = index;
+				}
+			}
+			if (count > start) {
+				final long end = nameOffsets[names.size()] + (long) Snapshot.utf8Length(name);
+				if (end > Integer.MAX_VALUE) {
+					throw new IOException("Employee names too long to write to a snapshot");
+				}
+				names.add(name);
+				nameOffsets[names.size()] = (int) end;
+				employeeOffsets[names.size()] = count;
+			}
+		}
+
+		output.writeInts(Arrays.copyOf(nameOffsets, names.size() + 1));
+		output.startBytes(nameOffsets[names.size()]);
+		for (var name : names) {
+			output.writeUtf8(name);
+		}
+		output.writeInts(Arrays.copyOf(employeeOffsets, names.size() + 1));
+		output.writeInts(Arrays.copyOf(employees, count));
+	}
+
+	/**
+	 * Read an index from a snapshot, leaving the names in the mapped file.
+	 *
+	 * @param input     The snapshot being read.
+	 * @param hierarchy The hierarchy the employees belong to, already read from
+	 *                  the snapshot.
+	 * @return The index.
+	 * @throws IOException if there is a problem reading the snapshot.
+	 */
+	static NameIndex readFrom(Snapshot.Input input, CompactHierarchy hierarchy) throws IOException {
+
+		final var nameOffsets = input.readInts();
+		final var nameBytes = input.mapBytes();
+		final var employeeOffsets = input.readInts();
+		final var employees = input.readInts();
+
+		final var count = nameOffsets.length - 1;
+		if (count < 0 || employeeOffsets.length != nameOffsets.length || nameOffsets[count] != nameBytes.capacity()
+				|| employeeOffsets[count] != employees.length) {
+			throw new IOException("Corrupt snapshot: name dictionary arrays do not match");
+		}
+
+		return new NameIndex(new Dictionary() {
+
+			/**
+			 * Decode one of the names.
+			 *
+			 * @param number The position of the name in sorted order.
+			 * @return The name.
+			 */
+			private String name(int number) {
+				final var bytes = new byte[nameOffsets[number + 1] - nameOffsets[number]];
+				nameBytes.get(nameOffsets[number], bytes);
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			@Override
+			public List<Employee> find(String name) {
+
+				var low = 0;
+				var high = count - 1;
+				while (low <= high) {
+					final var middle = (low + high) >>> 1;
+					final var comparison = name(middle).compareTo(name);
+					if (comparison < 0) {
+						low = middle + 1;
+					} else if (comparison > 0) {
+						high = middle - 1;
+					} else {
+						final var matches = new Employee[employeeOffsets[middle + 1] - employeeOffsets[middle]];
+						for (var i = 0; i < matches.length; i++) {
+							matches[i] = hierarchy.employee(employees[employeeOffsets[middle] + i]);
+						}
+						return List.of(matches);
+					}
+				}
+				return List.of();
+			}
+
+			@Override
+			public String[] names() {
+
+				final var names = new String[count];
+				for (var number = 0; number < count; number++) {
+					names[number] = name(number);
+				}
+				return names;
+			}
+		});
+	}
+}
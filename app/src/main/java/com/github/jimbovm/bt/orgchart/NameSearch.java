@@ -0,0 +1,387 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prefix and approximate name search, for resolving partial or misspelt names.
+ *
+ * Both kinds of search work over the distinct normalized names in sorted
+ * order, which is the same ordered traversal a trie would give at the cost of a
+ * single array: all names with a given prefix form one contiguous range, found
+ * by binary search.
+ *
+ * Approximate search intersects a Levenshtein automaton for the query with
+ * the trie implied by the sorted names. The automaton's state after a prefix is
+ * one row of edit distances, from the prefix to each prefix of the query, and
+ * all names extending a prefix form one contiguous range. The walk descends
+ * from each prefix still within the search distance to its extensions by one
+ * character, each a subrange found by binary search. Once a prefix's state is
+ * at the search distance, only characters matching the query where the row is
+ * within reach can extend it, so only those extensions are looked up. The work
+ * done is therefore bounded by the prefixes the automaton accepts, not by the
+ * number of names. The walk reads the names from one array of characters, in
+ * sorted order, rather than from each String in turn, so that the binary
+ * searches stay within a few regions of memory.
+ *
+ * The search is built once, from the names in a NameIndex, and results are
+ * returned as Employee records from that index.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class NameSearch {
+
+	/** Length of range below which a boundary is found by scanning. */
+	private static final int LINEAR_SEARCH = 8;
+
+	/** The index the names were taken from, used to return employees. */
+	private final NameIndex nameIndex;
+
+	/** The distinct normalized names, sorted. */
+	private final String[] names;
+
+	/** The characters of all the names, in sorted order. */
+	private final char[] characters;
+
+	/** Where each name starts in characters, and where the last one ends. */
+	private final int[] offsets;
+
+	/** The length of the longest name. */
+	private final int longestName;
+
+	/**
+	 * Create a new name search.
+	 * Internal use only. NameSearch must be substantiated using of().
+	 */
+	private NameSearch(NameIndex nameIndex, String[] names) {
+		this.nameIndex = nameIndex;
+		this.names = names;
+		this.offsets = new int[names.length + 1];
+		var longest = 0;
+		for (var name = 0; name < names.length; name++) {
+			this.offsets[name + 1] = this.offsets[name] + names[name].length();
+			longest = Math.max(longest, names[name].length());
+		}
+		this.longestName = longest;
+		this.characters = new char[this.offsets[names.length]];
+		for (var name = 0; name < names.length; name++) {
+			names[name].getChars(0, names[name].length(), this.characters, this.offsets[name]);
+		}
+	}
+
+	/**
+	 * Build a name search over the names in a name index.
+	 *
+	 * @param nameIndex The name index.
+	 * @return The name search.
+	 */
+	public static NameSearch of(NameIndex nameIndex) {
+
+		Objects.requireNonNull(nameIndex);
+		final var names = nameIndex.names();
+		Arrays.sort(names);
+		return new NameSearch(nameIndex, names);
+	}
+
+	/**
+	 * Find employees whose names start with a prefix.
+	 *
+	 * @param prefix The prefix, which is normalized before searching.
+	 * @param limit  The maximum number of employees to return.
+	 * @return Matching employees, ordered by name and then input order.
+	 */
+	public List<Employee> withPrefix(String prefix, int limit) {
+
+		final var normalized = NameIndex.normalize(prefix);
+		var position = Arrays.binarySearch(this.names, normalized);
+		if (position < 0) {
+			position = -(position + 1);
+		}
+
+		List<Employee> results = new ArrayList<>();
+		for (; position < this.names.length && this.names[position].startsWith(normalized); position++) {
+			if (!addAll(results, this.names[position], limit)) {
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Find employees whose names are within an edit distance of a name.
+	 *
+	 * @param name        The name, which is normalized before searching.
+	 * @param maxDistance The greatest number of single-character insertions,
+	 *                    deletions or substitutions allowed.
+	 * @param limit       The maximum number of employees to return.
+	 * @return Matching employees, closest first, then ordered by name and input
+	 *         order.
+	 */
+	public List<Employee> similarTo(String name, int maxDistance, int limit) {
+
+		final var query = NameIndex.normalize(name);
+		List<Match> matches = new ArrayList<>();
+		if (maxDistance >= 0 && this.names.length > 0) {
+			// no distance exceeds the longer of the two strings
+			final var reach = Math.min(maxDistance, Math.max(query.length(), this.longestName));
+			new Walk(query, reach, matches).descend(0, this.names.length, 0);
+		}
+
+		matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::name));
+
+		List<Employee> results = new ArrayList<>();
+		for (var match : matches) {
+			if (!addAll(results, match.name(), limit)) {
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * A name within the search distance of a query.
+	 *
+	 * @param name     The normalized name.
+	 * @param distance Its edit distance from the query.
+	 */
+	private record Match(String name, int distance) {
+	}
+
+	/**
+	 * One approximate search: the Levenshtein automaton of a query, walked over
+	 * the names.
+	 */
+	private final class Walk {
+
+		/** The normalized query. */
+		private final String query;
+
+		/** The greatest edit distance allowed. */
+		private final int maxDistance;
+
+		/** Width of a row of the automaton: the query length plus one. */
+		private final int columns;
+
+		/** The automaton's state after each length of the current prefix. */
+		private final int[] rows;
+
+		/** The names found so far. */
+		private final List<Match> matches;
+
+		/**
+		 * Start a search.
+		 *
+		 * @param query       The normalized query.
+		 * @param maxDistance The greatest edit distance allowed.
+		 * @param matches     The list to add names found to.
+		 */
+		Walk(String query, int maxDistance, List<Match> matches) {
+
+			this.query = query;
+			this.maxDistance = maxDistance;
+			this.columns = query.length() + 1;
+			this.matches = matches;
+
+			// a prefix longer than the query by more than the distance is out of
+			// reach, so the walk never goes deeper than that
+			this.rows = new int[(query.length() + maxDistance + 1) * this.columns];
+			for (var column = 0; column < this.columns; column++) {
+				this.rows[column] = column;
+			}
+		}
+
+		/**
+		 * Search the names extending a prefix whose state is within reach.
+		 *
+		 * The recursion is at most the query length plus the search distance
+		 * deep.
+		 *
+		 * @param low   The position of the first name with the prefix.
+		 * @param high  The position after the last name with the prefix.
+		 * @param depth The length of the prefix.
+		 */
+		void descend(int low, int high, int depth) {
+
+			final var row = depth * this.columns;
+
+			// a name which is the prefix itself sorts before its extensions
+			if (offsets[low + 1] - offsets[low] == depth) {
+				final var distance = this.rows[row + this.columns - 1];
+				if (distance <= this.maxDistance) {
+					this.matches.add(new Match(names[low], distance));
+				}
+				low++;
+			}
+			if (low == high || depth == this.query.length() + this.maxDistance) {
+				return;
+			}
+
+			var rowMinimum = Integer.MAX_VALUE;
+			for (var column = 0; column < this.columns; column++) {
+				rowMinimum = Math.min(rowMinimum, this.rows[row + column]);
+			}
+
+			if (rowMinimum < this.maxDistance) {
+				// any character keeps the prefix within reach, so try each in turn
+				while (low < high) {
+					final var c = characters[offsets[low] + depth];
+					final var end = boundary(c, true, low + 1, high, depth);
+					extend(low, end, depth, c);
+					low = end;
+				}
+				return;
+			}
+
+			// only a character matching the query where the row is within reach
+			// can keep the prefix within reach
+			final var candidates = new char[this.query.length()];
+			var count = 0;
+			for (var column = 1; column < this.columns; column++) {
+				if (this.rows[row + column - 1] <= this.maxDistance) {
+					candidates[count++] = this.query.charAt(column - 1);
+				}
+			}
+			Arrays.sort(candidates, 0, count);
+			for (var candidate = 0; candidate < count && low < high; candidate++) {
+				final var c = candidates[candidate];
+				if (candidate > 0 && c == candidates[candidate - 1]) {
+					continue;
+				}
+				low = boundary(c, false, low, high, depth);
+				final var end = boundary(c, true, low, high, depth);
+				if (low < end) {
+					extend(low, end, depth, c);
+				}
+				low = end;
+			}
+		}
+
+		/**
+		 * Feed a character to the automaton and descend if still within reach.
+		 *
+		 * @param low   The position of the first name with the extended prefix.
+		 * @param high  The position after the last name with the extended prefix.
+		 * @param depth The length of the prefix before it is extended.
+		 * @param c     The character extending it.
+		 */
+		private void extend(int low, int high, int depth, char c) {
+			if (step(this.rows, depth, this.columns, this.query, c) <= this.maxDistance) {
+				descend(low, high, depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * Feed one character to the Levenshtein automaton of a query.
+	 *
+	 * @param rows    The automaton's rows, one per character of the name so far.
+	 * @param depth   The number of characters of the name fed so far; the row
+	 *                after this one is computed.
+	 * @param columns The length of the query plus one.
+	 * @param query   The normalized query.
+	 * @param c       The next character of the name.
+	 * @return The smallest distance in the new row, below which every name
+	 *         continuing this prefix stays.
+	 */
+	private static int step(int[] rows, int depth, int columns, String query, char c) {
+
+		final var previous = depth * columns;
+		final var current = previous + columns;
+		rows[current] = depth + 1;
+		var rowMinimum = depth + 1;
+		for (var column = 1; column < columns; column++) {
+			final var substitution = rows[previous + column - 1] + (c == query.charAt(column - 1) ? 0 : 1);
+			final var value = Math.min(substitution, Math.min(rows[previous + column], rows[current + column - 1]) + 1);
+			rows[current + column] = value;
+			rowMinimum = Math.min(rowMinimum, value);
+		}
+		return rowMinimum;
+	}
+
+	/**
+	 * Find the first name in a range whose character at some position comes
+	 * after a given one, or at or after it. The names in the range share their
+	 * prefix up to that position, so they are ordered by that character.
+	 *
+	 * @param c         The character.
+	 * @param inclusive True to skip names with that character, false to stop at
+	 *                  the first of them.
+	 * @param low       The start of the range to search.
+	 * @param high      The end of the range to search.
+	 * @param depth     The position of the character, which all names in the
+	 *                  range extend beyond.
+	 * @return The position of the first name found, or high if there is none.
+	 */
+	private int boundary(char c, boolean inclusive, int low, int high, int depth) {
+
+		while (high - low > LINEAR_SEARCH) {
+			final var middle = (low + high) >>> 1;
+			final var character = this.characters[this.offsets[middle] + depth];
+			if (character < c || (inclusive && character == c)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		// finish short ranges by scanning, which reads memory in order
+		while (low < high) {
+			final var character = this.characters[this.offsets[low] + depth];
+			if (character > c || (!inclusive && character == c)) {
+				break;
+			}
+			low++;
+		}
+		return low;
+	}
+
+	/**
+	 * Add the employees with a name to a result list, up to a limit.
+	 *
+	 * @param results The result list.
+	 * @param name    A normalized name.
+	 * @param limit   The maximum size of the result list.
+	 * @return True if there is room for more results.
+	 */
+	private boolean addAll(List<Employee> results, String name, int limit) {
+
+		for (var employee : this.nameIndex.find(name)) {
+			if (results.size() >= limit) {
+				return false;
+			}
+			results.add(employee);
+		}
+		return results.size() < limit;
+	}
+
+	/**
+	 * Compute the Levenshtein distance between two strings.
+	 *
+	 * @param first  The first string.
+	 * @param second The second string.
+	 * @param bound  A bound above which the exact distance is not needed.
+	 * @return The distance, or a value greater than the bound if the distance
+	 *         exceeds it.
+	 */
+	static int distance(String first, String second, int bound) {
+
+		if (Math.abs(first.length() - second.length()) > bound) {
+			return bound + 1;
+		}
+
+		final var columns = second.length() + 1;
+		final var rows = new int[(first.length() + 1) * columns];
+		for (var column = 0; column < columns; column++) {
+			rows[column] = column;
+		}
+		for (var depth = 0; depth < first.length(); depth++) {
+			if (step(rows, depth, columns, second, first.charAt(depth)) > bound) {
+				return bound + 1;
+			}
+		}
+		final var distance = rows[rows.length - 1];
+		return distance > bound ? bound + 1 : distance;
+	}
+}
@@ -0,0 +1,290 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * An org chart loaded for querying: the parsed employees, the hierarchy built
+ * from them and the indices used to answer queries against it.
+ *
+ * Instances are immutable once built, so a single instance may answer queries
+ * from any number of threads, and a chart may be replaced by loading a new
+ * instance and publishing it in place of the old one.
+ */
+public final class OrgChart {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Number of paths cached by the pathfinder of each org chart. */
+	private static final int PATH_CACHE_CAPACITY = 10_000;
+
+	/** The common manager index, which also holds the compact hierarchy. */
+	private final EulerTourIndex index;
+
+	/** Employees keyed by normalized name. */
+	private final NameIndex nameIndex;
+
+	/** Prefix and approximate name search, built on first use. */
+	private volatile NameSearch nameSearch;
+
+	/** Pathfinder over the index, with a cache of recent paths. */
+	private final PathFinder pathFinder;
+
+	/** Headcounts and heights of the team under each employee. */
+	private final SubtreeAggregates aggregates;
+
+	/**
+	 * Create an org chart.
+	 * Internal use only. OrgChart must be substantiated using of() or load().
+	 */
+	private OrgChart(EulerTourIndex index, NameIndex nameIndex) {
+		this.index = index;
+		this.nameIndex = nameIndex;
+		this.pathFinder = new PathFinder(index, PairCache.of(PATH_CACHE_CAPACITY));
+		this.aggregates = SubtreeAggregates.of(index.hierarchy());
+	}
+
+	/**
+	 * Build an org chart from a list of employees.
+	 *
+	 * @param employees A list of Employee records.
+	 * @return The org chart.
+	 * @throws IllegalArgumentException if the employees do not form a valid
+	 *                                  hierarchy.
+	 */
+	public static OrgChart of(List<Employee> employees) throws IllegalArgumentException {
+
+		Objects.requireNonNull(employees);
+		final var index = EulerTourIndex.of(CompactHierarchy.of(employees));
+		final var nameIndex = NameIndex.of(employees);
+
+		return new OrgChart(index, nameIndex);
+	}
+
+	/**
+	 * Load an org chart from a file on the filesystem, which may be either an org
+	 * chart text file or a snapshot written by Snapshot.write().
+	 *
+	 * @param filePath The path to the org chart file or snapshot.
+	 * @return The org chart.
+	 * @throws IOException              if there is a problem reading the file.
+	 * @throws IllegalArgumentException if the file does not describe a valid
+	 *                                  hierarchy.
+	 */
+	public static OrgChart load(String filePath) throws IOException, IllegalArgumentException {
+
+		final var path = Path.of(filePath);
+		if (Snapshot.isSnapshot(path)) {
+			return Snapshot.load(path);
+		}
+
+		final var orgChart = of(Parser.parseParallel(filePath));
+		logger.info(() -> String.format("Loaded %d employees from %s", orgChart.employees().size(), filePath));
+		return orgChart;
+	}
+
+	/**
+	 * Return the employees of the org chart who are part of its hierarchy, i.e.
+	 * who can be reached from the chief.
+	 *
+	 * @return An unmodifiable list of employees, in hierarchy index order.
+	 */
+	public List<Employee> employees() {
+
+		final var hierarchy = this.hierarchy();
+		return new AbstractList<>() {
+
+			@Override
+			public Employee get(int index) {
+				Objects.checkIndex(index, size());
+				return hierarchy.employee(index);
+			}
+
+			@Override
+			public int size() {
+				return hierarchy.size();
+			}
+		};
+	}
+
+	/**
+	 * Return the hierarchy of the org chart in compact form.
+	 *
+	 * @return The compact hierarchy.
+	 */
+	public CompactHierarchy hierarchy() {
+		return this.index.hierarchy();
+	}
+
+	/**
+	 * Return the common manager index of the org chart.
+	 *
+	 * @return The index.
+	 */
+	public EulerTourIndex index() {
+		return this.index;
+	}
+
+	/**
+	 * Return the headcount, height and span of control of the team under each
+	 * employee, which are computed once when the chart is built or loaded.
+	 *
+	 * @return The aggregates, by employee index in the hierarchy.
+	 */
+	public SubtreeAggregates aggregates() {
+		return this.aggregates;
+	}
+
+	/**
+	 * Check whether one employee manages another, directly or indirectly, in
+	 * constant time.
+	 *
+	 * @param managerId  The ID of the possible manager.
+	 * @param employeeId The ID of the employee.
+	 * @return True if the employee reports to the manager through any number of
+	 *         reporting lines; false if they are the same employee, or if either
+	 *         is not in the hierarchy.
+	 * @see SubtreeAggregates#isAncestorOf(int, int)
+	 */
+	public boolean isAncestorOf(int managerId, int employeeId) {
+
+		final var manager = this.hierarchy().indexOf(managerId);
+		final var employee = this.hierarchy().indexOf(employeeId);
+		return manager >= 0 && employee >= 0 && this.aggregates.isAncestorOf(manager, employee);
+	}
+
+	/**
+	 * Check whether an employee is in the team headed by another, that is, they
+	 * are the head or report to them directly or indirectly, in constant time.
+	 *
+	 * @param headId     The ID of the head of the team.
+	 * @param employeeId The ID of the employee.
+	 * @return True if the employee is in the team; false if either is not in the
+	 *         hierarchy.
+	 * @see SubtreeAggregates#isInSubtree(int, int)
+	 */
+	public boolean isInSubtree(int headId, int employeeId) {
+
+		final var head = this.hierarchy().indexOf(headId);
+		final var employee = this.hierarchy().indexOf(employeeId);
+		return head >= 0 && employee >= 0 && this.aggregates.isInSubtree(head, employee);
+	}
+
+	/**
+	 * Check whether one employee manages another directly, in constant time.
+	 *
+	 * @param managerId  The ID of the possible manager.
+	 * @param employeeId The ID of the employee.
+	 * @return True if the employee is a direct report of the manager; false if
+	 *         either is not in the hierarchy.
+	 * @see SubtreeAggregates#isDirectReport(int, int)
+	 */
+	public boolean isDirectReport(int managerId, int employeeId) {
+
+		final var manager = this.hierarchy().indexOf(managerId);
+		final var employee = this.hierarchy().indexOf(employeeId);
+		return manager >= 0 && employee >= 0 && this.aggregates.isDirectReport(manager, employee);
+	}
+
+	/**
+	 * Return the pathfinder of the org chart, which may be shared between
+	 * threads. It caches the paths between recently queried pairs of employees,
+	 * so that pairs asked about repeatedly are answered without searching; the
+	 * cache belongs to this version of the chart, so a reloaded chart starts with
+	 * an empty one.
+	 *
+	 * @return The pathfinder.
+	 */
+	public PathFinder pathFinder() {
+		return this.pathFinder;
+	}
+
+	/**
+	 * Find employees by name, after normalization.
+	 *
+	 * @param name An employee name.
+	 * @return The employees with that name, which may be empty.
+	 */
+	public List<Employee> findByName(String name) {
+		return this.nameIndex.find(name);
+	}
+
+	/**
+	 * Return the prefix and approximate name search for the org chart.
+	 *
+	 * The search is built the first time it is needed, as charts loaded only for
+	 * exact lookups never need it. It is built only once: concurrent first calls
+	 * wait for the build in progress rather than starting their own. Once built,
+	 * this is one volatile read. OrgChartHolder starts the build in the
+	 * background as soon as a chart is put in service.
+	 *
+	 * @return The name search.
+	 */
+	public NameSearch nameSearch() {
+
+		var search = this.nameSearch;
+		if (search == null) {
+			synchronized (this.nameIndex) {
+				search = this.nameSearch;
+				if (search == null) {
+					search = NameSearch.of(this.nameIndex);
+					this.nameSearch = search;
+				}
+			}
+		}
+		return search;
+	}
+
+	/**
+	 * Resolve a query for an employee, which may be given as an ID or a name.
+	 *
+	 * @param query The query, which is treated as an ID if it is an integer and as
+	 *              a name otherwise.
+	 * @return The matching employees in the hierarchy, which may be empty.
+	 */
+	public List<Employee> resolve(String query) {
+
+		final var trimmed = query.strip();
+		try {
+			final var index = this.hierarchy().indexOf(Integer.parseInt(trimmed));
+			return index < 0 ? List.of() : List.of(this.hierarchy().employee(index));
+		} catch (NumberFormatException e) {
+			return findByName(trimmed);
+		}
+	}
+
+	/**
+	 * Write the org chart to a snapshot.
+	 *
+	 * @param output The snapshot being written.
+	 * @throws IOException if there is a problem writing the snapshot.
+	 */
+	void writeTo(Snapshot.Output output) throws IOException {
+
+		this.hierarchy().writeTo(output);
+		this.index.writeTo(output);
+		this.nameIndex.writeTo(output, this.hierarchy());
+	}
+
+	/**
+	 * Read an org chart from a snapshot.
+	 *
+	 * @param input The snapshot being read.
+	 * @return The org chart.
+	 * @throws IOException if there is a problem reading the snapshot.
+	 */
+	static OrgChart readFrom(Snapshot.Input input) throws IOException {
+
+		final var hierarchy = CompactHierarchy.readFrom(input);
+		final var index = EulerTourIndex.readFrom(input, hierarchy);
+		final var nameIndex = NameIndex.readFrom(input, hierarchy);
+		return new OrgChart(index, nameIndex);
+	}
+}
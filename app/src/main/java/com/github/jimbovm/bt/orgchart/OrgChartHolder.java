@@ -0,0 +1,232 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the current version of an org chart loaded from a file, and optionally
+ * reloads it in the background whenever the file changes.
+ *
+ * Each version is a complete, immutable OrgChart. A reload builds the new
+ * version in full, off to the side, and then publishes it with a single atomic
+ * reference update, so readers never see a half-built chart and never take a
+ * lock: get() is one volatile read. A query which fetches the chart once and
+ * uses that reference throughout is answered entirely from one version, even if
+ * a reload is published while it runs. Nothing holds on to old versions, so
+ * each is reclaimed by the garbage collector as soon as the last query using it
+ * finishes. The name search of each version is built on a background thread
+ * once the version is published, so that loading and reloading do not wait for
+ * it; a name search query arriving before it is ready waits for that build
+ * rather than starting another, and queries of other kinds never wait.
+ *
+ * Watching uses a WatchService on the directory containing the file, as
+ * editors and deployment tools often replace a file rather than modifying it in
+ * place. Changes often arrive as a burst of events while the file is written,
+ * so the watcher waits for the file to settle before reloading, and changes
+ * made during a reload cause one more reload after it. If a reload fails, for
+ * example because the file is invalid, the previous version stays in service.
+ */
+public final class OrgChartHolder implements Supplier<OrgChart>, AutoCloseable {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Time with no further changes after which the file is considered written. */
+	private static final long SETTLE_MILLISECONDS = 250;
+
+	/** The path to the org chart file. */
+	private final Path path;
+
+	/** The version of the org chart currently in service. */
+	private final AtomicReference<OrgChart> orgChart;
+
+	/** The watch service, once watching has started. */
+	private WatchService watchService;
+
+	/**
+	 * Create a holder.
+	 * Internal use only. OrgChartHolder must be substantiated using load().
+	 */
+	private OrgChartHolder(Path path, OrgChart orgChart) {
+		this.path = path;
+		this.orgChart = new AtomicReference<>(orgChart);
+	}
+
+	/**
+	 * Load the first version of an org chart from a file, which may be either an
+	 * org chart text file or a snapshot.
+	 *
+	 * @param filePath The path to the org chart file or snapshot.
+	 * @return A holder of the loaded chart, which is not yet watching the file.
+	 * @throws IOException              if there is a problem reading the file.
+	 * @throws IllegalArgumentException if the file does not describe a valid
+	 *                                  hierarchy.
+	 */
+	public static OrgChartHolder load(String filePath) throws IOException, IllegalArgumentException {
+
+		Objects.requireNonNull(filePath);
+		final var holder = new OrgChartHolder(Path.of(filePath).toAbsolutePath(), OrgChart.load(filePath));
+		holder.prepare(holder.get());
+		return holder;
+	}
+
+	/**
+	 * Return the version of the org chart currently in service, without locking.
+	 *
+	 * @return The org chart.
+	 */
+	@Override
+	public OrgChart get() {
+		return this.orgChart.get();
+	}
+
+	/**
+	 * Reload the org chart from the file now, replacing the version in service
+	 * only once the new one is completely built.
+	 *
+	 * Concurrent reloads are serialised, so that an older file can never replace
+	 * a newer one, but readers are never blocked by them.
+	 *
+	 * @return The newly loaded org chart.
+	 * @throws IOException              if the org chart cannot be read.
+	 * @throws IllegalArgumentException if the org chart is invalid.
+	 */
+	public synchronized OrgChart reload() throws IOException, IllegalArgumentException {
+
+		final var reloaded = OrgChart.load(this.path.toString());
+		this.orgChart.set(reloaded);
+		prepare(reloaded);
+		return reloaded;
+	}
+
+	/**
+	 * Start building the parts of a newly published org chart which are otherwise
+	 * built on first use, on a background thread. The build is skipped if the
+	 * chart has already been replaced by the time the thread runs.
+	 *
+	 * @param orgChart The org chart just put in service.
+	 */
+	private void prepare(OrgChart orgChart) {
+
+		final var builder = new Thread(() -> {
+			if (this.orgChart.get() != orgChart) {
+				return;
+			}
+			final var start = System.nanoTime();
+			orgChart.nameSearch();
+			logger.fine(() -> String.format("Built name search in %d ms", (System.nanoTime() - start) / 1_000_000));
+		}, "name-search-builder");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/**
+	 * Start watching the file, reloading it on a background thread whenever it
+	 * changes, until the holder is closed. Does nothing if already watching.
+	 *
+	 * @throws IOException if the file's directory cannot be watched.
+	 */
+	public synchronized void watch() throws IOException {
+
+		if (this.watchService != null) {
+			return;
+		}
+
+		final var directory = this.path.getParent();
+		final var watchService = directory.getFileSystem().newWatchService();
+		try {
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException e) {
+			watchService.close();
+			throw e;
+		}
+		this.watchService = watchService;
+
+		final var watcher = new Thread(() -> watchLoop(watchService), "org-chart-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+		logger.info(() -> String.format("Watching %s for changes", this.path));
+	}
+
+	/**
+	 * Stop watching the file. The version in service remains available.
+	 *
+	 * @throws IOException if the watch service cannot be closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+
+		if (this.watchService != null) {
+			this.watchService.close();
+			this.watchService = null;
+		}
+	}
+
+	/**
+	 * Wait for changes to the file and reload it after each burst of them, until
+	 * the watch service is closed.
+	 *
+	 * @param watchService The watch service registered on the file's directory.
+	 */
+	private void watchLoop(WatchService watchService) {
+
+		try {
+			while (true) {
+				if (!changed(watchService.take())) {
+					continue;
+				}
+
+				// wait for the writer to finish, absorbing its further events
+				WatchKey key;
+				while ((key = watchService.poll(SETTLE_MILLISECONDS, TimeUnit.MILLISECONDS)) != null) {
+					changed(key);
+				}
+
+				try {
+					final var reloaded = reload();
+					logger.info(() -> String.format("Reloaded %d employees from %s after a change",
+							reloaded.hierarchy().size(), this.path));
+				} catch (IOException | RuntimeException e) {
+					logger.log(Level.WARNING, e, () -> String.format(
+							"Failed to reload %s; keeping the previous version", this.path));
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			logger.fine(() -> String.format("Stopped watching %s", this.path));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Consume the events of a watch key and re-arm it.
+	 *
+	 * @param key A signalled watch key.
+	 * @return True if any event concerned the org chart file, or events may have
+	 *         been lost.
+	 */
+	private boolean changed(WatchKey key) {
+
+		var changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW
+					|| this.path.getFileName().equals(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+}
@@ -0,0 +1,189 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread-safe cache of query results keyed by a pair of employee IDs,
+ * evicting the least recently used results once full.
+ *
+ * The cache is split into segments, each an access-ordered LinkedHashMap under
+ * its own lock, so that threads looking up different pairs rarely wait for one
+ * another; each segment evicts its own least recently used entry when it grows
+ * past its share of the capacity. Results are computed outside the lock, so a
+ * slow query never holds up others, at the cost that two threads missing on the
+ * same pair at once may both compute it. Values must therefore be immutable.
+ *
+ * Hits and misses are counted with LongAdders, which do not contend between
+ * threads.
+ *
+ * Guava's CacheBuilder, with maximumSize() and recordStats(), would do the same
+ * job, and Guava is declared as a dependency, but nothing else in the app uses
+ * it and the jar run with java -jar does not bundle it, so using it here would
+ * break that jar. This cache also keys pairs by a single packed long.
+ *
+ * @param <V> The type of cached results.
+ */
+public final class PairCache<V> {
+
+	/** Number of segments per available processor. */
+	private static final int SEGMENTS_PER_PROCESSOR = 4;
+
+	/** The segments, of which there is a power of two. */
+	private final Segment<V>[] segments;
+
+	/** Mask selecting a segment from a hash. */
+	private final int segmentMask;
+
+	/** Number of lookups answered from the cache. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of lookups which had to compute their result. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * A segment of the cache.
+	 *
+	 * @param <V> The type of cached results.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Segment<V> extends LinkedHashMap<Long, V> {
+
+		/** Most entries the segment may hold. */
+		private final int capacity;
+
+		/**
+		 * Create an empty segment.
+		 *
+		 * @param capacity Most entries the segment may hold.
+		 */
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+			return this.size() > this.capacity;
+		}
+	}
+
+	/**
+	 * Create an empty cache.
+	 * Internal use only. PairCache must be substantiated using of().
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private PairCache(int capacity, int segmentCount) {
+
+		this.segments = new Segment[segmentCount];
+		final var segmentCapacity = Math.max(1, (capacity + segmentCount - 1) / segmentCount);
+		for (var segment = 0; segment < segmentCount; segment++) {
+			this.segments[segment] = new Segment<>(segmentCapacity);
+		}
+		this.segmentMask = segmentCount - 1;
+	}
+
+	/**
+	 * Create an empty cache.
+	 *
+	 * @param <V>      The type of cached results.
+	 * @param capacity The number of results to keep, approximately; each segment
+	 *                 keeps an equal share of them.
+	 * @return The cache.
+	 * @throws IllegalArgumentException if the capacity is not positive.
+	 */
+	public static <V> PairCache<V> of(int capacity) throws IllegalArgumentException {
+
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(String.format("Cache capacity must be positive, not %d", capacity));
+		}
+
+		// enough segments to spread threads, but not so many that each holds little
+		final var wanted = Math.min(capacity, Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_PROCESSOR);
+		final var segmentCount = Integer.highestOneBit(Math.max(1, wanted));
+		return new PairCache<>(capacity, segmentCount);
+	}
+
+	/**
+	 * Look up the result for a pair, computing and caching it if absent.
+	 *
+	 * @param first   The ID of the first employee.
+	 * @param second  The ID of the second employee.
+	 * @param compute Computes the result if it is not cached, which must not be
+	 *                null; it may throw, in which case nothing is cached.
+	 * @return The result.
+	 */
+	public V get(int first, int second, Supplier<V> compute) {
+
+		final var key = ((long) first << Integer.SIZE) | (second & 0xffffffffL);
+		final var segment = this.segments[spread(key) & this.segmentMask];
+
+		V value;
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+		if (value != null) {
+			this.hits.increment();
+			return value;
+		}
+
+		this.misses.increment();
+		value = Objects.requireNonNull(compute.get());
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Return the number of results cached.
+	 *
+	 * @return The number of entries across all segments.
+	 */
+	public int size() {
+
+		var size = 0;
+		for (var segment : this.segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of lookups answered from the cache so far.
+	 *
+	 * @return The hit count.
+	 */
+	public long hitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Return the number of lookups which had to compute their result so far.
+	 *
+	 * @return The miss count.
+	 */
+	public long missCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Mix the bits of a key, so that keys differing only in their high bits are
+	 * spread across segments.
+	 *
+	 * @param key A key.
+	 * @return A well-mixed hash of the key.
+	 */
+	private static int spread(long key) {
+
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
@@ -1,7 +1,10 @@
 package com.github.jimbovm.bt.orgchart;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
@@ -12,6 +15,12 @@ import java.util.logging.Logger;
  * 
  * This problem is equivalent to finding the "lowest common ancestor" in a tree,
  * and a simple LCA algorithm is used to find the desired output.
+ * 
+ * Queries are answered by find(), which keeps no state between calls and
+ * returns an immutable ShortestPath, so a single pathfinder may answer any
+ * number of pairs from any number of threads. A pathfinder may also be given a
+ * bounded PairCache of results, so that pairs which are asked about repeatedly
+ * are answered without searching the hierarchy again.
  */
 public final class PathFinder {
 
@@ -19,16 +28,27 @@ public final class PathFinder {
 	private Logger logger = Logger.getGlobal();
 
 	/** The organisational hierarchy. */
-	private Hierarchy hierarchy = Hierarchy.of(new ArrayList<>());
+	private final Hierarchy hierarchy;
+
+	/** The common manager index to search, if not searching the tree form. */
+	private final Optional<CommonManagerIndex> index;
+
+	/** The cache of paths found, keyed by the IDs of their two employees. */
+	private final Optional<PairCache<ShortestPath>> cache;
+
+	/** The path found by the last call to findShortestPath(), for toString(). */
+	private volatile ShortestPath lastPath;
 
 	/**
-	 * The cached shortest path between the two employees with which the instance
-	 * was constructed.
+	 * Create a new pathfinder.
+	 * Internal use only. Use one of the public constructors.
 	 */
-	private List<Employee> shortestPath = new ArrayList<>();
-
-	/** The cached highest common manager. */
-	private Optional<Employee> highestCommonManager;
+	private PathFinder(Hierarchy hierarchy, Optional<CommonManagerIndex> index,
+			Optional<PairCache<ShortestPath>> cache) {
+		this.hierarchy = hierarchy;
+		this.index = index;
+		this.cache = cache;
+	}
 
 	/**
 	 * Create a new pathfinder for a supplied hierarchy.
@@ -37,40 +57,116 @@ public final class PathFinder {
 	 *                  within.
 	 */
 	public PathFinder(Hierarchy hierarchy) {
-		this.hierarchy = hierarchy;
+		this(hierarchy, Optional.empty(), Optional.empty());
 	}
 
 	/**
-	 * Use the Lowest Common Ancestor algorithm to find the paths from the big boss
-	 * to each employee, then determine the point in the hierarchy where these paths
-	 * diverge, i.e. their lowest-ranked common manager.
+	 * Create a new pathfinder for a supplied common manager index.
+	 * 
+	 * The index is used to find the lowest-ranked common manager, and the path is
+	 * then built by following reporting lines upwards from each employee to them,
+	 * rather than by searching down from the chief. A CompactHierarchy can be
+	 * passed directly to climb reporting lines with no precomputation, or indexed
+	 * with a JumpPointerIndex once and shared between pathfinders for logarithmic
+	 * time queries.
+	 * 
+	 * @param index The index over the hierarchy to search for a path between two
+	 *              employees within.
+	 */
+	public PathFinder(CommonManagerIndex index) {
+		this(null, Optional.of(index), Optional.empty());
+	}
+
+	/**
+	 * Create a new pathfinder for a supplied common manager index, caching the
+	 * paths it finds.
+	 * 
+	 * @param index The index over the hierarchy to search for a path between two
+	 *              employees within.
+	 * @param cache The cache of paths, which must only ever be used with this
+	 *              index.
+	 */
+	public PathFinder(CommonManagerIndex index, PairCache<ShortestPath> cache) {
+		this(null, Optional.of(index), Optional.of(cache));
+	}
+
+	/**
+	 * Return the cache of paths found, if the pathfinder has one, for example to
+	 * read its hit and miss counts.
+	 * 
+	 * @return The cache, or an empty Optional.
+	 */
+	public Optional<PairCache<ShortestPath>> cache() {
+		return this.cache;
+	}
+
+	/**
+	 * Find the shortest path between two employees, from the cache if possible.
+	 * 
+	 * This method is thread-safe and does not change the state of the
+	 * pathfinder. The latency of each query is recorded in Metrics.
+	 * 
+	 * @param employee1 The first employee.
+	 * @param employee2 The second employee.
+	 * @return The path, from the first employee up to their highest common
+	 *         manager and down to the second.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	public ShortestPath find(Employee employee1, Employee employee2) throws IllegalArgumentException {
+
+		final var start = System.nanoTime();
+		final var path = this.cache.isPresent()
+				? this.cache.get().get(employee1.id(), employee2.id(), () -> search(employee1, employee2))
+				: search(employee1, employee2);
+		Metrics.pathQueries().record(System.nanoTime() - start);
+		return path;
+	}
+
+	/**
+	 * Find the shortest path between two employees and record it for toString().
 	 * 
 	 * @param employee1 The first employee to find a path to the lowest-ranked
 	 *                  manager starting from.
 	 * @param employee2 The second employee to find a path to the lowest-ranked
 	 *                  manager starting from.
+	 * @deprecated The recorded path is shared by every caller of the instance;
+	 *             use find(), which returns the path instead.
 	 */
+	@Deprecated
 	public void findShortestPath(Employee employee1, Employee employee2) {
+		this.lastPath = find(employee1, employee2);
+	}
 
-		// use cached values if present, or compute anew if not
-		if ((this.shortestPath != null) && (this.highestCommonManager != null)) {
-			return;
-		}
+	/**
+	 * Search the hierarchy for the shortest path between two employees, without
+	 * consulting the cache.
+	 * 
+	 * @param employee1 The first employee.
+	 * @param employee2 The second employee.
+	 * @return The path.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	private ShortestPath search(Employee employee1, Employee employee2) throws IllegalArgumentException {
 
-		logger.info("No cached values, computing highest common manager from scratch");
+		logger.fine(() -> String.format("Searching for path between %s and %s", employee1, employee2));
+
+		if (this.index.isPresent()) {
+			return search(this.index.get(), employee1, employee2);
+		}
 
+		// use the Lowest Common Ancestor algorithm to find the paths from the big
+		// boss to each employee, then determine the point in the hierarchy where
+		// these paths diverge, i.e. their lowest-ranked common manager
 		List<Employee> pathToEmployee1 = findPathTo(this.hierarchy, employee1);
-		logger.info(String.format(
-				"Path from big boss to employee 1: %s", pathToEmployee1.toString()));
+		logger.fine(() -> String.format("Path from big boss to employee 1: %s", pathToEmployee1));
 
 		List<Employee> pathToEmployee2 = findPathTo(this.hierarchy, employee2);
-		logger.info(String.format(
-				"Path from big boss to employee 2: %s", pathToEmployee2.toString()));
+		logger.fine(() -> String.format("Path from big boss to employee 2: %s", pathToEmployee2));
 
 		// find the divergent point
 		var distance = 0;
 		while ((distance < pathToEmployee1.size()) && (distance < pathToEmployee2.size()) &&
-				pathToEmployee1.get(distance) == pathToEmployee2.get(distance)) {
+				pathToEmployee1.get(distance).equals(pathToEmployee2.get(distance))) {
 			distance++;
 		}
 
@@ -78,19 +174,64 @@ public final class PathFinder {
 		shortestPath.addAll(pathToEmployee1.subList(distance - 1, pathToEmployee1.size()));
 
 		// element 0 is currently the highest common manager
-		this.highestCommonManager = Optional.of(shortestPath.get(0));
+		final var highestCommonManager = shortestPath.get(0);
 
 		// reverse in-place; we want the path from employee 1 up to the root
 		Collections.reverse(shortestPath);
 
 		shortestPath.addAll(pathToEmployee2.subList(distance, pathToEmployee2.size()));
 
-		this.shortestPath = shortestPath;
+		return new ShortestPath(shortestPath, highestCommonManager);
+	}
+
+	/**
+	 * Find the shortest path between two employees using a common manager index,
+	 * by climbing from each employee to their lowest-ranked common manager.
+	 * 
+	 * @param index     The index over the hierarchy to search.
+	 * @param employee1 The first employee.
+	 * @param employee2 The second employee.
+	 * @return The path.
+	 * @throws IllegalArgumentException if either employee is not in the hierarchy.
+	 */
+	static ShortestPath search(CommonManagerIndex index, Employee employee1, Employee employee2)
+			throws IllegalArgumentException {
+
+		final var compactHierarchy = index.hierarchy();
+		final var first = compactHierarchy.indexOf(employee1.id());
+		final var second = compactHierarchy.indexOf(employee2.id());
+		if (first < 0 || second < 0) {
+			throw new IllegalArgumentException(String.format("No path between %s and %s; employee not in hierarchy",
+					employee1, employee2));
+		}
+
+		final var commonManager = index.lowestCommonManager(first, second);
+
+		// climb from employee 1 up to the common manager, inclusive
+		var shortestPath = new ArrayList<Employee>();
+		for (var current = first; current != commonManager; current = compactHierarchy.manager(current)) {
+			shortestPath.add(compactHierarchy.employee(current));
+		}
+		final var highestCommonManager = compactHierarchy.employee(commonManager);
+		shortestPath.add(highestCommonManager);
+
+		// then descend to employee 2, which is the climb from employee 2 reversed
+		final var descentStart = shortestPath.size();
+		for (var current = second; current != commonManager; current = compactHierarchy.manager(current)) {
+			shortestPath.add(compactHierarchy.employee(current));
+		}
+		Collections.reverse(shortestPath.subList(descentStart, shortestPath.size()));
+
+		return new ShortestPath(shortestPath, highestCommonManager);
 	}
 
 	/**
-	 * Given a hierarchy, recursively find the path between the manager at the head
-	 * (root) and a given employee.
+	 * Given a hierarchy, find the path between the manager at the head (root) and
+	 * a given employee.
+	 * 
+	 * The search is a depth-first pre-order traversal driven by an explicit stack
+	 * of report iterators, one per level of the current path, so it is not limited
+	 * by the depth of the thread stack.
 	 * 
 	 * @param hierarchy The hierarchy to search, which may be a sub-hierarchy of a
 	 *                  larger one.
@@ -101,74 +242,60 @@ public final class PathFinder {
 	 */
 	private List<Employee> findPathTo(Hierarchy hierarchy, Employee employee) {
 
-		logger.fine(String.format("Finding path from %s to %s", hierarchy.getEmployee().get().toString(),
+		logger.fine(() -> String.format("Finding path from %s to %s", hierarchy.getEmployee().get().toString(),
 				employee.toString()));
 
+		List<Employee> path = new ArrayList<>();
+		path.add(hierarchy.getEmployee().get());
+
 		// base case; if we have found the target, return a singleton list
-		if (hierarchy.getEmployee().orElseGet(null).equals(employee)) {
-			return new ArrayList<Employee>(List.of(hierarchy.getEmployee().get()));
+		if (hierarchy.getEmployee().get().equals(employee)) {
+			return path;
 		}
 
-		// otherwise use the general case
-		for (var report : hierarchy.getReports()) {
+		// otherwise walk the tree, keeping the path to the current node
+		Deque<Iterator<Hierarchy>> pending = new ArrayDeque<>();
+		pending.push(hierarchy.getReports().iterator());
+
+		while (!pending.isEmpty()) {
 
-			var path = findPathTo(report, employee);
+			final var reports = pending.peek();
 
-			if (path.isEmpty() == false) {
+			if (!reports.hasNext()) {
+				// this level is exhausted; backtrack to the manager above it
+				pending.pop();
+				path.remove(path.size() - 1);
+				continue;
+			}
+
+			final var report = reports.next();
+			path.add(report.getEmployee().get());
 
-				path.add(0, hierarchy.getEmployee().get());
-				logger.info(String.format("Returning path list %s", path.toString()));
+			if (report.getEmployee().get().equals(employee)) {
+				logger.info(() -> String.format("Returning path list %s", path.toString()));
 				return path;
 			}
+
+			pending.push(report.getReports().iterator());
 		}
 
 		logger.fine("Returning empty path list");
-		return new ArrayList<>();
+		return path;
 	}
 
 	/**
-	 * Return a string representation of the path between two employers found,
-	 * representing a path through the organisation hierarchy (a traversal of a
-	 * tree).
+	 * Return a string representation of the path found by the last call to
+	 * findShortestPath(), representing a path through the organisation hierarchy
+	 * (a traversal of a tree).
 	 * 
 	 * @return String representations of employees joined by arrows to indicate the
-	 *         direction of traversal.
+	 *         direction of traversal, or an empty string if no path has been
+	 *         found.
 	 */
+	@Override
 	public String toString() {
 
-		if (this.shortestPath.size() == 1) {
-			return this.shortestPath.get(0).toString();
-		}
-
-		final var LEFT_ARROW = "<-";
-		final var RIGHT_ARROW = "->";
-
-		var builder = new StringBuilder();
-
-		// append the left-hand strings first, all except the last with arrows after
-		// them
-		List<Employee> leftEmployees = new ArrayList<>();
-		leftEmployees.addAll(this.shortestPath.stream()
-				.takeWhile(employee -> employee != this.highestCommonManager.get()).toList());
-
-		leftEmployees.forEach(
-				employee -> builder.append(String.format("%s %s ", employee.toString(), RIGHT_ARROW)));
-
-		// now add the boss
-		builder.append(this.highestCommonManager.get().toString());
-
-		// finally, append the right-hand strings, all but the first with arrows before
-		// them
-		List<Employee> rightStrings = new ArrayList<>();
-		rightStrings.addAll(this.shortestPath.stream()
-				.filter(employee -> (!leftEmployees.contains(employee))
-						&& (employee != this.highestCommonManager.get()))
-				.toList());
-
-		rightStrings.forEach(
-				employee -> builder.append(String.format(" %s %s", LEFT_ARROW, employee.toString())));
-
-		// done!
-		return builder.toString();
+		final var path = this.lastPath;
+		return path == null ? "" : path.toString();
 	}
 }
@@ -0,0 +1,311 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Finds paths between two sets of employees at once, such as everyone matching
+ * two names which are shared by several employees.
+ *
+ * Both queries start from the employees' indices in pre-order and a common
+ * manager index, and never search the hierarchy.
+ *
+ * findAll() answers every pair. The reporting line of each distinct employee is
+ * climbed once, up to the common manager of them all, and every pair's path is
+ * assembled from the two climbs, cut at the pair's common manager, which the
+ * index gives in constant time with an EulerTourIndex. The cost is the length
+ * of the climbs plus the length of the paths returned, rather than a search
+ * per pair. Paths are passed to a consumer as they are assembled, so however
+ * many pairs there are, only the climbs are held in memory at once.
+ *
+ * findShortest() answers only the closest pair, without looking at every pair.
+ * It builds the virtual tree of the employees: the employees sorted in
+ * pre-order, together with the common managers of each neighbouring two, which
+ * include the common manager of every pair. The tree has fewer than twice as
+ * many nodes as there are distinct employees. A single pass up the virtual tree
+ * carries the nearest employee of each set below every node, and the closest
+ * pair meets at the node where the two distances add up to the least. For k
+ * employees this takes O(k log k) with an EulerTourIndex, however large the
+ * hierarchy or the number of pairs.
+ *
+ * The latency of each query is recorded in Metrics as a set query, apart from
+ * single path queries; for findAll() with a consumer, it includes the time the
+ * consumer takes.
+ *
+ * Instances hold no query state and may be shared between threads.
+ */
+public final class SetPathFinder {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Distance standing for no employee of a set below a node. */
+	private static final int NONE = Integer.MAX_VALUE;
+
+	/** The index to find common managers with. */
+	private final CommonManagerIndex index;
+
+	/**
+	 * Create a new set pathfinder over a common manager index.
+	 *
+	 * @param index The index, which should answer in constant time, such as an
+	 *              EulerTourIndex.
+	 */
+	public SetPathFinder(CommonManagerIndex index) {
+		this.index = Objects.requireNonNull(index);
+	}
+
+	/**
+	 * Find the shortest path between every pair of an employee from the first set
+	 * and one from the second, and return them all.
+	 *
+	 * The list holds a path for every pair, so for large sets, pass a consumer
+	 * to findAll() instead.
+	 *
+	 * @param employees1 The first set of employees.
+	 * @param employees2 The second set of employees.
+	 * @return The paths, in the order of a loop over the second set nested in a
+	 *         loop over the first; empty if either set is.
+	 * @throws IllegalArgumentException if an employee is not in the hierarchy.
+	 */
+	public List<ShortestPath> findAll(List<Employee> employees1, List<Employee> employees2)
+			throws IllegalArgumentException {
+
+		List<ShortestPath> paths = new ArrayList<>();
+		findAll(employees1, employees2, paths::add);
+		return paths;
+	}
+
+	/**
+	 * Find the shortest path between every pair of an employee from the first set
+	 * and one from the second, passing each to a consumer as it is found.
+	 *
+	 * @param employees1 The first set of employees.
+	 * @param employees2 The second set of employees.
+	 * @param sink       The consumer of the paths, which receives them in the
+	 *                   order of a loop over the second set nested in a loop
+	 *                   over the first.
+	 * @return The number of paths found; 0 if either set is empty.
+	 * @throws IllegalArgumentException if an employee is not in the hierarchy,
+	 *                                  in which case no paths are found.
+	 */
+	public long findAll(List<Employee> employees1, List<Employee> employees2, Consumer<? super ShortestPath> sink)
+			throws IllegalArgumentException {
+
+		Objects.requireNonNull(sink);
+		final var start = System.nanoTime();
+		final var hierarchy = this.index.hierarchy();
+		final var firsts = indicesOf(employees1);
+		final var seconds = indicesOf(employees2);
+		if (firsts.length == 0 || seconds.length == 0) {
+			return 0;
+		}
+
+		// every pair's common manager is at or below the common manager of all
+		var top = firsts[0];
+		for (var index : firsts) {
+			top = this.index.lowestCommonManager(top, index);
+		}
+		for (var index : seconds) {
+			top = this.index.lowestCommonManager(top, index);
+		}
+
+		// climb each distinct employee's reporting line once
+		Map<Integer, Employee[]> climbs = new HashMap<>();
+		final var topDepth = hierarchy.depth(top);
+		for (var indices : List.of(firsts, seconds)) {
+			for (var index : indices) {
+				if (!climbs.containsKey(index)) {
+					final var climb = new Employee[hierarchy.depth(index) - topDepth + 1];
+					var current = index;
+					for (var step = 0; step < climb.length; step++) {
+						climb[step] = hierarchy.employee(current);
+						current = hierarchy.manager(current);
+					}
+					climbs.put(index, climb);
+				}
+			}
+		}
+
+		var count = 0L;
+		for (var first : firsts) {
+			final var climb1 = climbs.get(first);
+			for (var second : seconds) {
+				final var climb2 = climbs.get(second);
+				final var commonManager = this.index.lowestCommonManager(first, second);
+				final var up = hierarchy.depth(first) - hierarchy.depth(commonManager);
+				final var down = hierarchy.depth(second) - hierarchy.depth(commonManager);
+
+				// up from the first employee to the common manager, then down the
+				// second employee's climb in reverse
+				final var path = new Employee[up + down + 1];
+				System.arraycopy(climb1, 0, path, 0, up + 1);
+				for (var step = 0; step < down; step++) {
+					path[up + down - step] = climb2[step];
+				}
+				// List.of() copies the array once, and ShortestPath keeps that list
+				// rather than copying it again
+				sink.accept(new ShortestPath(List.of(path), climb1[up]));
+				count++;
+			}
+		}
+
+		Metrics.setQueries().record(System.nanoTime() - start);
+		final var found = count;
+		logger.info(() -> String.format("Found %d paths between %d and %d employees", found,
+				firsts.length, seconds.length));
+		return found;
+	}
+
+	/**
+	 * Find the shortest of the paths between an employee from the first set and
+	 * one from the second.
+	 *
+	 * If several pairs are equally close, ties are broken in favour of the pair
+	 * whose common manager comes first in pre-order, and then of the employees of
+	 * each set who come first in pre-order below them; among colleagues,
+	 * pre-order follows the input order.
+	 *
+	 * @param employees1 The first set of employees.
+	 * @param employees2 The second set of employees.
+	 * @return The shortest path, or nothing if either set is empty.
+	 * @throws IllegalArgumentException if an employee is not in the hierarchy.
+	 */
+	public Optional<ShortestPath> findShortest(List<Employee> employees1, List<Employee> employees2)
+			throws IllegalArgumentException {
+
+		final var start = System.nanoTime();
+		final var hierarchy = this.index.hierarchy();
+		final var firsts = distinctSorted(indicesOf(employees1));
+		final var seconds = distinctSorted(indicesOf(employees2));
+		if (firsts.length == 0 || seconds.length == 0) {
+			return Optional.empty();
+		}
+
+		// the virtual tree's nodes: the employees and their neighbours' common
+		// managers, in pre-order
+		final var employees = distinctSorted(concat(firsts, seconds));
+		final var nodes = new int[2 * employees.length - 1];
+		System.arraycopy(employees, 0, nodes, 0, employees.length);
+		for (var i = 1; i < employees.length; i++) {
+			nodes[employees.length + i - 1] = this.index.lowestCommonManager(employees[i - 1], employees[i]);
+		}
+		final var tree = distinctSorted(nodes);
+		final var size = tree.length;
+
+		// each node's parent is the nearest earlier node which manages it, found
+		// with a stack of the current node's managers
+		final var parents = new int[size];
+		final var stack = new int[size];
+		var stackSize = 0;
+		for (var node = 0; node < size; node++) {
+			while (stackSize > 0) {
+				final var manager = tree[stack[stackSize - 1]];
+				if (this.index.lowestCommonManager(manager, tree[node]) == manager) {
+					break;
+				}
+				stackSize--;
+			}
+			parents[node] = (stackSize > 0) ? stack[stackSize - 1] : -1;
+			stack[stackSize++] = node;
+		}
+
+		// the nearest employee of each set at or below each node
+		final var distances1 = new int[size];
+		final var distances2 = new int[size];
+		final var nearest1 = new int[size];
+		final var nearest2 = new int[size];
+		for (var node = 0; node < size; node++) {
+			final var inFirsts = Arrays.binarySearch(firsts, tree[node]) >= 0;
+			final var inSeconds = Arrays.binarySearch(seconds, tree[node]) >= 0;
+			distances1[node] = inFirsts ? 0 : NONE;
+			distances2[node] = inSeconds ? 0 : NONE;
+			nearest1[node] = inFirsts ? tree[node] : -1;
+			nearest2[node] = inSeconds ? tree[node] : -1;
+		}
+
+		// children follow their parents in pre-order, so a reverse pass finishes
+		// every node's subtree before the node itself; ties go to the node or
+		// child visited last, which is the first in pre-order
+		var bestDistance = NONE;
+		var best1 = -1;
+		var best2 = -1;
+		for (var node = size - 1; node >= 0; node--) {
+			if (distances1[node] != NONE && distances2[node] != NONE
+					&& distances1[node] + distances2[node] <= bestDistance) {
+				bestDistance = distances1[node] + distances2[node];
+				best1 = nearest1[node];
+				best2 = nearest2[node];
+			}
+
+			final var parent = parents[node];
+			if (parent >= 0) {
+				final var edge = hierarchy.depth(tree[node]) - hierarchy.depth(tree[parent]);
+				if (distances1[node] != NONE && distances1[node] + edge <= distances1[parent]) {
+					distances1[parent] = distances1[node] + edge;
+					nearest1[parent] = nearest1[node];
+				}
+				if (distances2[node] != NONE && distances2[node] + edge <= distances2[parent]) {
+					distances2[parent] = distances2[node] + edge;
+					nearest2[parent] = nearest2[node];
+				}
+			}
+		}
+
+		final var path = PathFinder.search(this.index, hierarchy.employee(best1), hierarchy.employee(best2));
+		Metrics.setQueries().record(System.nanoTime() - start);
+		logger.info(() -> String.format("Found shortest of %d paths over a virtual tree of %d employees",
+				(long) employees1.size() * employees2.size(), size));
+		return Optional.of(path);
+	}
+
+	/**
+	 * Look up the indices of a list of employees.
+	 *
+	 * @param employees A list of employees.
+	 * @return Their indices in the hierarchy, in list order.
+	 * @throws IllegalArgumentException if an employee is not in the hierarchy.
+	 */
+	private int[] indicesOf(List<Employee> employees) throws IllegalArgumentException {
+
+		final var indices = new int[employees.size()];
+		for (var i = 0; i < indices.length; i++) {
+			indices[i] = this.index.hierarchy().indexOf(employees.get(i).id());
+			if (indices[i] < 0) {
+				throw new IllegalArgumentException(String.format("Employee %s not in hierarchy", employees.get(i)));
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Sort indices and remove duplicates.
+	 *
+	 * @param indices Employee indices, which are not changed.
+	 * @return The distinct indices in ascending order, i.e. in pre-order.
+	 */
+	private static int[] distinctSorted(int[] indices) {
+		return Arrays.stream(indices).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Concatenate two arrays of indices.
+	 *
+	 * @param first  The first array.
+	 * @param second The second array.
+	 * @return A new array holding the first array followed by the second.
+	 */
+	private static int[] concat(int[] first, int[] second) {
+
+		final var result = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+}
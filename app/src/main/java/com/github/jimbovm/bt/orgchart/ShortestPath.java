@@ -0,0 +1,101 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The shortest path between two employees through the organisation hierarchy,
+ * as found by a PathFinder.
+ *
+ * The path runs up the reporting lines from the first employee to their
+ * highest common manager with the second, and then down to the second
+ * employee. Instances are immutable and may be shared between threads and
+ * cached.
+ *
+ * @param employees            The employees on the path, from the first
+ *                             employee to the second.
+ * @param highestCommonManager The lowest-ranked employee who manages both,
+ *                             which is one of them if one manages the other.
+ */
+public record ShortestPath(
+		List<Employee> employees,
+		Employee highestCommonManager) {
+
+	/**
+	 * Create a path, copying the list of employees unless it is already an
+	 * unmodifiable list from List.of() or List.copyOf().
+	 *
+	 * @param employees            The employees on the path, from the first
+	 *                             employee to the second.
+	 * @param highestCommonManager The lowest-ranked employee who manages both,
+	 *                             which must be on the path.
+	 * @throws IllegalArgumentException if the common manager is not on the path.
+	 */
+	public ShortestPath {
+		employees = List.copyOf(employees);
+		Objects.requireNonNull(highestCommonManager);
+		if (!employees.contains(highestCommonManager)) {
+			throw new IllegalArgumentException(String.format("Common manager %s not on path %s",
+					highestCommonManager, employees));
+		}
+	}
+
+	/**
+	 * Return the number of reporting lines on the path.
+	 *
+	 * @return The number of steps between the two employees; 0 if they are the
+	 *         same.
+	 */
+	public int length() {
+		return this.employees.size() - 1;
+	}
+
+	/**
+	 * Render the path as printed by the command line app, without creating any
+	 * intermediate strings.
+	 *
+	 * @param <A>         The type of the destination.
+	 * @param destination The destination, such as a StringBuilder or Writer.
+	 * @return The destination.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	public <A extends Appendable> A render(A destination) throws IOException {
+
+		final var LEFT_ARROW = " <- ";
+		final var RIGHT_ARROW = " -> ";
+
+		var arrow = RIGHT_ARROW;
+		var first = true;
+		for (var employee : this.employees) {
+			if (!first) {
+				destination.append(arrow);
+			}
+			first = false;
+			employee.appendTo(destination);
+			if (employee.equals(this.highestCommonManager)) {
+				arrow = LEFT_ARROW;
+			}
+		}
+		return destination;
+	}
+
+	/**
+	 * Return a string representation of the path, as printed by the command line
+	 * app.
+	 *
+	 * @return String representations of employees joined by arrows to indicate the
+	 *         direction of traversal, pointing towards the common manager.
+	 */
+	@Override
+	public String toString() {
+
+		try {
+			return this.render(new StringBuilder()).toString();
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,376 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshot of a loaded org chart, for fast startup.
+ *
+ * A snapshot holds the compact hierarchy, the Euler tour index and the name
+ * dictionary of an OrgChart exactly as they are laid out in memory, so loading
+ * one is a matter of memory mapping the file and bulk copying its int arrays,
+ * with no parsing and no validation of the hierarchy. Employee names, which
+ * make up most of the file, are not copied at all: they stay in the mapped file
+ * and Employee records are created from them only as queries need them. The
+ * name dictionary is stored sorted, so names are looked up by binary search
+ * over the mapped file rather than through a hash map that would have to be
+ * rebuilt.
+ *
+ * The file starts with a magic number and a format version, followed by a
+ * sequence of sections, each an array of ints or bytes preceded by its length.
+ * All values are little-endian. Only employees reachable from the chief are
+ * stored, as only they can take part in queries.
+ */
+public final class Snapshot {
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Magic number at the start of every snapshot; "BTOC" in ASCII. */
+	static final int MAGIC = 0x434f5442;
+
+	/** Version of the snapshot format written by this class. */
+	static final int VERSION = 1;
+
+	/** Size of the buffer used for writing. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Largest region mapped at once when reading an int array. */
+	private static final int MAX_MAPPING = 1 << 30;
+
+	/**
+	 * Internal use only. Snapshot has only static methods.
+	 */
+	private Snapshot() {
+
+	}
+
+	/**
+	 * Write a snapshot of an org chart to a file, replacing any existing file.
+	 *
+	 * The snapshot is written to a temporary file in the same directory, which is
+	 * then renamed over the existing file in one step. A chart loaded from the
+	 * existing file keeps the names it maps, as those stay in the replaced file
+	 * until it is unmapped, and a watcher never sees a partly written snapshot.
+	 *
+	 * @param orgChart The org chart.
+	 * @param path     The path of the snapshot file.
+	 * @throws IOException if there is a problem writing the file.
+	 */
+	public static void write(OrgChart orgChart, Path path) throws IOException {
+
+		Objects.requireNonNull(orgChart);
+		final var directory = path.toAbsolutePath().getParent();
+		final var temporary = Files.createTempFile(directory, path.getFileName().toString() + ".", ".tmp");
+		try {
+			try (var output = new Output(FileChannel.open(temporary, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				orgChart.writeTo(output);
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		logger.info(() -> String.format("Wrote snapshot of %d employees to %s", orgChart.hierarchy().size(), path));
+	}
+
+	/**
+	 * Check whether a file is a snapshot, from its magic number.
+	 *
+	 * @param path The path of a file.
+	 * @return True if the file starts with the snapshot magic number.
+	 * @throws IOException if there is a problem reading the file.
+	 */
+	public static boolean isSnapshot(Path path) throws IOException {
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final var buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// keep reading until the magic number is complete or the file ends
+			}
+			return !buffer.hasRemaining() && buffer.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Load an org chart from a snapshot file.
+	 *
+	 * @param path The path of the snapshot file.
+	 * @return The org chart.
+	 * @throws IOException if there is a problem reading the file or it is not a
+	 *                     snapshot of a supported version.
+	 */
+	public static OrgChart load(Path path) throws IOException {
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+			var input = new Input(channel);
+			if (channel.size() < 2 * Integer.BYTES || input.readInt() != MAGIC) {
+				throw new IOException(String.format("%s is not an org chart snapshot", path));
+			}
+			final var version = input.readInt();
+			if (version != VERSION) {
+				throw new IOException(String.format("Unsupported snapshot version %d in %s", version, path));
+			}
+
+			final var orgChart = OrgChart.readFrom(input);
+			logger.info(() -> String.format("Loaded snapshot of %d employees from %s", orgChart.hierarchy().size(),
+					path));
+			return orgChart;
+		}
+	}
+
+	/**
+	 * Count the bytes of a string in UTF-8 without encoding it, as
+	 * String.getBytes() would encode it.
+	 *
+	 * @param string A string.
+	 * @return The length of the string in UTF-8.
+	 */
+	static int utf8Length(String string) {
+
+		var length = 0;
+		for (var i = 0; i < string.length(); i++) {
+			final var c = string.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+					&& Character.isLowSurrogate(string.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length++; // replaced with '?'
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Writer of the sections of a snapshot.
+	 */
+	static final class Output implements AutoCloseable {
+
+		/** The file being written. */
+		private final FileChannel channel;
+
+		/** Buffer of values not yet written to the file. */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		/**
+		 * Create a writer.
+		 *
+		 * @param channel The file to write.
+		 */
+		Output(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Make room in the buffer.
+		 *
+		 * @param bytes The number of bytes needed, at most the buffer size.
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		private void reserve(int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		/**
+		 * Write the contents of the buffer to the file.
+		 *
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		/**
+		 * Write a single int.
+		 *
+		 * @param value The value.
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		void writeInt(int value) throws IOException {
+			reserve(Integer.BYTES);
+			this.buffer.putInt(value);
+		}
+
+		/**
+		 * Write an int array section.
+		 *
+		 * @param values The values.
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		void writeInts(int[] values) throws IOException {
+
+			writeInt(values.length);
+			for (var offset = 0; offset < values.length;) {
+				reserve(Integer.BYTES);
+				final var count = Math.min(values.length - offset, this.buffer.remaining() / Integer.BYTES);
+				this.buffer.asIntBuffer().put(values, offset, count);
+				this.buffer.position(this.buffer.position() + count * Integer.BYTES);
+				offset += count;
+			}
+		}
+
+		/**
+		 * Start a byte array section of a known length.
+		 *
+		 * @param length The number of bytes which will follow.
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		void startBytes(int length) throws IOException {
+			writeInt(length);
+		}
+
+		/**
+		 * Write a string as UTF-8 as part of a byte array section, encoding it
+		 * straight into the buffer. The bytes written are those of getBytes() and
+		 * their number is that given by utf8Length().
+		 *
+		 * @param string The string.
+		 * @throws IOException if there is a problem writing the file.
+		 */
+		void writeUtf8(String string) throws IOException {
+
+			for (var i = 0; i < string.length(); i++) {
+				reserve(4);
+				final var c = string.charAt(i);
+				if (c < 0x80) {
+					this.buffer.put((byte) c);
+				} else if (c < 0x800) {
+					this.buffer.put((byte) (0xc0 | (c >> 6)));
+					this.buffer.put((byte) (0x80 | (c & 0x3f)));
+				} else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+						&& Character.isLowSurrogate(string.charAt(i + 1))) {
+					final var codePoint = Character.toCodePoint(c, string.charAt(++i));
+					this.buffer.put((byte) (0xf0 | (codePoint >> 18)));
+					this.buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+					this.buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+					this.buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+				} else if (Character.isSurrogate(c)) {
+					this.buffer.put((byte) '?');
+				} else {
+					this.buffer.put((byte) (0xe0 | (c >> 12)));
+					this.buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+					this.buffer.put((byte) (0x80 | (c & 0x3f)));
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try (this.channel) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Reader of the sections of a snapshot.
+	 */
+	static final class Input {
+
+		/** The file being read. */
+		private final FileChannel channel;
+
+		/** Position of the next section in the file. */
+		private long position;
+
+		/**
+		 * Create a reader at the start of a file.
+		 *
+		 * @param channel The file to read.
+		 */
+		Input(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Map the next part of the file.
+		 *
+		 * @param length The number of bytes to map.
+		 * @return The mapped bytes, in little-endian order.
+		 * @throws IOException if there is a problem reading the file or it ends
+		 *                     too soon.
+		 */
+		private ByteBuffer map(long length) throws IOException {
+
+			if (length < 0 || this.position + length > this.channel.size()) {
+				throw new IOException("Truncated or corrupt snapshot");
+			}
+			final var mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, length);
+			this.position += length;
+			return mapped.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * Read a single int.
+		 *
+		 * @return The value.
+		 * @throws IOException if there is a problem reading the file.
+		 */
+		int readInt() throws IOException {
+
+			final var buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining()) {
+				if (this.channel.read(buffer, this.position + buffer.position()) < 0) {
+					throw new IOException("Truncated or corrupt snapshot");
+				}
+			}
+			this.position += Integer.BYTES;
+			return buffer.getInt(0);
+		}
+
+		/**
+		 * Read an int array section into a new array.
+		 *
+		 * @return The values.
+		 * @throws IOException if there is a problem reading the file.
+		 */
+		int[] readInts() throws IOException {
+
+			final var length = readInt();
+			if (length < 0 || this.position + (long) length * Integer.BYTES > this.channel.size()) {
+				throw new IOException("Truncated or corrupt snapshot");
+			}
+			final var values = new int[length];
+			for (var offset = 0; offset < values.length;) {
+				final var count = Math.min(values.length - offset, MAX_MAPPING / Integer.BYTES);
+				map((long) count * Integer.BYTES).asIntBuffer().get(values, offset, count);
+				offset += count;
+			}
+			return values;
+		}
+
+		/**
+		 * Map a byte array section, without copying it.
+		 *
+		 * @return The mapped bytes, which remain valid after the file is closed.
+		 * @throws IOException if there is a problem reading the file.
+		 */
+		ByteBuffer mapBytes() throws IOException {
+			return map(readInt());
+		}
+	}
+}
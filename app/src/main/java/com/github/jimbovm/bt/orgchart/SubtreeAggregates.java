@@ -0,0 +1,197 @@
+package com.github.jimbovm.bt.orgchart;
+
+import java.util.Objects;
+
+/**
+ * Constant-time answers to questions about the team under each employee: how
+ * many people report to them directly and indirectly, and how many levels
+ * deep their part of the organisation goes.
+ *
+ * The aggregates are computed for every employee at once in a single pass over
+ * a CompactHierarchy, visiting its indices in reverse. As the indices are in
+ * depth-first pre-order, every employee comes after their manager, so a reverse
+ * pass visits each employee only after all of their reports, as a post-order
+ * walk would, without recursion or a stack; each employee adds their own
+ * headcount and height into their manager's.
+ *
+ * The headcounts also give constant-time checks of reporting lines. As the
+ * indices are a pre-order numbering, the team under an employee is the
+ * contiguous run of indices from their own up to their index plus headcount,
+ * exclusive: their entry and exit times on a depth-first walk. Whether one
+ * employee reports to another, however indirectly, is then two comparisons.
+ *
+ * Memory use is 8 bytes per employee, on top of the CompactHierarchy itself,
+ * which already holds each employee's level and number of direct reports.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class SubtreeAggregates {
+
+	/** The hierarchy the aggregates describe. */
+	private final CompactHierarchy hierarchy;
+
+	/** Number of employees in the subtree headed by each employee, themselves included. */
+	private final int[] headcounts;
+
+	/** Number of levels in the subtree below each employee. */
+	private final int[] heights;
+
+	/**
+	 * Create the aggregates from their component arrays.
+	 * Internal use only. SubtreeAggregates must be substantiated using of().
+	 */
+	private SubtreeAggregates(CompactHierarchy hierarchy, int[] headcounts, int[] heights) {
+		this.hierarchy = hierarchy;
+		this.headcounts = headcounts;
+		this.heights = heights;
+	}
+
+	/**
+	 * Compute the aggregates of every employee in a hierarchy.
+	 *
+	 * @param hierarchy The hierarchy.
+	 * @return The aggregates.
+	 */
+	public static SubtreeAggregates of(CompactHierarchy hierarchy) {
+
+		Objects.requireNonNull(hierarchy);
+		final var size = hierarchy.size();
+		final var headcounts = new int[size];
+		final var heights = new int[size];
+
+		for (var index = size - 1; index >= 0; index--) {
+			headcounts[index]++;
+			final var manager = hierarchy.manager(index);
+			if (manager != CompactHierarchy.NO_MANAGER) {
+				headcounts[manager] += headcounts[index];
+				heights[manager] = Math.max(heights[manager], heights[index] + 1);
+			}
+		}
+
+		return new SubtreeAggregates(hierarchy, headcounts, heights);
+	}
+
+	/**
+	 * Return the hierarchy the aggregates describe.
+	 *
+	 * @return The hierarchy.
+	 */
+	public CompactHierarchy hierarchy() {
+		return this.hierarchy;
+	}
+
+	/**
+	 * Return the number of employees in the part of the organisation headed by an
+	 * employee.
+	 *
+	 * @param index An employee index.
+	 * @return The number of direct and indirect reports of the employee, plus one
+	 *         for the employee themselves.
+	 */
+	public int headcount(int index) {
+		return this.headcounts[index];
+	}
+
+	/**
+	 * Return the number of employees reporting to an employee, directly or
+	 * indirectly.
+	 *
+	 * @param index An employee index.
+	 * @return The number of employees below the employee.
+	 */
+	public int reportCount(int index) {
+		return this.headcounts[index] - 1;
+	}
+
+	/**
+	 * Return the number of employees reporting directly to an employee, that is,
+	 * their span of control.
+	 *
+	 * @param index An employee index.
+	 * @return The number of direct reports.
+	 */
+	public int directReportCount(int index) {
+		return this.hierarchy.reportCount(index);
+	}
+
+	/**
+	 * Return the number of employees reporting to an employee through at least one
+	 * other manager.
+	 *
+	 * @param index An employee index.
+	 * @return The number of indirect reports.
+	 */
+	public int indirectReportCount(int index) {
+		return this.reportCount(index) - this.directReportCount(index);
+	}
+
+	/**
+	 * Return the number of levels of the organisation below an employee.
+	 *
+	 * @param index An employee index.
+	 * @return The greatest number of reporting lines between the employee and any
+	 *         of their reports; 0 if they have none.
+	 */
+	public int height(int index) {
+		return this.heights[index];
+	}
+
+	/**
+	 * Return the level of an employee in the organisation.
+	 *
+	 * @param index An employee index.
+	 * @return The number of reporting lines between the employee and the chief,
+	 *         who is at level 0.
+	 */
+	public int level(int index) {
+		return this.hierarchy.depth(index);
+	}
+
+	/**
+	 * Return the last index in the team under an employee. The team is every index
+	 * from the employee's own up to this one, inclusive.
+	 *
+	 * @param index An employee index.
+	 * @return The index of the last employee in the team, in pre-order, which is
+	 *         the employee's own index if they have no reports.
+	 */
+	public int lastInSubtree(int index) {
+		return index + this.headcounts[index] - 1;
+	}
+
+	/**
+	 * Check whether an employee is in the team headed by another, that is, they
+	 * are the head or report to them directly or indirectly.
+	 *
+	 * @param head  The index of the head of the team.
+	 * @param index The index of the employee.
+	 * @return True if the employee is in the team.
+	 */
+	public boolean isInSubtree(int head, int index) {
+		// one unsigned comparison checks both ends of the interval
+		return Integer.compareUnsigned(index - head, this.headcounts[head]) < 0;
+	}
+
+	/**
+	 * Check whether one employee manages another, directly or indirectly.
+	 *
+	 * @param manager The index of the possible manager.
+	 * @param index   The index of the employee.
+	 * @return True if the employee reports to the manager through any number of
+	 *         reporting lines; false if they are the same employee.
+	 */
+	public boolean isAncestorOf(int manager, int index) {
+		return manager != index && this.isInSubtree(manager, index);
+	}
+
+	/**
+	 * Check whether one employee manages another directly.
+	 *
+	 * @param manager The index of the possible manager.
+	 * @param index   The index of the employee.
+	 * @return True if the employee is a direct report of the manager.
+	 */
+	public boolean isDirectReport(int manager, int index) {
+		return this.hierarchy.manager(index) == manager;
+	}
+}
@@ -0,0 +1,467 @@
+package com.github.jimbovm.bt.orgchart.generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+
+/**
+ * Generator of synthetic org charts of any size, for load and soak testing.
+ *
+ * Employees are produced one at a time and never kept, so the memory used is
+ * the same for ten rows as for a hundred million, and files can be streamed
+ * straight to disk. Given the same settings and seed, the same org chart is
+ * generated every time.
+ *
+ * The chief has ID 0 and the other employees IDs 1 upwards, each listed after
+ * their manager. Names are drawn from a fixed list of given names and surnames
+ * with a numeric suffix once those run out, so they are unique apart from the
+ * duplicates asked for. A duplicate repeats the name of a random earlier
+ * employee, as that employee appears in the output.
+ */
+public final class Generator {
+
+	/** Most rows which may be generated. */
+	public static final int MAX_ROWS = 100_000_000;
+
+	/** The header line of an org chart file. */
+	static final String HEADER = "| Employee ID | Name | Manager ID |";
+
+	/** Given names, combined with every surname before numbering begins. */
+	private static final String[] GIVEN_NAMES = { "Ada", "Alan", "Barbara", "Bjarne", "Charles", "Donald",
+			"Edsger", "Frances", "Grace", "Guido", "Hedy", "James", "Jean", "John", "Ken", "Leslie", "Linus",
+			"Margaret", "Mary Ann", "Niklaus", "Radia", "Robin", "Shafi", "Sophie", "Tim", "Tony", "Ward",
+			"Whitfield", "Yukihiro", "Anders", "Dennis", "Katherine" };
+
+	/** Surnames. */
+	private static final String[] SURNAMES = { "Allen", "Backus", "Berners-Lee", "Cerf", "Codd", "Diffie",
+			"Dijkstra", "Engelbart", "Floyd", "Goldwasser", "Hamilton", "Hejlsberg", "Hoare", "Hopper", "Kay",
+			"Knuth", "Lamport", "Liskov", "Lovelace", "McCarthy", "Milner", "O'Neil", "Perlman", "Ritchie",
+			"Stroustrup", "Tarjan", "Thompson", "Torvalds", "Turing", "van Rossum", "Wirth", "Wilson" };
+
+	/** Number of distinct names before a numeric suffix is needed. */
+	private static final int NAME_COMBINATIONS = GIVEN_NAMES.length * SURNAMES.length;
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/**
+	 * Shapes of organisation.
+	 */
+	public enum Shape {
+
+		/** Each employee reports to the one before, so the depth is rows - 1. */
+		CHAIN,
+
+		/** Everyone reports to the chief, so the depth is 1. */
+		STAR,
+
+		/**
+		 * Employees are added level by level, each manager taking a number of reports
+		 * drawn from the fan-out distribution, up to the maximum depth.
+		 */
+		TREE,
+
+		/**
+		 * Each employee reports to a uniformly random earlier one, giving a depth
+		 * growing with the logarithm of the rows and a long tail of fan-outs.
+		 */
+		RANDOM
+	}
+
+	/**
+	 * Distributions of the number of direct reports of each manager in a tree.
+	 */
+	public enum FanOut {
+
+		/** Every manager has exactly the mean, giving a balanced tree. */
+		FIXED,
+
+		/** Uniform from 0 to twice the mean. */
+		UNIFORM,
+
+		/** Geometric with the given mean, so most have few reports and some many. */
+		GEOMETRIC
+	}
+
+	/** Number of rows to generate. */
+	private final int rows;
+
+	/** Shape of the organisation. */
+	private final Shape shape;
+
+	/** Mean number of direct reports in a tree. */
+	private final int fanOut;
+
+	/** Distribution of direct reports in a tree. */
+	private final FanOut fanOutDistribution;
+
+	/** Greatest depth below the chief in a tree. */
+	private final int maxDepth;
+
+	/** Proportion of employees who share an earlier employee's name. */
+	private final double duplicateNameRate;
+
+	/** Seed of the random choices. */
+	private final long seed;
+
+	/**
+	 * Create a generator.
+	 * Internal use only. Generator must be substantiated using builder().
+	 */
+	private Generator(Builder builder) {
+		this.rows = builder.rows;
+		this.shape = builder.shape;
+		this.fanOut = builder.fanOut;
+		this.fanOutDistribution = builder.fanOutDistribution;
+		this.maxDepth = builder.maxDepth;
+		this.duplicateNameRate = builder.duplicateNameRate;
+		this.seed = builder.seed;
+	}
+
+	/**
+	 * Create a builder of a generator, set by default to a tree of 1000 rows with
+	 * a fixed fan-out of 8, no depth limit, no duplicate names and seed 0.
+	 *
+	 * @return A new builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder of a Generator.
+	 */
+	public static final class Builder {
+
+		/** Number of rows to generate. */
+		private int rows = 1000;
+
+		/** Shape of the organisation. */
+		private Shape shape = Shape.TREE;
+
+		/** Mean number of direct reports in a tree. */
+		private int fanOut = 8;
+
+		/** Distribution of direct reports in a tree. */
+		private FanOut fanOutDistribution = FanOut.FIXED;
+
+		/** Greatest depth below the chief in a tree. */
+		private int maxDepth = Integer.MAX_VALUE;
+
+		/** Proportion of employees who share an earlier employee's name. */
+		private double duplicateNameRate = 0;
+
+		/** Seed of the random choices. */
+		private long seed = 0;
+
+		/**
+		 * Create a builder with the default settings.
+		 * Internal use only. Builder must be substantiated using Generator.builder().
+		 */
+		private Builder() {
+
+		}
+
+		/**
+		 * Set the number of rows to generate.
+		 *
+		 * @param rows From 1 to MAX_ROWS.
+		 * @return This builder.
+		 * @throws IllegalArgumentException if the number is out of range.
+		 */
+		public Builder rows(int rows) throws IllegalArgumentException {
+			if (rows < 1 || rows > MAX_ROWS) {
+				throw new IllegalArgumentException(String.format("Rows must be from 1 to %d, not %d", MAX_ROWS, rows));
+			}
+			this.rows = rows;
+			return this;
+		}
+
+		/**
+		 * Set the shape of the organisation.
+		 *
+		 * @param shape The shape.
+		 * @return This builder.
+		 */
+		public Builder shape(Shape shape) {
+			this.shape = Objects.requireNonNull(shape);
+			return this;
+		}
+
+		/**
+		 * Set the mean number of direct reports of each manager in a tree.
+		 *
+		 * @param fanOut At least 1.
+		 * @return This builder.
+		 * @throws IllegalArgumentException if the fan-out is less than 1.
+		 */
+		public Builder fanOut(int fanOut) throws IllegalArgumentException {
+			if (fanOut < 1) {
+				throw new IllegalArgumentException(String.format("Fan-out must be at least 1, not %d", fanOut));
+			}
+			this.fanOut = fanOut;
+			return this;
+		}
+
+		/**
+		 * Set the distribution of the number of direct reports in a tree.
+		 *
+		 * @param fanOutDistribution The distribution.
+		 * @return This builder.
+		 */
+		public Builder fanOutDistribution(FanOut fanOutDistribution) {
+			this.fanOutDistribution = Objects.requireNonNull(fanOutDistribution);
+			return this;
+		}
+
+		/**
+		 * Set the greatest depth of an employee below the chief in a tree. Managers
+		 * on the level above the limit share out all of the remaining rows, so a
+		 * low limit makes for wide, flat organisations.
+		 *
+		 * @param maxDepth At least 1.
+		 * @return This builder.
+		 * @throws IllegalArgumentException if the depth is less than 1.
+		 */
+		public Builder maxDepth(int maxDepth) throws IllegalArgumentException {
+			if (maxDepth < 1) {
+				throw new IllegalArgumentException(String.format("Maximum depth must be at least 1, not %d",
+						maxDepth));
+			}
+			this.maxDepth = maxDepth;
+			return this;
+		}
+
+		/**
+		 * Set the proportion of employees other than the chief who share the name of
+		 * an earlier employee.
+		 *
+		 * @param duplicateNameRate At least 0 and less than 1.
+		 * @return This builder.
+		 * @throws IllegalArgumentException if the rate is out of range.
+		 */
+		public Builder duplicateNameRate(double duplicateNameRate) throws IllegalArgumentException {
+			if (!(duplicateNameRate >= 0 && duplicateNameRate < 1)) {
+				throw new IllegalArgumentException(String.format(
+						"Duplicate name rate must be at least 0 and less than 1, not %s", duplicateNameRate));
+			}
+			this.duplicateNameRate = duplicateNameRate;
+			return this;
+		}
+
+		/**
+		 * Set the seed of the random choices.
+		 *
+		 * @param seed Any value.
+		 * @return This builder.
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Build the generator.
+		 *
+		 * @return A generator with the settings given.
+		 */
+		public Generator build() {
+			return new Generator(this);
+		}
+	}
+
+	/**
+	 * Generate the employees, passing each to a sink as it is made, such as a
+	 * Hierarchy builder.
+	 *
+	 * @param sink Consumer of the employees, which receives every manager before
+	 *             their reports.
+	 * @return The number of employees generated.
+	 */
+	public int generate(Consumer<? super Employee> sink) {
+
+		final var random = new SplittableRandom(this.seed);
+		sink.accept(new Employee(0, this.name(0), 0));
+
+		// a tree is built level by level, so its state is the manager taking
+		// reports, how many more they take, and where their level ends
+		var manager = 0;
+		var managerDepth = 0;
+		var levelEnd = 0;
+		var reportsLeft = (this.shape == Shape.TREE) ? this.reportsOf(random, 0, 0, 0, 1) : 0;
+
+		for (var id = 1; id < this.rows; id++) {
+			final var managerId = switch (this.shape) {
+				case CHAIN -> id - 1;
+				case STAR -> 0;
+				case RANDOM -> random.nextInt(id);
+				case TREE -> {
+					while (reportsLeft == 0) {
+						manager++;
+						if (manager > levelEnd) {
+							managerDepth++;
+							levelEnd = id - 1;
+						}
+						reportsLeft = this.reportsOf(random, manager, managerDepth, levelEnd, id);
+					}
+					reportsLeft--;
+					yield manager;
+				}
+			};
+			sink.accept(new Employee(id, this.name(id), managerId));
+		}
+
+		logger.info(() -> String.format("Generated %d employees", this.rows));
+		return this.rows;
+	}
+
+	/**
+	 * Write the org chart in the format read by Parser.
+	 *
+	 * @param writer The destination, which is flushed but left open.
+	 * @return The number of employees written.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	public int write(Writer writer) throws IOException {
+
+		final var line = new StringBuilder();
+		writer.write(HEADER);
+		writer.write('\n');
+		try {
+			final var count = this.generate(employee -> {
+				line.setLength(0);
+				line.append("| ").append(employee.id()).append(" | ").append(employee.name()).append(" | ");
+				if (!employee.isChief()) {
+					line.append(employee.manager()).append(' ');
+				}
+				line.append("|\n");
+				try {
+					writer.append(line);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			writer.flush();
+			return count;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Write the org chart to a file in the format read by Parser.
+	 *
+	 * @param path The file, which is replaced if it exists.
+	 * @return The number of employees written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public int write(Path path) throws IOException {
+
+		try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			return this.write(writer);
+		}
+	}
+
+	/**
+	 * Choose the number of direct reports of a manager in a tree.
+	 *
+	 * @param random       The source of random choices.
+	 * @param manager      The ID of the manager.
+	 * @param managerDepth The depth of the manager.
+	 * @param levelEnd     The ID of the last employee on the manager's level.
+	 * @param nextId       The ID of the next employee to be generated.
+	 * @return The number of reports, which is enough to keep the tree growing if
+	 *         no other manager is waiting for reports.
+	 */
+	private int reportsOf(SplittableRandom random, int manager, int managerDepth, int levelEnd, int nextId) {
+
+		final var rowsLeft = this.rows - nextId;
+		if (managerDepth >= this.maxDepth - 1) {
+			// the last level allowed to manage shares out whatever is left
+			final var managersLeft = levelEnd - manager + 1;
+			return (rowsLeft + managersLeft - 1) / managersLeft;
+		}
+
+		final var reports = switch (this.fanOutDistribution) {
+			case FIXED -> this.fanOut;
+			case UNIFORM -> random.nextInt(2 * this.fanOut + 1);
+			case GEOMETRIC -> {
+				final var p = 1.0 / (this.fanOut + 1);
+				yield (int) Math.min(rowsLeft, Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p)));
+			}
+		};
+		final var lastWaiting = (manager == nextId - 1);
+		return (lastWaiting && reports == 0) ? 1 : reports;
+	}
+
+	/**
+	 * Return the name of an employee, which is a duplicate of an earlier name at
+	 * the duplicate name rate.
+	 *
+	 * Whether an employee is a duplicate depends only on their ID and the seed, so
+	 * the original can be found without remembering earlier employees.
+	 *
+	 * @param id The ID of the employee.
+	 * @return The name.
+	 */
+	String name(int id) {
+
+		if (!this.isDuplicate(id)) {
+			return uniqueName(id);
+		}
+		// copy a random earlier employee whose name is their own; the chief's
+		// always is, so the search stops
+		var original = (int) ((this.mix(id ^ 0x5bd1e995L) >>> 1) % id);
+		while (this.isDuplicate(original)) {
+			original--;
+		}
+		return uniqueName(original);
+	}
+
+	/**
+	 * Check whether an employee is given a duplicate name.
+	 *
+	 * @param id The ID of the employee.
+	 * @return True for the chief never, and for others at the duplicate name rate.
+	 */
+	private boolean isDuplicate(int id) {
+		return id > 0 && (this.mix(id) >>> 11) * 0x1.0p-53 < this.duplicateNameRate;
+	}
+
+	/**
+	 * Mix an ID with the seed into a well-distributed hash.
+	 *
+	 * @param value The value to mix.
+	 * @return The hash.
+	 */
+	private long mix(long value) {
+
+		var hash = (value + this.seed) * 0x9e3779b97f4a7c15L;
+		hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+		hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+		return hash ^ (hash >>> 31);
+	}
+
+	/**
+	 * Return the name which no other employee has unless given as a duplicate.
+	 *
+	 * @param id The ID of the employee.
+	 * @return A given name and surname, numbered if all combinations are used.
+	 */
+	static String uniqueName(int id) {
+
+		final var name = GIVEN_NAMES[id % GIVEN_NAMES.length] + " " + SURNAMES[(id / GIVEN_NAMES.length)
+				% SURNAMES.length];
+		final var round = id / NAME_COMBINATIONS;
+		return (round == 0) ? name : name + " " + (round + 1);
+	}
+}
@@ -0,0 +1,320 @@
+package com.github.jimbovm.bt.orgchart.parser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+
+/**
+ * Parses an org chart file in parallel by memory mapping it in chunks.
+ *
+ * The file is divided into chunks which each end just after a line feed, so
+ * that no line or multi-byte character is split between chunks. Each chunk is
+ * mapped and parsed as a separate task, and the records of every chunk are then
+ * concatenated in file order. Chunks are mapped one at a time rather than
+ * mapping the whole file, as a single mapping is limited to 2 GB.
+ *
+ * Lines are found and trimmed by scanning the mapped bytes in place, which is
+ * safe because line terminators and the whitespace trimmed are single bytes in
+ * UTF-8 that never occur inside a multi-byte character. Only the content of
+ * each line is decoded, into a scratch array reused across the chunk, so no
+ * chunk is copied to the heap.
+ */
+final class MappedFileParser {
+
+	/** Smallest chunk size, below which tasks cost more than they save. */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/** Largest chunk size, which bounds the memory used by each task. */
+	private static final long MAX_CHUNK_SIZE = 8 << 20;
+
+	/** Number of chunks per worker thread, to even out uneven chunks. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** Size of the buffer used to search for line feeds. */
+	private static final int SEARCH_BUFFER_SIZE = 8192;
+
+	/** Initial size of the array each line is decoded into. */
+	private static final int LINE_BUFFER_SIZE = 256;
+
+	/** The file to parse. */
+	private final Path path;
+
+	/** The pool to parse on. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Create a parser for a file.
+	 *
+	 * @param path The file to parse.
+	 * @param pool The pool to parse on.
+	 */
+	MappedFileParser(Path path, ForkJoinPool pool) {
+		this.path = path;
+		this.pool = pool;
+	}
+
+	/**
+	 * Parse the file.
+	 *
+	 * @return An unmodifiable list of the records in the file, in file order.
+	 * @throws IOException if there is a problem reading the file or its header is
+	 *                     invalid.
+	 */
+	List<Employee> parse() throws IOException {
+
+		try (var channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+
+			final var size = channel.size();
+			final var headerEnd = nextLineStart(channel, 0);
+			if (headerEnd == 0 || !Parser.isValidHeader(firstLine(channel, headerEnd))) {
+				throw new IOException("Malformed input file: no header or header format incorrect");
+			}
+
+			final var chunkSize = Math.min(MAX_CHUNK_SIZE,
+					Math.max(MIN_CHUNK_SIZE, size / ((long) this.pool.getParallelism() * CHUNKS_PER_THREAD)));
+
+			List<ForkJoinTask<List<Employee>>> tasks = new ArrayList<>();
+			for (var start = 0L; start < size;) {
+				final var end = nextLineStart(channel, Math.min(size, start + chunkSize));
+				final var chunkStart = start;
+				tasks.add(this.pool.submit(() -> parseChunk(channel, chunkStart, end, chunkStart == 0)));
+				start = end;
+			}
+
+			return Collections.unmodifiableList(join(tasks));
+		}
+	}
+
+	/**
+	 * Wait for the chunk tasks and concatenate their results.
+	 *
+	 * @param tasks The tasks, in file order.
+	 * @return The records of every chunk, in file order.
+	 * @throws IOException if a chunk could not be read.
+	 */
+	private static List<Employee> join(List<ForkJoinTask<List<Employee>>> tasks) throws IOException {
+
+		List<List<Employee>> chunks = new ArrayList<>(tasks.size());
+		try {
+			for (var task : tasks) {
+				chunks.add(task.get());
+			}
+		} catch (InterruptedException e) {
+			tasks.forEach(task -> task.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while parsing");
+		} catch (ExecutionException e) {
+			tasks.forEach(task -> task.cancel(true));
+			final var cause = e.getCause();
+			if (cause instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IOException(cause);
+		}
+
+		var size = 0;
+		for (var chunk : chunks) {
+			size += chunk.size();
+		}
+		List<Employee> records = new ArrayList<>(size);
+		chunks.forEach(records::addAll);
+		return records;
+	}
+
+	/**
+	 * Find the start of the line after a position.
+	 *
+	 * @param channel  The file.
+	 * @param position A position in the file.
+	 * @return The position just after the first line feed at or after position,
+	 *         or the end of the file if there is none.
+	 * @throws IOException if there is a problem reading the file.
+	 */
+	private static long nextLineStart(FileChannel channel, long position) throws IOException {
+
+		final var buffer = ByteBuffer.allocate(SEARCH_BUFFER_SIZE);
+		while (true) {
+			buffer.clear();
+			final var read = channel.read(buffer, position);
+			if (read <= 0) {
+				return channel.size();
+			}
+			for (var i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Read the first line of the file.
+	 *
+	 * @param channel The file.
+	 * @param end     The position just after the first line feed.
+	 * @return The first line, without its line terminator.
+	 * @throws IOException if there is a problem reading or decoding the file.
+	 */
+	private static String firstLine(FileChannel channel, long end) throws IOException {
+
+		final CharBuffer characters;
+		try {
+			characters = StandardCharsets.UTF_8.newDecoder().decode(map(channel, 0, end));
+		} catch (CharacterCodingException e) {
+			throw new IOException("Malformed input file: invalid UTF-8 in header", e);
+		}
+		var length = 0;
+		while (length < characters.length() && characters.get(length) != '\n' && characters.get(length) != '\r') {
+			length++;
+		}
+		return characters.subSequence(0, length).toString();
+	}
+
+	/**
+	 * Map part of the file.
+	 *
+	 * @param channel The file.
+	 * @param start   The first position to map, inclusive.
+	 * @param end     The last position to map, exclusive.
+	 * @return The mapped bytes.
+	 * @throws IOException if there is a problem reading the file or the part is
+	 *                     too long.
+	 */
+	private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+
+		if (end - start > Integer.MAX_VALUE) {
+			throw new IOException(String.format("Malformed input file: line at byte %d too long", start));
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+	}
+
+	/**
+	 * Decode one line of a mapped chunk into an array, copying ASCII bytes
+	 * directly and handing the rest of the line to the decoder once a
+	 * multi-byte character is met.
+	 *
+	 * @param bytes      The mapped chunk.
+	 * @param from       The position of the first byte of the line in the chunk.
+	 * @param to         The position just after its last byte.
+	 * @param characters The array to decode into, at least to - from long, as
+	 *                   UTF-8 never decodes to more characters than bytes.
+	 * @param decoder    A UTF-8 decoder which reports malformed input.
+	 * @param offset     The position of the chunk in the file, for reporting.
+	 * @return The number of characters decoded.
+	 * @throws IOException if the line is not valid UTF-8.
+	 */
+	private static int decodeLine(MappedByteBuffer bytes, int from, int to, char[] characters,
+			CharsetDecoder decoder, long offset) throws IOException {
+
+		for (var i = from; i < to; i++) {
+			final var b = bytes.get(i);
+			if (b < 0) {
+				final var output = CharBuffer.wrap(characters, i - from, characters.length - (i - from));
+				decoder.reset();
+				final var result = decoder.decode(bytes.slice(i, to - i), output, true);
+				try {
+					if (result.isError()) {
+						result.throwException();
+					}
+				} catch (CharacterCodingException e) {
+					throw new IOException(String.format("Malformed input file: invalid UTF-8 between bytes %d and %d",
+							offset + from, offset + to), e);
+				}
+				decoder.flush(output);
+				return output.position();
+			}
+			characters[i - from] = (char) b;
+		}
+		return to - from;
+	}
+
+	/**
+	 * Parse the records in a chunk of the file.
+	 *
+	 * Lines are split at every carriage return or line feed, and blank lines are
+	 * skipped, as when parsing a stream of lines.
+	 *
+	 * @param channel    The file.
+	 * @param start      The first position of the chunk, at the start of a line.
+	 * @param end        The end of the chunk, at the start of a line or the end
+	 *                   of the file.
+	 * @param skipHeader Whether to skip the first line, which is the header.
+	 * @return The records in the chunk, in file order.
+	 * @throws UncheckedIOException if there is a problem reading the file.
+	 */
+	private static List<Employee> parseChunk(FileChannel channel, long start, long end, boolean skipHeader)
+			throws UncheckedIOException {
+
+		try {
+			final var bytes = map(channel, start, end);
+			final var limit = bytes.limit();
+			final var decoder = StandardCharsets.UTF_8.newDecoder();
+			var characters = new char[LINE_BUFFER_SIZE];
+			List<Employee> records = new ArrayList<>();
+
+			var lineStart = 0;
+			if (skipHeader) {
+				while (lineStart < limit && bytes.get(lineStart) != '\n' && bytes.get(lineStart) != '\r') {
+					lineStart++;
+				}
+			}
+			while (lineStart < limit) {
+				var lineEnd = lineStart;
+				while (lineEnd < limit && bytes.get(lineEnd) != '\n' && bytes.get(lineEnd) != '\r') {
+					lineEnd++;
+				}
+
+				// trim as String.trim() would, without creating the untrimmed line;
+				// bytes of multi-byte characters are negative, so are never trimmed
+				var from = lineStart;
+				var to = lineEnd;
+				while (from < to && bytes.get(from) >= 0 && bytes.get(from) <= ' ') {
+					from++;
+				}
+				while (to > from && bytes.get(to - 1) >= 0 && bytes.get(to - 1) <= ' ') {
+					to--;
+				}
+				if (from < to) {
+					if (characters.length < to - from) {
+						characters = new char[to - from];
+					}
+					final var length = decodeLine(bytes, from, to, characters, decoder, start);
+					final var line = new String(characters, 0, length);
+					if (!line.isBlank()) {
+						records.add(Parser.parseLine(line));
+					}
+				}
+
+				lineStart = lineEnd + 1;
+			}
+
+			return records;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -4,27 +4,41 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.Metrics;
 
 /**
  * Parser for org chart text files.
+ *
+ * Each record is a line of four pipes around three fields: an employee ID, a
+ * name and an optional manager ID, any of which may be padded with whitespace.
+ * IDs are integers with an optional leading minus sign, and names consist of
+ * letters, digits, marks, connector punctuation, apostrophes, hyphens and
+ * whitespace. Records are checked with a hand-written single-pass scanner, as
+ * the equivalent regular expression dominated load times on large files.
  */
 public final class Parser {
 
 	/** Regular expression for a valid file header. */
 	private static final Pattern HEADER_PATTERN;
 
-	/** Regular expression for a valid line. */
-	private static final Pattern ENTRY_PATTERN;
+	/** Field separator. */
+	private static final char SEPARATOR = '|';
 
 	/** Logger implementation. */
 	private static Logger logger;
@@ -33,139 +47,364 @@ public final class Parser {
 		HEADER_PATTERN = Pattern.compile(
 				"^\\s*\\|\\s*Employee ID\\s*\\|\\s*Name\\s*\\|\\s*Manager ID\\s*\\|\\s*$",
 				Pattern.UNICODE_CHARACTER_CLASS | Pattern.UNICODE_CASE);
-		ENTRY_PATTERN = Pattern.compile(
-				"^\\s*\\|\\s*(?<id>\\-?\\d+)\\s*\\|\\s*(?<name>[\\'\\-\\w\\s]+)\\s*\\|\\s*(?<manager>(\\-?\\d+)?)\\s*\\|\\s*$",
-				Pattern.UNICODE_CHARACTER_CLASS | Pattern.UNICODE_CASE);
 		logger = Logger.getGlobal();
 	}
 
 	/**
-	 * Return a stream from an InputStream for lazy line-by-line reading.
+	 * Parse a single employee record.
+	 * 
+	 * If the manager field is blank, it will be set to the employee's own ID (i.e.
+	 * they are the head of the company and thus their "own manager").
 	 * 
-	 * @param inputStream The InputStream from which to read.
-	 * @return A Stream<String> to a reader over the passed InputStream.
-	 * @throws IOException if there is a problem accessing the InputStream.
+	 * @param line The line to parse.
+	 * @return An instance of EmployeeRecord representing the parsed record.
+	 * @throws IllegalArgumentException if the line cannot be parsed according to
+	 *                                  the format.
 	 */
-	private static Stream<String> getStream(InputStream inputStream) throws IOException {
+	public static Employee parseLine(String line) throws IllegalArgumentException {
 
-		Objects.requireNonNull(inputStream);
-		var reader = new BufferedReader(new InputStreamReader(inputStream));
-		return reader.lines();
+		var scanner = new LineScanner(line);
+
+		scanner.skipWhitespace();
+		scanner.expect(SEPARATOR);
+		scanner.skipWhitespace();
+		final int id = scanner.integer();
+		scanner.skipWhitespace();
+		scanner.expect(SEPARATOR);
+
+		final var fieldStart = scanner.position;
+		scanner.skipWhitespace();
+		var nameStart = scanner.position;
+		scanner.skipName();
+		if (scanner.position == nameStart) {
+			if (nameStart == fieldStart) {
+				throw scanner.malformed();
+			}
+			// a name of only whitespace is its last whitespace character, which
+			// is blank unless it is a non-breaking space
+			nameStart = line.offsetByCodePoints(nameStart, -1);
+		}
+		final String name = line.substring(nameStart, scanner.position).strip();
+		scanner.expect(SEPARATOR);
+
+		scanner.skipWhitespace();
+		final int manager = scanner.atInteger() ? scanner.integer() : id;
+		scanner.skipWhitespace();
+		scanner.expect(SEPARATOR);
+		scanner.skipWhitespace();
+		if (!scanner.atEnd()) {
+			throw scanner.malformed();
+		}
+
+		if (name.isEmpty() || name.isBlank()) {
+			throw new IllegalArgumentException("Malformed line: name cannot be blank");
+		}
+
+		// checked first, as this runs for every line and even an unused message
+		// supplier costs an allocation
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine(String.format("From line \"%s\" read id: %d, name: %s, manager: %d", line, id, name,
+					manager));
+		}
+		return new Employee(id, name, manager);
 	}
 
 	/**
-	 * Return a stream from an InputStream for lazy line-by-line reading.
-	 * 
-	 * @param filePath The path to a file from which to read.
-	 * @return A Stream<String> to a reader over the file passed.
-	 * @throws IOException if there is a problem accessing the file.
+	 * Check whether a character is whitespace, as matched by \s in a regular
+	 * expression with Unicode character classes.
+	 *
+	 * @param c A Unicode code point.
+	 * @return True if the character is whitespace.
 	 */
-	private static Stream<String> getFileAsStream(String filePath) throws IOException {
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || (c >= '\t' && c <= '\r') || c == '\u0085' || (c > '\u0085' && Character.isSpaceChar(c));
+	}
 
-		Objects.requireNonNull(filePath);
-		final var path = Path.of(filePath);
-		logger.info(String.format("Opening org chart file %s", filePath));
-		return Files.lines(path, StandardCharsets.UTF_8);
+	/**
+	 * Check whether a character may appear in a name: a word character, as
+	 * matched by \w in a regular expression with Unicode character classes, an
+	 * apostrophe, a hyphen or whitespace.
+	 *
+	 * @param c A Unicode code point.
+	 * @return True if the character may appear in a name.
+	 */
+	private static boolean isNameCharacter(int c) {
+
+		if (c < 0x80) {
+			return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+					|| c == '_' || c == '\'' || c == '-' || isWhitespace(c);
+		}
+
+		if (Character.isAlphabetic(c) || isWhitespace(c) || c == '\u200c' || c == '\u200d') {
+			return true;
+		}
+		return switch (Character.getType(c)) {
+			case Character.NON_SPACING_MARK, Character.ENCLOSING_MARK, Character.COMBINING_SPACING_MARK,
+					Character.DECIMAL_DIGIT_NUMBER, Character.CONNECTOR_PUNCTUATION -> true;
+			default -> false;
+		};
 	}
 
 	/**
-	 * Parse a single employee record.
-	 * 
-	 * If the manager field is blank, it will be set to the employee's own ID (i.e.
-	 * they are the head of the company and thus their "own manager").
-	 * 
-	 * @param line The line to parse.
-	 * @return An instance of EmployeeRecord representing the parsed record.
-	 * @throws IllegalArgumentException if the line cannot be parsed according to
-	 *                                  the format.
+	 * Position within a single line being parsed.
 	 */
-	public static Employee parseLine(String line) throws IllegalArgumentException {
+	private static final class LineScanner {
+
+		/** The line being parsed. */
+		private final String line;
 
-		var matcher = ENTRY_PATTERN.matcher(line);
-		final var validMatch = matcher.find();
+		/** The index of the next character to be read. */
+		private int position;
 
-		if (validMatch == false) {
-			throw new IllegalArgumentException(String.format("Malformed line: %s", line));
+		/**
+		 * Create a scanner at the start of a line.
+		 *
+		 * @param line The line to parse.
+		 */
+		LineScanner(String line) {
+			this.line = Objects.requireNonNull(line);
 		}
 
-		final int id;
-		try {
-			id = Integer.parseInt(matcher.group("id"));
-		} catch (NumberFormatException e) {
-			throw new IllegalArgumentException("Malformed line", e);
+		/**
+		 * Check whether the whole line has been read.
+		 *
+		 * @return True if there are no characters left.
+		 */
+		boolean atEnd() {
+			return this.position >= this.line.length();
 		}
 
-		final String name = matcher.group("name").strip();
-		if (name.isEmpty() || name.isBlank()) {
-			throw new IllegalArgumentException("Malformed line: name cannot be blank");
+		/**
+		 * Skip over any whitespace.
+		 */
+		void skipWhitespace() {
+			while (!atEnd()) {
+				final var c = this.line.codePointAt(this.position);
+				if (!isWhitespace(c)) {
+					return;
+				}
+				this.position += Character.charCount(c);
+			}
 		}
 
-		final int manager;
-		try {
-			manager = (matcher.group("manager").isEmpty() || matcher.group("manager").isBlank()) ? id
-					: Integer.parseInt(matcher.group("manager"));
-		} catch (Exception e) {
-			throw new IllegalArgumentException("Malformed line", e);
+		/**
+		 * Skip over any characters which may appear in a name.
+		 */
+		void skipName() {
+			while (!atEnd()) {
+				final var c = this.line.codePointAt(this.position);
+				if (!isNameCharacter(c)) {
+					return;
+				}
+				this.position += Character.charCount(c);
+			}
 		}
 
-		logger.info(String.format("From line \"%s\" read id: %d, name: %s, manager: %d", line, id, name,
-				manager));
-		return new Employee(id, name, manager);
+		/**
+		 * Read a single expected character.
+		 *
+		 * @param expected The character expected next.
+		 * @throws IllegalArgumentException if the next character is any other.
+		 */
+		void expect(char expected) throws IllegalArgumentException {
+			if (atEnd() || this.line.charAt(this.position) != expected) {
+				throw malformed();
+			}
+			this.position++;
+		}
+
+		/**
+		 * Check whether an integer starts at the current position.
+		 *
+		 * @return True if the next character is a minus sign or a digit.
+		 */
+		boolean atInteger() {
+			if (atEnd()) {
+				return false;
+			}
+			final var c = this.line.charAt(this.position);
+			return c == '-' || Character.isDigit(c);
+		}
+
+		/**
+		 * Read an integer, with an optional leading minus sign, directly from the
+		 * line.
+		 *
+		 * @return The integer.
+		 * @throws IllegalArgumentException if there is no integer at the current
+		 *                                  position or it is out of range.
+		 */
+		int integer() throws IllegalArgumentException {
+
+			final var negative = !atEnd() && this.line.charAt(this.position) == '-';
+			if (negative) {
+				this.position++;
+			}
+
+			// accumulate negatively, as the range of negative ints is the larger
+			final var limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+			final var start = this.position;
+			var result = 0;
+			while (!atEnd()) {
+				final var digit = Character.digit(this.line.charAt(this.position), 10);
+				if (digit < 0) {
+					break;
+				}
+				if (result < limit / 10 || result * 10 < limit + digit) {
+					throw malformed();
+				}
+				result = result * 10 - digit;
+				this.position++;
+			}
+
+			if (this.position == start) {
+				throw malformed();
+			}
+			return negative ? result : -result;
+		}
+
+		/**
+		 * Create an exception reporting that the line is malformed.
+		 *
+		 * @return The exception.
+		 */
+		IllegalArgumentException malformed() {
+			return new IllegalArgumentException(String.format("Malformed line: %s", this.line));
+		}
 	}
 
 	/**
-	 * Parse all lines from an instance of Stream<String>.
+	 * Check the header and parse all records from a reader, in a single pass,
+	 * passing each record to a sink as soon as it has been parsed.
 	 * 
-	 * @param stream The stream from which to parse.
-	 * @return A List of EmployeeRecord instances.
+	 * @param reader The reader from which to parse.
+	 * @param sink   The consumer of the records, in input order.
+	 * @return The number of records parsed.
+	 * @throws IOException if there is a problem reading or the header is missing
+	 *                     or invalid.
 	 */
-	private static List<Employee> parseLines(Stream<String> stream) {
+	private static int parse(BufferedReader reader, Consumer<? super Employee> sink) throws IOException {
 
-		List<Employee> records = stream
-				.skip(1) // ignore the header
-				.map(String::trim) // strip whitespace (defensive)
-				.filter((line) -> !(line.isEmpty() || line.isBlank())) // ignore blank lines
-				.map(Parser::parseLine) // lazy line parse
-				.toList(); // finalize
+		final var start = System.nanoTime();
+		final var header = reader.readLine();
+		if (header == null || !isValidHeader(header)) {
+			throw new IOException("Malformed input file: no header or header format incorrect");
+		}
 
-		logger.info(String.format("Parsed %d records", records.size()));
-		return records;
+		var count = 0;
+		for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+			line = line.trim(); // strip whitespace (defensive)
+			if (!(line.isEmpty() || line.isBlank())) { // ignore blank lines
+				sink.accept(parseLine(line));
+				count++;
+			}
+		}
+
+		Metrics.recordParse(count, System.nanoTime() - start);
+		final var parsed = count;
+		logger.info(() -> String.format("Parsed %d records", parsed));
+		return count;
 	}
 
-	private static boolean hasValidHeader(Stream<String> stream) {
+	/**
+	 * Collect the records passed to a sink into an unmodifiable list.
+	 * 
+	 * @param parse The parse to collect the records of.
+	 * @return The records, in input order.
+	 * @throws IOException if the parse fails.
+	 */
+	private static List<Employee> collect(Parse parse) throws IOException {
 
-		final String firstLine = stream.findFirst().orElseGet(null);
-		if (firstLine == null) {
-			return false;
-		}
+		List<Employee> records = new ArrayList<>();
+		parse.into(records::add);
+		return Collections.unmodifiableList(records);
+	}
 
-		final var headerMatcher = HEADER_PATTERN.matcher(firstLine);
+	/**
+	 * A parse of some input into a sink.
+	 */
+	@FunctionalInterface
+	private interface Parse {
+
+		/**
+		 * Parse the input.
+		 * 
+		 * @param sink The consumer of the records.
+		 * @throws IOException if the parse fails.
+		 */
+		void into(Consumer<? super Employee> sink) throws IOException;
+	}
 
-		logger.info(String.format("Parsed %s header \"%s\"", headerMatcher.matches() ? "valid" : "invalid",
-				firstLine));
+	/**
+	 * Check whether a line is a valid file header.
+	 *
+	 * @param line The first line of a file.
+	 * @return True if the line is a valid header.
+	 */
+	static boolean isValidHeader(String line) {
 
-		return headerMatcher.matches();
+		final var valid = HEADER_PATTERN.matcher(line).matches();
+		logger.info(() -> String.format("Parsed %s header \"%s\"", valid ? "valid" : "invalid", line));
+		return valid;
 	}
 
 	/**
 	 * Parse an employee file from an InputStream.
 	 * 
+	 * The stream is read once from its current position, so it need not support
+	 * mark and reset, and it is left open.
+	 * 
 	 * @param inputStream The stream from which to parse.
 	 * @return A List of EmployeeRecord instances.
 	 * @throws IOException if there is a problem accessing the stream.
 	 */
 	public static List<Employee> parse(InputStream inputStream) throws IOException {
+		return collect(sink -> parse(inputStream, sink));
+	}
 
-		inputStream.mark(0);
-		var stream = getStream(inputStream);
+	/**
+	 * Parse an employee file from an InputStream, passing each record to a sink
+	 * as soon as it has been parsed rather than collecting them all.
+	 * 
+	 * @param inputStream The stream from which to parse.
+	 * @param sink        The consumer of the records, in input order.
+	 * @return The number of records parsed.
+	 * @throws IOException if there is a problem accessing the stream.
+	 */
+	public static int parse(InputStream inputStream, Consumer<? super Employee> sink) throws IOException {
 
-		if (hasValidHeader(stream)) {
-			inputStream.reset();
-			stream = getStream(inputStream);
-			return parseLines(stream);
-		} else {
-			throw new IOException("Malformed input file: no header or header format incorrect");
-		}
+		Objects.requireNonNull(inputStream);
+		Objects.requireNonNull(sink);
+		return parse(new BufferedReader(new InputStreamReader(inputStream)), sink);
+	}
+
+	/**
+	 * Parse an employee file encoded in UTF-8 from a channel.
+	 * 
+	 * The channel is read once from its current position and left open.
+	 * 
+	 * @param channel The channel from which to parse.
+	 * @return A List of EmployeeRecord instances.
+	 * @throws IOException if there is a problem accessing the channel.
+	 */
+	public static List<Employee> parse(ReadableByteChannel channel) throws IOException {
+		return collect(sink -> parse(channel, sink));
+	}
+
+	/**
+	 * Parse an employee file encoded in UTF-8 from a channel, passing each record
+	 * to a sink as soon as it has been parsed rather than collecting them all.
+	 * 
+	 * @param channel The channel from which to parse.
+	 * @param sink    The consumer of the records, in input order.
+	 * @return The number of records parsed.
+	 * @throws IOException if there is a problem accessing the channel.
+	 */
+	public static int parse(ReadableByteChannel channel, Consumer<? super Employee> sink) throws IOException {
+
+		Objects.requireNonNull(channel);
+		Objects.requireNonNull(sink);
+		return parse(new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8)), sink);
 	}
 
 	/**
@@ -176,14 +415,67 @@ public final class Parser {
 	 * @throws IOException if there is a problem accessing the file.
 	 */
 	public static List<Employee> parse(String filePath) throws IOException {
+		return collect(sink -> parse(filePath, sink));
+	}
 
-		var stream = getFileAsStream(filePath);
+	/**
+	 * Parse an employee file from a file on the filesystem, passing each record to
+	 * a sink as soon as it has been parsed rather than collecting them all.
+	 * 
+	 * A sink such as Hierarchy.Builder or CompactHierarchy.Builder can then build
+	 * a structure directly from the file, without a list of every record
+	 * alongside it.
+	 * 
+	 * @param filePath The path to the file from which to parse.
+	 * @param sink     The consumer of the records, in input order.
+	 * @return The number of records parsed.
+	 * @throws IOException if there is a problem accessing the file.
+	 */
+	public static int parse(String filePath, Consumer<? super Employee> sink) throws IOException {
 
-		if (hasValidHeader(stream)) {
-			stream = getFileAsStream(filePath);
-			return parseLines(stream);
-		} else {
-			throw new IOException("Malformed input file: no header or header format incorrect");
+		Objects.requireNonNull(filePath);
+		Objects.requireNonNull(sink);
+		logger.info(() -> String.format("Opening org chart file %s", filePath));
+		try (var reader = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
+			return parse(reader, sink);
 		}
 	}
+
+	/**
+	 * Parse an employee file from a file on the filesystem, reading the file
+	 * through memory mapping and parsing parts of it in parallel on the common
+	 * fork/join pool.
+	 *
+	 * This gives the same result as parse(String), and is faster for large files
+	 * on machines with several processors.
+	 *
+	 * @param filePath The path to the file from which to parse.
+	 * @return A List of EmployeeRecord instances, in file order.
+	 * @throws IOException if there is a problem accessing the file.
+	 */
+	public static List<Employee> parseParallel(String filePath) throws IOException {
+		return parseParallel(filePath, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Parse an employee file from a file on the filesystem, reading the file
+	 * through memory mapping and parsing parts of it in parallel.
+	 *
+	 * @param filePath The path to the file from which to parse.
+	 * @param pool     The pool to parse on.
+	 * @return A List of EmployeeRecord instances, in file order.
+	 * @throws IOException if there is a problem accessing the file.
+	 */
+	public static List<Employee> parseParallel(String filePath, ForkJoinPool pool) throws IOException {
+
+		Objects.requireNonNull(filePath);
+		Objects.requireNonNull(pool);
+		logger.info(() -> String.format("Opening org chart file %s for parallel parsing", filePath));
+
+		final var start = System.nanoTime();
+		final var records = new MappedFileParser(Path.of(filePath), pool).parse();
+		Metrics.recordParse(records.size(), System.nanoTime() - start);
+		logger.info(() -> String.format("Parsed %d records", records.size()));
+		return records;
+	}
 }
@@ -0,0 +1,484 @@
+package com.github.jimbovm.bt.orgchart.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.OrgChart;
+import com.github.jimbovm.bt.orgchart.OrgChartHolder;
+import com.github.jimbovm.bt.orgchart.SetPathFinder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long-running HTTP server answering queries against an org chart which is
+ * loaded once and kept in memory.
+ *
+ * The server is built on the JDK's own HTTP server and listens on the loopback
+ * interface only. It offers the following endpoints, all returning plain text
+ * with one result per line:
+ *
+ * <ul>
+ * <li>GET /path?from=...&amp;to=...&amp;shortest=... - the shortest path between
+ * two employees, one line per pair of employees matched, as printed by the
+ * command line app, or if shortest is true, only the shortest of those
+ * paths;</li>
+ * <li>GET /manager?from=...&amp;to=... - the lowest-ranked common manager of two
+ * employees, one line per pair;</li>
+ * <li>GET /lookup?employee=... - the employees matching a query;</li>
+ * <li>GET /team?employee=... - the level, direct and indirect report counts and
+ * height of the team under each employee matching a query;</li>
+ * <li>GET /search?name=...&amp;limit=...&amp;distance=... - up to limit (by
+ * default 10) employees whose names start with a partial name, followed by
+ * those whose names are within an edit distance (by default 2) of it;</li>
+ * <li>POST /reload - reload the org chart from the input file.</li>
+ * </ul>
+ *
+ * Employees may be given by ID or by name, as in batch mode. Every query is
+ * answered from a single immutable OrgChart, taken from an OrgChartHolder, so
+ * queries need no locking. Reloading, whether requested or because a watched
+ * file changed, builds a complete new chart before publishing it with one
+ * atomic reference update; queries already in flight finish against the chart
+ * they started with, and if the reload fails the old chart stays in service.
+ */
+public final class QueryServer implements AutoCloseable {
+
+	/** HTTP status code for a successful request. */
+	private static final int HTTP_OK = 200;
+
+	/** HTTP status code for a malformed request. */
+	private static final int HTTP_BAD_REQUEST = 400;
+
+	/** HTTP status code for a query matching no employees. */
+	private static final int HTTP_NOT_FOUND = 404;
+
+	/** HTTP status code for a request using the wrong method. */
+	private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+
+	/** HTTP status code for a failure on the server side. */
+	private static final int HTTP_INTERNAL_ERROR = 500;
+
+	/** Default maximum number of search results. */
+	private static final int DEFAULT_SEARCH_LIMIT = 10;
+
+	/** Default maximum edit distance of approximate search results. */
+	private static final int DEFAULT_SEARCH_DISTANCE = 2;
+
+	/** Content type of all responses. */
+	private static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+
+	/** Logger implementation. */
+	private static Logger logger = Logger.getGlobal();
+
+	/** Holder of the org chart currently in service. */
+	private final OrgChartHolder orgChart;
+
+	/** The underlying HTTP server. */
+	private final HttpServer server;
+
+	/** The worker pool handling requests. */
+	private final ExecutorService workers;
+
+	/**
+	 * Load an org chart and start serving queries against it.
+	 *
+	 * @param filePath The path to the org chart file.
+	 * @param port     The port to listen on, or 0 for any free port.
+	 * @param threads  The number of worker threads handling requests.
+	 * @throws IOException              if the org chart cannot be read or the
+	 *                                  server cannot be started.
+	 * @throws IllegalArgumentException if the org chart is invalid.
+	 */
+	public QueryServer(String filePath, int port, int threads) throws IOException, IllegalArgumentException {
+		this(OrgChartHolder.load(filePath), port, threads);
+	}
+
+	/**
+	 * Start serving queries against a held org chart, which may be watching its
+	 * file for changes. Closing the server also closes the holder.
+	 *
+	 * @param orgChart The holder of the org chart.
+	 * @param port     The port to listen on, or 0 for any free port.
+	 * @param threads  The number of worker threads handling requests.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public QueryServer(OrgChartHolder orgChart, int port, int threads) throws IOException {
+
+		this.orgChart = Objects.requireNonNull(orgChart);
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.workers = Executors.newFixedThreadPool(threads);
+		this.server.setExecutor(this.workers);
+
+		this.server.createContext("/path", exchange -> handle(exchange, "GET", this::path));
+		this.server.createContext("/manager", exchange -> handle(exchange, "GET", this::manager));
+		this.server.createContext("/lookup", exchange -> handle(exchange, "GET", this::lookup));
+		this.server.createContext("/team", exchange -> handle(exchange, "GET", this::team));
+		this.server.createContext("/search", exchange -> handle(exchange, "GET", this::search));
+		this.server.createContext("/reload", exchange -> handle(exchange, "POST", this::reload));
+
+		this.server.start();
+		logger.info(() -> String.format("Serving %d employees on port %d with %d workers",
+				orgChart.get().hierarchy().size(), this.getPort(), threads));
+	}
+
+	/**
+	 * Return the port the server is listening on.
+	 *
+	 * @return The port number.
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Stop the server immediately, shut down its workers and stop watching the
+	 * org chart file.
+	 */
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.workers.shutdown();
+		try {
+			this.orgChart.close();
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Failed to stop watching the org chart file", e);
+		}
+	}
+
+	/**
+	 * Reload the org chart from the input file, replacing the chart in service
+	 * only once the new one is completely built.
+	 *
+	 * @return The newly loaded org chart.
+	 * @throws IOException              if the org chart cannot be read.
+	 * @throws IllegalArgumentException if the org chart is invalid.
+	 */
+	public OrgChart reload() throws IOException, IllegalArgumentException {
+		return this.orgChart.reload();
+	}
+
+	/**
+	 * A handler for one endpoint, producing a response from the query parameters.
+	 */
+	@FunctionalInterface
+	private interface Endpoint {
+
+		/**
+		 * Answer a request.
+		 *
+		 * @param parameters The decoded query parameters of the request.
+		 * @return The response.
+		 * @throws IOException if the request cannot be answered.
+		 */
+		Response answer(Map<String, String> parameters) throws IOException;
+	}
+
+	/**
+	 * A response to a request.
+	 *
+	 * @param status The HTTP status code.
+	 * @param body   The response body.
+	 */
+	private record Response(int status, String body) {
+	}
+
+	/**
+	 * Handle an exchange, checking its method and writing the endpoint's response.
+	 *
+	 * @param exchange The exchange to handle.
+	 * @param method   The HTTP method the endpoint accepts.
+	 * @param endpoint The endpoint.
+	 * @throws IOException if the response cannot be written.
+	 */
+	private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+
+		try (exchange) {
+			Response response;
+			if (!exchange.getRequestMethod().equals(method)) {
+				response = new Response(HTTP_METHOD_NOT_ALLOWED, "Method must be " + method);
+			} else {
+				try {
+					response = endpoint.answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+				} catch (IOException | RuntimeException e) {
+					logger.log(Level.WARNING, "Failed to answer " + exchange.getRequestURI(), e);
+					response = new Response(HTTP_INTERNAL_ERROR, String.valueOf(e.getMessage()));
+				}
+			}
+
+			final var body = (response.body() + "\n").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(response.status(), body.length);
+			exchange.getResponseBody().write(body);
+		}
+	}
+
+	/**
+	 * Decode the query string of a request.
+	 *
+	 * @param rawQuery The raw query string, which may be null.
+	 * @return The parameters, keyed by name; later values of a repeated parameter
+	 *         replace earlier ones.
+	 */
+	private static Map<String, String> parseQuery(String rawQuery) {
+
+		Map<String, String> parameters = new HashMap<>();
+		if (rawQuery == null) {
+			return parameters;
+		}
+
+		for (var parameter : rawQuery.split("&")) {
+			final var separator = parameter.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+						URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+
+	/**
+	 * Answer a query about a pair of employees, one line per pair matched.
+	 *
+	 * @param parameters The query parameters, which must include from and to.
+	 * @param query      The query to run for each pair, producing one line.
+	 * @return The response.
+	 */
+	private Response pairs(Map<String, String> parameters, PairQuery query) {
+
+		final var from = parameters.get("from");
+		final var to = parameters.get("to");
+		if (from == null || to == null) {
+			return new Response(HTTP_BAD_REQUEST, "Parameters from and to are required");
+		}
+
+		final var orgChart = this.orgChart.get();
+		final var employees1 = orgChart.resolve(from);
+		final var employees2 = orgChart.resolve(to);
+		if (employees1.isEmpty() || employees2.isEmpty()) {
+			return new Response(HTTP_NOT_FOUND, "One or more supplied employees not found.");
+		}
+
+		var builder = new StringBuilder();
+		try {
+			for (var employee1 : employees1) {
+				for (var employee2 : employees2) {
+					if (builder.length() > 0) {
+						builder.append('\n');
+					}
+					builder.append(query.answer(orgChart, employee1, employee2));
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			// an employee outside the hierarchy, i.e. not reachable from the chief
+			return new Response(HTTP_NOT_FOUND, e.getMessage());
+		}
+		return new Response(HTTP_OK, builder.toString());
+	}
+
+	/**
+	 * A query about a pair of employees.
+	 */
+	@FunctionalInterface
+	private interface PairQuery {
+
+		/**
+		 * Answer the query for one pair.
+		 *
+		 * @param orgChart  The org chart to query.
+		 * @param employee1 The first employee.
+		 * @param employee2 The second employee.
+		 * @return A one-line answer.
+		 */
+		String answer(OrgChart orgChart, Employee employee1, Employee employee2);
+	}
+
+	/**
+	 * Answer a path query.
+	 *
+	 * @param parameters The query parameters.
+	 * @return The response.
+	 */
+	private Response path(Map<String, String> parameters) {
+
+		if (!Boolean.parseBoolean(parameters.get("shortest"))) {
+			return pairs(parameters, (orgChart, employee1, employee2) -> orgChart.pathFinder()
+					.find(employee1, employee2).toString());
+		}
+
+		final var from = parameters.get("from");
+		final var to = parameters.get("to");
+		if (from == null || to == null) {
+			return new Response(HTTP_BAD_REQUEST, "Parameters from and to are required");
+		}
+
+		final var orgChart = this.orgChart.get();
+		final var employees1 = orgChart.resolve(from);
+		final var employees2 = orgChart.resolve(to);
+		if (employees1.isEmpty() || employees2.isEmpty()) {
+			return new Response(HTTP_NOT_FOUND, "One or more supplied employees not found.");
+		}
+
+		try {
+			final var path = new SetPathFinder(orgChart.index()).findShortest(employees1, employees2).get();
+			return new Response(HTTP_OK, path.toString());
+		} catch (IllegalArgumentException e) {
+			// an employee outside the hierarchy, i.e. not reachable from the chief
+			return new Response(HTTP_NOT_FOUND, e.getMessage());
+		}
+	}
+
+	/**
+	 * Answer a common manager query.
+	 *
+	 * @param parameters The query parameters.
+	 * @return The response.
+	 */
+	private Response manager(Map<String, String> parameters) {
+
+		return pairs(parameters, (orgChart, employee1, employee2) -> orgChart.index()
+				.highestCommonManager(employee1, employee2).toString());
+	}
+
+	/**
+	 * Answer a lookup query.
+	 *
+	 * @param parameters The query parameters, which must include employee.
+	 * @return The response.
+	 */
+	private Response lookup(Map<String, String> parameters) {
+
+		final var query = parameters.get("employee");
+		if (query == null) {
+			return new Response(HTTP_BAD_REQUEST, "Parameter employee is required");
+		}
+
+		final List<Employee> employees = this.orgChart.get().resolve(query);
+		if (employees.isEmpty()) {
+			return new Response(HTTP_NOT_FOUND, "No employee found.");
+		}
+
+		var builder = new StringBuilder();
+		for (var employee : employees) {
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(employee.toString());
+		}
+		return new Response(HTTP_OK, builder.toString());
+	}
+
+	/**
+	 * Answer a team query.
+	 *
+	 * @param parameters The query parameters, which must include employee.
+	 * @return The response.
+	 */
+	private Response team(Map<String, String> parameters) {
+
+		final var query = parameters.get("employee");
+		if (query == null) {
+			return new Response(HTTP_BAD_REQUEST, "Parameter employee is required");
+		}
+
+		final var orgChart = this.orgChart.get();
+		final List<Employee> employees = orgChart.resolve(query);
+		if (employees.isEmpty()) {
+			return new Response(HTTP_NOT_FOUND, "No employee found.");
+		}
+
+		final var aggregates = orgChart.aggregates();
+		var builder = new StringBuilder();
+		for (var employee : employees) {
+			// employees found by name may not be reachable from the chief, and so
+			// have no team
+			final var index = orgChart.hierarchy().indexOf(employee.id());
+			if (index < 0) {
+				continue;
+			}
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(String.format("%s: level %d, %d reports (%d direct, %d indirect), %d levels below",
+					employee, aggregates.level(index), aggregates.reportCount(index),
+					aggregates.directReportCount(index), aggregates.indirectReportCount(index),
+					aggregates.height(index)));
+		}
+		if (builder.length() == 0) {
+			return new Response(HTTP_NOT_FOUND, "No employee found.");
+		}
+		return new Response(HTTP_OK, builder.toString());
+	}
+
+	/**
+	 * Answer a search query.
+	 *
+	 * @param parameters The query parameters, which must include name and may
+	 *                   include limit and distance.
+	 * @return The response.
+	 */
+	private Response search(Map<String, String> parameters) {
+
+		final var name = parameters.get("name");
+		if (name == null) {
+			return new Response(HTTP_BAD_REQUEST, "Parameter name is required");
+		}
+
+		final int limit;
+		final int distance;
+		try {
+			limit = Integer.parseInt(parameters.getOrDefault("limit", String.valueOf(DEFAULT_SEARCH_LIMIT)));
+			distance = Integer.parseInt(parameters.getOrDefault("distance",
+					String.valueOf(DEFAULT_SEARCH_DISTANCE)));
+		} catch (NumberFormatException e) {
+			return new Response(HTTP_BAD_REQUEST, "Parameters limit and distance must be integers");
+		}
+
+		final var nameSearch = this.orgChart.get().nameSearch();
+		Set<Employee> employees = new LinkedHashSet<>(nameSearch.withPrefix(name, limit));
+		for (var employee : nameSearch.similarTo(name, distance, limit)) {
+			if (employees.size() >= limit) {
+				break;
+			}
+			employees.add(employee);
+		}
+		if (employees.isEmpty()) {
+			return new Response(HTTP_NOT_FOUND, "No employee found.");
+		}
+
+		var builder = new StringBuilder();
+		for (var employee : employees) {
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(employee.toString());
+		}
+		return new Response(HTTP_OK, builder.toString());
+	}
+
+	/**
+	 * Answer a reload request.
+	 *
+	 * @param parameters The query parameters, which are ignored.
+	 * @return The response.
+	 * @throws IOException if the org chart cannot be read.
+	 */
+	private Response reload(Map<String, String> parameters) throws IOException {
+
+		final var reloaded = reload();
+		return new Response(HTTP_OK, String.format("Reloaded %d employees", reloaded.employees().size()));
+	}
+}
@@ -0,0 +1,138 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the command line modes of the app.
+ */
+public final class AppTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+	private String chart() throws Exception {
+		return Path.of(this.getClass().getResource("/koopas.txt").toURI()).toString();
+	}
+
+	private int runBatch(String queryPath, InputStream input) throws Exception {
+		return App.runBatch(new String[] { "--batch", chart(), queryPath }, input, this.output,
+				new PrintStream(this.errors, true, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testBatchFromFile() throws Exception {
+
+		final var queries = this.temporaryDirectory.resolve("queries.txt");
+		Files.writeString(queries, "Pom-Pom | Chargin Chuck\n\n1 | -1\nKoopa Troopa|Kamek\n");
+
+		assertEquals(0, runBatch(queries.toString(), InputStream.nullInputStream()));
+		assertEquals("Pom-Pom (11) -> Morton (7) <- Boom-Boom (10) <- Chargin Chuck (700)\n"
+				+ "Bowser Jr (1) -> Bowser (0) <- Kamek (-1)\n"
+				+ "Koopa Troopa (100) -> Roy (3) -> Bowser (0) <- Kamek (-1)\n"
+				+ "Koopa Troopa (171) -> Roy (3) -> Bowser (0) <- Kamek (-1)\n",
+				this.output.toString(StandardCharsets.UTF_8));
+		assertEquals("", this.errors.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testBatchFromStandardInput() throws Exception {
+
+		final var input = new ByteArrayInputStream("Bowser | Bowser Jr\n".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(0, runBatch("-", input));
+		assertEquals("Bowser (0) <- Bowser Jr (1)\n", this.output.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testBatchReportsBadLines() throws Exception {
+
+		final var queries = this.temporaryDirectory.resolve("queries.txt");
+		Files.writeString(queries, "Bowser | Kamek\nBowser\nMario | Kamek\n | \nKamek | Luigi\nKamek | Kammy\n");
+
+		assertEquals(1, runBatch(queries.toString(), InputStream.nullInputStream()));
+		assertEquals("Bowser (0) <- Kamek (-1)\nKamek (-1) <- Kammy (-2)\n", this.output.toString(StandardCharsets.UTF_8));
+		final var separator = System.lineSeparator();
+		assertEquals("Line 2: expected two employees separated by |" + separator
+				+ "Line 3: One or more supplied employees not found." + separator
+				+ "Line 4: expected two employees separated by |" + separator
+				+ "Line 5: One or more supplied employees not found." + separator,
+				this.errors.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testBatchAnswersEachQueryFromStandardInput() throws Exception {
+
+		// the answer to a query must arrive while the pipe is still open
+		final var pipe = new PipedOutputStream();
+		final var input = new PipedInputStream(pipe);
+		final var exitCode = CompletableFuture.supplyAsync(() -> {
+			try {
+				return runBatch("-", input);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		pipe.write("Bowser | Kamek\n".getBytes(StandardCharsets.UTF_8));
+		pipe.flush();
+		final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (this.output.size() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals("Bowser (0) <- Kamek (-1)\n", this.output.toString(StandardCharsets.UTF_8));
+		assertFalse(exitCode.isDone());
+
+		pipe.close();
+		assertEquals(0, (int) exitCode.get(30, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testBatchWrongArguments() throws Exception {
+
+		assertEquals(1, App.runBatch(new String[] { "--batch", chart() }, InputStream.nullInputStream(), this.output,
+				new PrintStream(this.errors, true, StandardCharsets.UTF_8)));
+		assertTrue(this.errors.toString(StandardCharsets.UTF_8).startsWith("Wrong number of arguments."));
+	}
+
+	@Test
+	void testQueryIgnoresEmployeesOutsideHierarchy() throws Exception {
+
+		// the second Bob is in a management cycle, so has no path to anyone
+		final var chart = this.temporaryDirectory.resolve("orphan.txt");
+		Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 1 | Boss | |\n| 2 | Alice | 1 |\n"
+				+ "| 3 | Bob | 1 |\n| 5 | Bob | 6 |\n| 6 | Carol | 5 |\n");
+		final var standardError = new PrintStream(this.errors, true, StandardCharsets.UTF_8);
+
+		assertEquals(0, App.runQuery(new String[] { chart.toString(), "Alice", "Bob" }, InputStream.nullInputStream(),
+				this.output, standardError));
+		assertEquals("Alice (2) -> Boss (1) <- Bob (3)\n", this.output.toString(StandardCharsets.UTF_8));
+		assertEquals("", this.errors.toString(StandardCharsets.UTF_8));
+
+		this.output.reset();
+		assertEquals(1, App.runQuery(new String[] { chart.toString(), "Alice", "Carol" }, InputStream.nullInputStream(),
+				this.output, standardError));
+		assertEquals("", this.output.toString(StandardCharsets.UTF_8));
+		assertTrue(this.errors.toString(StandardCharsets.UTF_8).startsWith("One or more supplied employee names not found."));
+	}
+}
@@ -0,0 +1,71 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the BatchPathFinder class.
+ */
+public final class BatchPathFinderTest {
+
+	/**
+	 * Check batch answers against individual queries, in input order, over a
+	 * randomly shaped organisation.
+	 */
+	@Test
+	void testAgreesWithIndividualQueries() throws Exception {
+
+		final var random = new Random(700);
+		final List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < 10_000; id++) {
+			final var manager = random.nextBoolean() ? id - 1 : random.nextInt(id);
+			employees.add(new Employee(id, "Goomba", manager));
+		}
+
+		final var hierarchy = CompactHierarchy.of(employees);
+		final var queries = 50_000;
+		final var firsts = new int[queries];
+		final var seconds = new int[queries];
+		for (var query = 0; query < queries; query++) {
+			firsts[query] = random.nextInt(hierarchy.size());
+			seconds[query] = random.nextInt(8) == 0 ? firsts[query] : random.nextInt(hierarchy.size());
+		}
+
+		final var results = new BatchPathFinder(hierarchy).lowestCommonManagers(firsts, seconds);
+
+		for (var query = 0; query < queries; query++) {
+			assertEquals(hierarchy.lowestCommonManager(firsts[query], seconds[query]), results[query]);
+		}
+	}
+
+	@Test
+	void testHighestCommonManagers() throws Exception {
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var batchPathFinder = new BatchPathFinder(CompactHierarchy.of(employees));
+
+		final var bowser = employees.get(0);
+		final var kammy = employees.get(2);
+		final var roy = employees.get(3);
+		final var morton = employees.get(8);
+		final var pomPom = employees.get(10);
+		final var charginChuck = employees.get(13);
+
+		assertEquals(List.of(bowser, morton, roy, morton),
+				batchPathFinder.highestCommonManagers(
+						List.of(kammy, pomPom, roy, charginChuck),
+						List.of(roy, charginChuck, roy, morton)));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> batchPathFinder.highestCommonManagers(List.of(bowser), List.of()));
+	}
+}
@@ -0,0 +1,106 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the CompactHierarchy class.
+ */
+public final class CompactHierarchyTest {
+
+	private final List<Employee> employees = List.of(
+			new Employee(64, "Kooper", 2),
+			new Employee(0, "Princess Peach", 0),
+			new Employee(2, "Toad", 0),
+			new Employee(10, "Toadette", 0),
+			new Employee(65, "Goombella", 2),
+			new Employee(99, "Bowser", 98));
+
+	@Test
+	void testBuildCompactHierarchy() throws Exception {
+
+		final var hierarchy = CompactHierarchy.of(employees);
+
+		// Bowser's manager does not exist, so he is not part of the organisation
+		assertEquals(5, hierarchy.size());
+		assertEquals(-1, hierarchy.indexOf(99));
+
+		// indices are assigned in pre-order
+		assertEquals(0, hierarchy.indexOf(0));
+		assertEquals(1, hierarchy.indexOf(2));
+		assertEquals(2, hierarchy.indexOf(64));
+		assertEquals(3, hierarchy.indexOf(65));
+		assertEquals(4, hierarchy.indexOf(10));
+
+		assertEquals(employees.get(1), hierarchy.employee(0));
+		assertEquals(CompactHierarchy.NO_MANAGER, hierarchy.manager(0));
+		assertEquals(0, hierarchy.manager(hierarchy.indexOf(2)));
+		assertEquals(2, hierarchy.depth(hierarchy.indexOf(65)));
+
+		assertEquals(2, hierarchy.reportCount(0));
+		assertEquals(hierarchy.indexOf(2), hierarchy.report(0, 0));
+		assertEquals(hierarchy.indexOf(10), hierarchy.report(0, 1));
+		assertEquals(0, hierarchy.reportCount(hierarchy.indexOf(10)));
+	}
+
+	@Test
+	void testBuildFromParserSink() throws Exception {
+
+		final var path = this.getClass().getResource("/koopas.txt").getPath();
+		final var builder = CompactHierarchy.builder();
+		Parser.parse(path, builder);
+		final var streamed = builder.build();
+		final var listed = CompactHierarchy.of(Parser.parse(path));
+
+		assertEquals(listed.size(), streamed.size());
+		for (var index = 0; index < listed.size(); index++) {
+			assertEquals(listed.employee(index), streamed.employee(index));
+			assertEquals(listed.manager(index), streamed.manager(index));
+		}
+	}
+
+	@Test
+	void testLowestCommonManager() throws Exception {
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var hierarchy = CompactHierarchy.of(employees);
+
+		assertEquals(hierarchy.indexOf(7), hierarchy.lowestCommonManager(hierarchy.indexOf(11),
+				hierarchy.indexOf(700)));
+		assertEquals(hierarchy.indexOf(0), hierarchy.lowestCommonManager(hierarchy.indexOf(-2),
+				hierarchy.indexOf(3)));
+		assertEquals(hierarchy.indexOf(10), hierarchy.lowestCommonManager(hierarchy.indexOf(10),
+				hierarchy.indexOf(200)));
+		assertEquals(hierarchy.indexOf(1), hierarchy.lowestCommonManager(hierarchy.indexOf(1),
+				hierarchy.indexOf(1)));
+	}
+
+	@Test
+	void testFailOnMultipleChiefs() throws Exception {
+
+		assertThrows(IllegalArgumentException.class, () -> CompactHierarchy.of(List.of(
+				new Employee(1, "Chief 1", 1),
+				new Employee(2, "Chief 2", 2))));
+	}
+
+	@Test
+	void testFailOnDuplicateIds() throws Exception {
+
+		assertThrows(IllegalArgumentException.class, () -> CompactHierarchy.of(List.of(
+				new Employee(1, "Chief", 1),
+				new Employee(2, "Toad", 1),
+				new Employee(2, "Toadette", 1))));
+	}
+
+	@Test
+	void testEmpty() throws Exception {
+
+		assertEquals(0, CompactHierarchy.of(List.of()).size());
+	}
+}
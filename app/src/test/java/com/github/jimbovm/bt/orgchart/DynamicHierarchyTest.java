@@ -0,0 +1,158 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the DynamicHierarchy class.
+ */
+public final class DynamicHierarchyTest {
+
+	@Test
+	void testReorg() throws Exception {
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var hierarchy = DynamicHierarchy.of(employees);
+
+		// Roy (3) moves under Kammy (-2), taking his reports with him
+		final var royReports = hierarchy.reports(3);
+		hierarchy.move(3, -2);
+		assertEquals(-2, hierarchy.employee(3).manager());
+		assertEquals(royReports, hierarchy.reports(3));
+		assertEquals(3, hierarchy.depth(3));
+		assertEquals(hierarchy.employee(-2), hierarchy.lowestCommonManager(3, -2));
+		assertEquals(hierarchy.employee(-1), hierarchy.lowestCommonManager(100, -1));
+
+		// Kammy leaves, so Roy reports to her manager, Kamek (-1)
+		final var kammy = hierarchy.remove(-2);
+		assertEquals("Kammy", kammy.name());
+		assertFalse(hierarchy.contains(-2));
+		assertEquals(-1, hierarchy.employee(3).manager());
+		assertEquals(2, hierarchy.depth(3));
+
+		hierarchy.add(new Employee(1000, "Mario", 3));
+		assertEquals(List.of(hierarchy.employee(1000), hierarchy.employee(3), hierarchy.employee(-1),
+				hierarchy.chief()), hierarchy.path(1000, 0));
+		assertEquals(3, hierarchy.distance(1000, 0));
+		assertEquals(4, hierarchy.distance(1000, 7));
+
+		assertEquals(hierarchy.size(), hierarchy.toCompactHierarchy().size());
+	}
+
+	@Test
+	void testRejectInvalid() throws Exception {
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var hierarchy = DynamicHierarchy.of(employees);
+		final var chief = hierarchy.chief().id();
+		final var report = hierarchy.reports(chief).get(0).id();
+
+		// cycles
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.move(chief, report));
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.move(report, report));
+		final var grandReport = hierarchy.reports(report).isEmpty() ? report
+				: hierarchy.reports(report).get(0).id();
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.move(report, grandReport));
+
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.add(new Employee(chief, "Mario", chief)));
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.add(new Employee(2000, "Mario", 2000)));
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.add(new Employee(2000, "Mario", 3000)));
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.remove(chief));
+		assertThrows(IllegalArgumentException.class, () -> hierarchy.remove(2000));
+
+		assertEquals(employees.size(), hierarchy.size());
+	}
+
+	/**
+	 * Apply a random stream of hires, leavers and moves, checking queries against
+	 * climbing reporting lines in a map of managers.
+	 */
+	@Test
+	void testAgreesWithRebuild() {
+
+		final var random = new Random(16);
+		final var hierarchy = DynamicHierarchy.of();
+		final Map<Integer, Integer> managers = new HashMap<>();
+		final List<Integer> ids = new ArrayList<>();
+
+		hierarchy.add(new Employee(0, "Bowser", 0));
+		managers.put(0, 0);
+		ids.add(0);
+		var nextId = 1;
+
+		for (var step = 0; step < 20_000; step++) {
+
+			final var operation = random.nextInt(10);
+			if (operation < 5 || ids.size() < 3) {
+				final var manager = ids.get(random.nextInt(ids.size()));
+				hierarchy.add(new Employee(nextId, "Goomba", manager));
+				managers.put(nextId, manager);
+				ids.add(nextId++);
+			} else if (operation < 7) {
+				final var position = 1 + random.nextInt(ids.size() - 1);
+				final var id = ids.get(position);
+				final var manager = managers.remove(id);
+				managers.replaceAll((report, oldManager) -> oldManager.equals(id) ? manager : oldManager);
+				ids.set(position, ids.get(ids.size() - 1));
+				ids.remove(ids.size() - 1);
+				assertEquals((int) id, hierarchy.remove(id).id());
+			} else {
+				final var id = ids.get(random.nextInt(ids.size()));
+				final var manager = ids.get(random.nextInt(ids.size()));
+				if (climb(managers, manager).contains(id)) {
+					assertThrows(IllegalArgumentException.class, () -> hierarchy.move(id, manager));
+				} else {
+					hierarchy.move(id, manager);
+					managers.put(id, manager);
+				}
+			}
+
+			final var first = ids.get(random.nextInt(ids.size()));
+			final var second = ids.get(random.nextInt(ids.size()));
+			final var firstLine = climb(managers, first);
+			final var secondLine = climb(managers, second);
+			final int expected = firstLine.stream().filter(secondLine::contains).findFirst().get();
+			assertEquals(expected, hierarchy.lowestCommonManager(first, second).id());
+			assertEquals(firstLine.size() - 1, hierarchy.depth(first));
+			assertEquals(firstLine.indexOf(expected) + secondLine.indexOf(expected),
+					hierarchy.distance(first, second));
+			assertEquals((int) managers.get(first), hierarchy.employee(first).manager());
+		}
+
+		// freezing gives the same tree
+		final var compact = hierarchy.toCompactHierarchy();
+		assertEquals(ids.size(), compact.size());
+		for (var index = 1; index < compact.size(); index++) {
+			assertEquals((int) managers.get(compact.id(index)), compact.id(compact.manager(index)));
+		}
+	}
+
+	/**
+	 * Return the reporting line of an employee.
+	 *
+	 * @param managers Manager IDs keyed by employee ID.
+	 * @param id       The ID of an employee.
+	 * @return The employee and each of their managers in turn, up to the chief.
+	 */
+	private static List<Integer> climb(Map<Integer, Integer> managers, int id) {
+
+		List<Integer> line = new ArrayList<>();
+		line.add(id);
+		while (managers.get(id) != id) {
+			id = managers.get(id);
+			line.add(id);
+		}
+		return line;
+	}
+}
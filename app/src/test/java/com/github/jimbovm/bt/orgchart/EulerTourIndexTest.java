@@ -0,0 +1,75 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the EulerTourIndex class.
+ */
+public final class EulerTourIndexTest {
+
+	/**
+	 * Check the index against climbing reporting lines in the compact hierarchy,
+	 * over randomly shaped organisations large enough to span many blocks.
+	 *
+	 * @param size The number of employees.
+	 */
+	@ParameterizedTest
+	@CsvSource({ "1", "2", "31", "32", "33", "1000", "20000" })
+	void testAgreesWithClimbing(int size) throws Exception {
+
+		final var random = new Random(size);
+		final List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < size; id++) {
+			final var manager = random.nextBoolean() ? id - 1 : random.nextInt(id);
+			employees.add(new Employee(id, "Goomba", manager));
+		}
+
+		final var hierarchy = CompactHierarchy.of(employees);
+		final var index = EulerTourIndex.of(hierarchy);
+
+		for (var query = 0; query < 10_000; query++) {
+			final var first = random.nextInt(size);
+			final var second = random.nextInt(size);
+			final var expected = hierarchy.lowestCommonManager(first, second);
+			assertEquals(expected, index.lowestCommonManager(first, second));
+			assertEquals(hierarchy.depth(first) + hierarchy.depth(second) - 2 * hierarchy.depth(expected),
+					index.distance(first, second));
+		}
+	}
+
+	@Test
+	void testQueriesByEmployee() throws Exception {
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var index = EulerTourIndex.of(CompactHierarchy.of(employees));
+
+		final var bowser = employees.get(0);
+		final var kammy = employees.get(2);
+		final var roy = employees.get(3);
+		final var morton = employees.get(8);
+		final var pomPom = employees.get(10);
+		final var charginChuck = employees.get(13);
+
+		assertEquals(bowser, index.highestCommonManager(kammy, roy));
+		assertEquals(3, index.distance(kammy, roy));
+		assertEquals(morton, index.highestCommonManager(pomPom, charginChuck));
+		assertEquals(3, index.distance(pomPom, charginChuck));
+		assertEquals(morton, index.highestCommonManager(morton, charginChuck));
+		assertEquals(0, index.distance(roy, roy));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> index.highestCommonManager(bowser, new Employee(1000, "Mario", 0)));
+	}
+}
@@ -0,0 +1,136 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.jimbovm.bt.orgchart.generator.Generator;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the synthetic org chart generator.
+ */
+public final class GeneratorTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	/**
+	 * Generate an org chart into a list.
+	 */
+	private static List<Employee> generate(Generator generator) {
+		List<Employee> employees = new ArrayList<>();
+		assertEquals(generator.generate(employees::add), employees.size());
+		return employees;
+	}
+
+	/**
+	 * Return the greatest depth of an employee in an org chart.
+	 */
+	private static int maxDepth(CompactHierarchy hierarchy) {
+		var maxDepth = 0;
+		for (var index = 0; index < hierarchy.size(); index++) {
+			maxDepth = Math.max(maxDepth, hierarchy.depth(index));
+		}
+		return maxDepth;
+	}
+
+	@Test
+	void testRoundTrip() throws Exception {
+
+		for (var shape : Generator.Shape.values()) {
+			final var generator = Generator.builder().rows(5000).shape(shape).duplicateNameRate(0.1).seed(21).build();
+			final var path = this.temporaryDirectory.resolve(shape + ".txt");
+			assertEquals(5000, generator.write(path));
+
+			// the file parses back into the same employees, which form one tree
+			final var employees = Parser.parse(path.toString());
+			assertEquals(generate(generator), employees);
+			assertEquals(5000, CompactHierarchy.of(employees).size());
+		}
+	}
+
+	@Test
+	void testShapes() {
+
+		final var builder = Generator.builder().rows(1000);
+		assertEquals(999, maxDepth(CompactHierarchy.of(generate(builder.shape(Generator.Shape.CHAIN).build()))));
+		assertEquals(1, maxDepth(CompactHierarchy.of(generate(builder.shape(Generator.Shape.STAR).build()))));
+
+		// 1 + 4 + 16 + 64 + 256 < 1000 <= 1 + 4 + 16 + 64 + 256 + 1024
+		final var balanced = CompactHierarchy.of(generate(builder.shape(Generator.Shape.TREE).fanOut(4).build()));
+		assertEquals(5, maxDepth(balanced));
+		for (var index = 0; index < balanced.size(); index++) {
+			assertTrue(balanced.reportCount(index) == 0 || balanced.reportCount(index) == 4
+					|| balanced.depth(index) == 4);
+		}
+
+		// every distribution stays within the depth limit, however many rows
+		for (var distribution : Generator.FanOut.values()) {
+			final var limited = CompactHierarchy.of(generate(Generator.builder().rows(100_000).fanOut(2)
+					.fanOutDistribution(distribution).maxDepth(6).seed(7).build()));
+			assertEquals(100_000, limited.size());
+			assertEquals(6, maxDepth(limited));
+		}
+
+		// skewed fan-outs make some managers far larger than the mean
+		final var geometric = CompactHierarchy.of(generate(Generator.builder().rows(100_000)
+				.fanOutDistribution(Generator.FanOut.GEOMETRIC).build()));
+		var maxFanOut = 0;
+		for (var index = 0; index < geometric.size(); index++) {
+			maxFanOut = Math.max(maxFanOut, geometric.reportCount(index));
+		}
+		assertTrue(maxFanOut > 40, "max fan-out " + maxFanOut);
+	}
+
+	@Test
+	void testDuplicateNames() {
+
+		final var unique = generate(Generator.builder().rows(10_000).build());
+		assertEquals(10_000, unique.stream().map(employee -> App.normalizeName(employee.name())).distinct().count());
+
+		final var employees = generate(Generator.builder().rows(100_000).shape(Generator.Shape.RANDOM)
+				.duplicateNameRate(0.25).seed(3).build());
+		Map<String, Integer> counts = new HashMap<>();
+		employees.forEach(employee -> counts.merge(employee.name(), 1, Integer::sum));
+		final var duplicates = employees.size() - counts.size();
+		assertTrue(Math.abs(duplicates - 25_000) < 1000, duplicates + " duplicates");
+	}
+
+	@Test
+	void testDeterministic() throws Exception {
+
+		final var builder = Generator.builder().rows(2000).shape(Generator.Shape.TREE)
+				.fanOutDistribution(Generator.FanOut.UNIFORM).duplicateNameRate(0.5);
+		final var first = new StringWriter();
+		final var second = new StringWriter();
+		final var other = new StringWriter();
+		builder.seed(1).build().write(first);
+		builder.seed(1).build().write(second);
+		builder.seed(2).build().write(other);
+		assertEquals(first.toString(), second.toString());
+		assertTrue(!first.toString().equals(other.toString()));
+	}
+
+	@Test
+	void testRejectInvalid() {
+
+		final var builder = Generator.builder();
+		assertThrows(IllegalArgumentException.class, () -> builder.rows(0));
+		assertThrows(IllegalArgumentException.class, () -> builder.rows(Generator.MAX_ROWS + 1));
+		assertThrows(IllegalArgumentException.class, () -> builder.fanOut(0));
+		assertThrows(IllegalArgumentException.class, () -> builder.maxDepth(0));
+		assertThrows(IllegalArgumentException.class, () -> builder.duplicateNameRate(1));
+		assertThrows(IllegalArgumentException.class, () -> builder.duplicateNameRate(-0.1));
+	}
+}
@@ -5,10 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.github.jimbovm.bt.orgchart.generator.Generator;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
 public final class HierarchyTest {
 
 	private final List<Employee> employees = List.of(
@@ -42,6 +47,43 @@ public final class HierarchyTest {
 		assertFalse(TEAM_TOAD.isDirectReport(TOADETTE));
 	}
 
+	@Test
+	void testReportOrderFollowsInput() throws Exception {
+
+		final var reportsBeforeManagers = List.of(
+				new Employee(64, "Kooper", 2),
+				new Employee(10, "Toadette", 0),
+				new Employee(0, "Princess Peach", 0),
+				new Employee(65, "Goombella", 2),
+				new Employee(2, "Toad", 0));
+
+		final var organisation = Hierarchy.of(reportsBeforeManagers);
+		final var reports = organisation.getReports();
+
+		assertEquals(2, reports.size());
+		assertEquals(reportsBeforeManagers.get(1), reports.get(0).getEmployee().get());
+		assertEquals(reportsBeforeManagers.get(4), reports.get(1).getEmployee().get());
+		assertEquals(reportsBeforeManagers.get(0), reports.get(1).getReports().get(0).getEmployee().get());
+		assertEquals(reportsBeforeManagers.get(3), reports.get(1).getReports().get(1).getEmployee().get());
+	}
+
+	@Test
+	void testDeepChain() throws Exception {
+
+		final var depth = 200_000;
+		final List<Employee> chain = new ArrayList<>();
+		for (var id = 0; id < depth; id++) {
+			chain.add(new Employee(id, "Goomba", Math.max(id - 1, 0)));
+		}
+
+		var hierarchy = Hierarchy.of(chain);
+		for (var level = 0; level < depth; level++) {
+			assertEquals(chain.get(level), hierarchy.getEmployee().get());
+			assertEquals(level == depth - 1 ? 0 : 1, hierarchy.getReports().size());
+			hierarchy = hierarchy.getReports().isEmpty() ? hierarchy : hierarchy.getReports().get(0);
+		}
+	}
+
 	@SuppressWarnings("unused")
 	@Test
 	void testFailOnMultipleChiefs() throws Exception {
@@ -51,9 +93,53 @@ public final class HierarchyTest {
 		});
 	}
 
+	@Test
+	void testFailOnNoChief() throws Exception {
+
+		assertThrows(IllegalArgumentException.class, () -> Hierarchy.of(List.of(new Employee(1, "Kamek", 0))));
+	}
+
+	@Test
+	void testBuildFromParserSink() throws Exception {
+
+		final var path = this.getClass().getResource("/koopas.txt").getPath();
+		final var builder = Hierarchy.builder();
+		final var count = Parser.parse(path, builder);
+
+		assertEquals(Parser.parse(path).size(), count);
+		assertEquals(Hierarchy.of(Parser.parse(path)).toString(), builder.build().toString());
+	}
+
 	@Test
 	void testToStringOnEmpty() throws Exception {
 
 		assertEquals("Empty organisation", Hierarchy.of(List.of()).toString());
 	}
+
+	@Test
+	void testRender() throws Exception {
+
+		final var separator = System.lineSeparator();
+		final var organisation = Hierarchy.of(employees);
+		final var expected = "Princess Peach (0)" + separator + "\tToad (2)" + separator + "\t\tKooper (64)" + separator
+				+ "\tToadette (10)" + separator;
+		assertEquals(expected, organisation.toString());
+		assertEquals(expected, organisation.render(new StringWriter()).toString());
+		assertEquals(expected, CompactHierarchy.of(employees).render(new StringBuilder()).toString());
+
+		// indents deeper than one run of tabs, and both forms agree on larger trees
+		final var chain = Generator.builder().rows(200).shape(Generator.Shape.CHAIN).build();
+		List<Employee> chainEmployees = new ArrayList<>();
+		chain.generate(chainEmployees::add);
+		final var lines = Hierarchy.of(chainEmployees).render(new StringWriter()).toString().split(separator);
+		assertEquals(200, lines.length);
+		for (var depth = 0; depth < lines.length; depth++) {
+			assertEquals("\t".repeat(depth) + chainEmployees.get(depth), lines[depth]);
+		}
+
+		List<Employee> randomEmployees = new ArrayList<>();
+		Generator.builder().rows(5000).shape(Generator.Shape.RANDOM).build().generate(randomEmployees::add);
+		assertEquals(Hierarchy.of(randomEmployees).toString(),
+				CompactHierarchy.of(randomEmployees).render(new StringWriter()).toString());
+	}
 }
\ No newline at end of file
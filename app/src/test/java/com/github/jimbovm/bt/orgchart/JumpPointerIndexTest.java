@@ -0,0 +1,48 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the JumpPointerIndex class.
+ */
+public final class JumpPointerIndexTest {
+
+	/**
+	 * Check the index against climbing reporting lines in the compact hierarchy,
+	 * over a randomly shaped organisation.
+	 */
+	@Test
+	void testAgreesWithClimbing() throws Exception {
+
+		final var random = new Random(64);
+		final List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < 5_000; id++) {
+			// mostly deep chains, with the occasional branch back up the tree
+			final var manager = random.nextInt(10) == 0 ? random.nextInt(id) : id - 1;
+			employees.add(new Employee(id, "Goomba", manager));
+		}
+
+		final var hierarchy = CompactHierarchy.of(employees);
+		final var index = JumpPointerIndex.of(hierarchy);
+
+		for (var query = 0; query < 10_000; query++) {
+			final var first = random.nextInt(hierarchy.size());
+			final var second = random.nextInt(hierarchy.size());
+			assertEquals(hierarchy.lowestCommonManager(first, second), index.lowestCommonManager(first, second));
+		}
+	}
+
+	@Test
+	void testSingleEmployee() throws Exception {
+
+		final var index = JumpPointerIndex.of(CompactHierarchy.of(List.of(new Employee(0, "Bowser", 0))));
+		assertEquals(0, index.lowestCommonManager(0, 0));
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the Metrics and LatencyHistogram classes.
+ */
+public final class MetricsTest {
+
+	@Test
+	void testHistogramBuckets() {
+
+		// buckets are contiguous, and each holds values up to its upper bound
+		for (var bucket = 1; bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+			final var lowerBound = LatencyHistogram.upperBoundOf(bucket - 1) + 1;
+			final var upperBound = LatencyHistogram.upperBoundOf(bucket);
+			assertEquals(bucket, LatencyHistogram.bucketOf(lowerBound));
+			assertEquals(bucket, LatencyHistogram.bucketOf(upperBound));
+			assertTrue(upperBound - lowerBound <= lowerBound / 4);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+	}
+
+	@Test
+	void testHistogramPercentiles() {
+
+		final var histogram = new LatencyHistogram();
+		assertEquals(0, histogram.percentile(99));
+
+		final var random = new Random(19);
+		final List<Long> latencies = new ArrayList<>();
+		for (var i = 0; i < 10_000; i++) {
+			final var latency = (long) Math.exp(random.nextDouble() * 20);
+			latencies.add(latency);
+			histogram.record(latency);
+		}
+		latencies.sort(null);
+
+		assertEquals(10_000, histogram.count());
+		assertEquals((long) latencies.get(latencies.size() - 1), histogram.max());
+		assertEquals(latencies.stream().mapToLong(Long::longValue).average().getAsDouble(), histogram.mean(), 1e-6);
+		for (var percentile : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+			final long exact = latencies.get((int) Math.ceil(percentile / 100 * latencies.size()) - 1);
+			final var estimate = histogram.percentile(percentile);
+			assertTrue(estimate >= exact && estimate <= exact + exact / 4, percentile + ": " + estimate);
+		}
+		assertEquals(10_000, histogram.buckets().values().stream().mapToLong(Long::longValue).sum());
+
+		assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+	}
+
+	@Test
+	void testRecordsWork() throws Exception {
+
+		Metrics.register();
+		Metrics.register();
+		final var server = ManagementFactory.getPlatformMBeanServer();
+		final var name = new ObjectName(Metrics.OBJECT_NAME);
+
+		final var recordsParsed = (long) server.getAttribute(name, "RecordsParsed");
+		final var builds = (long) server.getAttribute(name, "Builds");
+		final var pathQueries = (long) server.getAttribute(name, "PathQueries");
+		final var setQueries = (long) server.getAttribute(name, "SetQueries");
+
+		final var employees = Parser.parse(this.getClass().getResourceAsStream("/koopas.txt"));
+		final var orgChart = OrgChart.of(employees);
+		orgChart.pathFinder().find(employees.get(2), employees.get(3));
+		final var setPathFinder = new SetPathFinder(orgChart.index());
+		setPathFinder.findAll(orgChart.findByName("Koopa Troopa"), orgChart.findByName("Hammer Bro"));
+		setPathFinder.findShortest(orgChart.findByName("Koopa Troopa"), orgChart.findByName("Hammer Bro"));
+
+		// other tests may be running at the same time
+		assertTrue((long) server.getAttribute(name, "RecordsParsed") >= recordsParsed + employees.size());
+		assertTrue((long) server.getAttribute(name, "Builds") >= builds + 1);
+		assertTrue((long) server.getAttribute(name, "PathQueries") >= pathQueries + 1);
+		assertTrue((long) server.getAttribute(name, "SetQueries") >= setQueries + 2);
+		assertTrue(Metrics.report().contains("max depth"));
+		assertTrue(Metrics.report().contains("Set queries"));
+	}
+}
@@ -0,0 +1,54 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the NameIndex class.
+ */
+public final class NameIndexTest {
+
+	/**
+	 * Test normalization of names, both ASCII and not.
+	 *
+	 * @param name               The name to normalize.
+	 * @param expectedNormalized The expected normalized name.
+	 */
+	@ParameterizedTest
+	@CsvSource({
+			"bowser, bowser",
+			"Bowser, bowser",
+			"'  Koopa   Troopa  ', koopa troopa",
+			"'Koopa\tTroopa', koopa troopa",
+			"'Boom-Boom', boom-boom",
+			"'Zo\u00eb  \u00c5ngstr\u00f6m', zo\u00eb \u00e5ngstr\u00f6m",
+			"'\u00a0Dry\u2003Bones\u00a0', dry bones",
+	})
+	void testNormalize(String name, String expectedNormalized) {
+		assertEquals(expectedNormalized, NameIndex.normalize(name));
+	}
+
+	@Test
+	void testFind() {
+
+		final var employees = List.of(
+				new Employee(0, "Bowser", 0),
+				new Employee(100, "Koopa Troopa", 0),
+				new Employee(171, "Koopa  Troopa", 0),
+				new Employee(1, "Bowser Jr", 0));
+		final var nameIndex = NameIndex.of(employees);
+
+		assertEquals(List.of(employees.get(0)), nameIndex.find("BOWSER"));
+		assertEquals(List.of(employees.get(1), employees.get(2)), nameIndex.find(" koopa troopa"));
+		assertEquals(List.of(), nameIndex.find("Kamek"));
+		assertTrue(nameIndex.contains("bowser  jr"));
+		assertFalse(nameIndex.contains("bowser jr jr"));
+	}
+}
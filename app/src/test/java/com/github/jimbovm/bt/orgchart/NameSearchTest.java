@@ -0,0 +1,104 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the NameSearch class.
+ */
+public final class NameSearchTest {
+
+	private NameSearch nameSearch;
+
+	@BeforeEach
+	void setup() {
+		this.nameSearch = NameSearch.of(NameIndex.of(List.of(
+				new Employee(0, "Bowser", 0),
+				new Employee(1, "Kamek", 0),
+				new Employee(2, "Kammy Koopa", 0),
+				new Employee(3, "Koopa Troopa", 2),
+				new Employee(4, "Koopa Troopa", 2),
+				new Employee(5, "Koopa Paratroopa", 2),
+				new Employee(6, "Dry Bones", 1))));
+	}
+
+	@Test
+	void testWithPrefix() {
+
+		assertEquals(List.of(new Employee(1, "Kamek", 0), new Employee(2, "Kammy Koopa", 0)),
+				this.nameSearch.withPrefix("  KAM", 10));
+		assertEquals(List.of(
+				new Employee(5, "Koopa Paratroopa", 2),
+				new Employee(3, "Koopa Troopa", 2),
+				new Employee(4, "Koopa Troopa", 2)),
+				this.nameSearch.withPrefix("koopa", 10));
+		assertEquals(2, this.nameSearch.withPrefix("koopa", 2).size());
+		assertTrue(this.nameSearch.withPrefix("Mario", 10).isEmpty());
+	}
+
+	@Test
+	void testSimilarTo() {
+
+		assertEquals(List.of(new Employee(0, "Bowser", 0)), this.nameSearch.similarTo("Bowsr", 2, 10));
+		assertEquals(List.of(new Employee(6, "Dry Bones", 1)), this.nameSearch.similarTo("dry  bonez", 1, 10));
+		assertEquals(List.of(new Employee(1, "Kamek", 0)), this.nameSearch.similarTo("Kamek", 0, 10));
+		assertTrue(this.nameSearch.similarTo("Mario", 2, 10).isEmpty());
+	}
+
+	/**
+	 * Test edit distances, with and without a bound.
+	 *
+	 * @param first            The first string.
+	 * @param second           The second string.
+	 * @param expectedDistance The expected edit distance.
+	 */
+	@ParameterizedTest
+	@CsvSource({
+			"bowser, bowser, 0",
+			"bowser, bowsr, 1",
+			"kamek, kammy, 2",
+			"koopa, paratroopa, 6",
+			"kitten, sitting, 3",
+	})
+	void testDistance(String first, String second, int expectedDistance) {
+		assertEquals(expectedDistance, NameSearch.distance(first, second, Integer.MAX_VALUE));
+		assertEquals(expectedDistance, NameSearch.distance(second, first, expectedDistance));
+		if (expectedDistance > 0) {
+			assertTrue(NameSearch.distance(first, second, expectedDistance - 1) > expectedDistance - 1);
+		}
+	}
+
+	@Test
+	void testSimilarToMatchesExhaustiveSearch() {
+
+		final var random = new Random(10);
+		final var names = new String[2000];
+		List<Employee> employees = new ArrayList<>();
+		for (var i = 0; i < names.length; i++) {
+			var builder = new StringBuilder();
+			final var length = 3 + random.nextInt(6);
+			for (var j = 0; j < length; j++) {
+				builder.append((char) ('a' + random.nextInt(4)));
+			}
+			names[i] = builder.toString();
+			employees.add(new Employee(i, names[i], 0));
+		}
+		final var search = NameSearch.of(NameIndex.of(employees));
+
+		for (var query : List.of("abc", "dddd", "abcdabcd", "ca")) {
+			final var expected = employees.stream()
+					.filter(employee -> NameSearch.distance(query, employee.name(), Integer.MAX_VALUE) <= 2)
+					.count();
+			assertEquals(expected, search.similarTo(query, 2, Integer.MAX_VALUE).size());
+		}
+	}
+}
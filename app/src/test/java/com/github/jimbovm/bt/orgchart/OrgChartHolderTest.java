@@ -0,0 +1,128 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for reloading an org chart when its file changes.
+ */
+public final class OrgChartHolderTest {
+
+	/** Time to wait for a change to be picked up. */
+	private static final long TIMEOUT_MILLISECONDS = 30_000;
+
+	@TempDir
+	Path temporaryDirectory;
+
+	/**
+	 * Wait until the chart in service satisfies a condition.
+	 *
+	 * @param holder    The holder.
+	 * @param condition The condition.
+	 * @return The chart in service once it satisfies the condition.
+	 */
+	private static OrgChart await(OrgChartHolder holder, Predicate<OrgChart> condition) throws Exception {
+
+		final var deadline = System.currentTimeMillis() + TIMEOUT_MILLISECONDS;
+		while (!condition.test(holder.get()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		return holder.get();
+	}
+
+	@Test
+	void testReloadOnChange() throws Exception {
+
+		final var chart = this.temporaryDirectory.resolve("chart.txt");
+		Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n");
+
+		try (var holder = OrgChartHolder.load(chart.toString())) {
+
+			final var original = holder.get();
+			holder.watch();
+
+			// modified in place
+			Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n| -1 | Kamek | 0 |\n");
+			var reloaded = await(holder, orgChart -> orgChart.employees().size() == 2);
+			assertEquals(2, reloaded.employees().size());
+			assertEquals(1, original.employees().size());
+
+			// an invalid file leaves the chart in service
+			Files.writeString(chart, "not an org chart\n");
+			Files.writeString(this.temporaryDirectory.resolve("other.txt"), "unrelated\n");
+			Thread.sleep(1000);
+			assertSame(reloaded, holder.get());
+
+			// replaced by a rename
+			final var replacement = this.temporaryDirectory.resolve("replacement.tmp");
+			Files.writeString(replacement,
+					"| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n| -1 | Kamek | 0 |\n| -2 | Kammy | -1 |\n");
+			Files.move(replacement, chart, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			reloaded = await(holder, orgChart -> orgChart.employees().size() == 3);
+			assertEquals("Kammy (-2)", reloaded.resolve("Kammy").get(0).toString());
+		}
+	}
+
+	@Test
+	void testReplaceServedSnapshot() throws Exception {
+
+		List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < 50_000; id++) {
+			employees.add(new Employee(id, "Goomba " + id, id - 1));
+		}
+		final var snapshot = this.temporaryDirectory.resolve("chart.snapshot");
+		Snapshot.write(OrgChart.of(employees), snapshot);
+
+		try (var holder = OrgChartHolder.load(snapshot.toString())) {
+
+			final var original = holder.get();
+			holder.watch();
+
+			// rewriting the snapshot with a smaller chart must not disturb the
+			// version still held by a query
+			Snapshot.write(OrgChart.of(employees.subList(0, 2)), snapshot);
+			final var reloaded = await(holder, orgChart -> orgChart.employees().size() == 2);
+			assertEquals(2, reloaded.employees().size());
+			assertEquals("Goomba 45000 (45000)", original.employees().get(45_000).toString());
+			assertEquals(List.of(new Employee(45_000, "Goomba 45000", 44_999)), original.findByName("Goomba 45000"));
+			try (var files = Files.list(this.temporaryDirectory)) {
+				assertEquals(List.of(snapshot), files.toList());
+			}
+		}
+	}
+
+	@Test
+	void testNameSearchBuiltOnce() throws Exception {
+
+		final List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < 100_000; id++) {
+			employees.add(new Employee(id, "Goomba " + id, id - 1));
+		}
+		final var chart = this.temporaryDirectory.resolve("chart.snapshot");
+		Snapshot.write(OrgChart.of(employees), chart);
+
+		try (var holder = OrgChartHolder.load(chart.toString())) {
+
+			// queries arriving while the background build runs share its result
+			final var orgChart = holder.get();
+			final var other = CompletableFuture.supplyAsync(orgChart::nameSearch);
+			final var search = orgChart.nameSearch();
+			assertSame(search, other.get(30, TimeUnit.SECONDS));
+			assertEquals(List.of(new Employee(99_999, "Goomba 99999", 99_998)), search.similarTo("Gomba 99999", 1, 10));
+		}
+	}
+}
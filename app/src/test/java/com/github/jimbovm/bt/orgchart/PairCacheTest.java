@@ -0,0 +1,61 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the PairCache class.
+ */
+public final class PairCacheTest {
+
+	@Test
+	void testEvictsLeastRecentlyUsed() {
+
+		final PairCache<String> cache = PairCache.of(1);
+		final var computed = new AtomicInteger();
+
+		assertEquals("1,2", cache.get(1, 2, () -> computed.incrementAndGet() + ",2"));
+		assertEquals("1,2", cache.get(1, 2, () -> "recomputed"));
+		assertEquals("2,1", cache.get(2, 1, () -> "2,1"));
+		assertEquals(1, cache.size());
+		assertEquals("recomputed", cache.get(1, 2, () -> "recomputed"));
+		assertEquals(1, computed.get());
+
+		assertEquals(1, cache.hitCount());
+		assertEquals(3, cache.missCount());
+	}
+
+	@Test
+	void testBounded() {
+
+		final PairCache<Integer> cache = PairCache.of(1000);
+		for (var first = -100; first < 100; first++) {
+			for (var second = -100; second < 100; second++) {
+				final var sum = first + second;
+				assertEquals(sum, (int) cache.get(first, second, () -> sum));
+			}
+		}
+		// each segment holds an equal share, rounded up
+		assertTrue(cache.size() <= 1000 + Runtime.getRuntime().availableProcessors() * 4);
+		assertTrue(cache.size() >= 500);
+		assertEquals(200 * 200, cache.missCount());
+	}
+
+	@Test
+	void testRejectInvalid() {
+
+		assertThrows(IllegalArgumentException.class, () -> PairCache.of(0));
+
+		final PairCache<String> cache = PairCache.of(10);
+		assertThrows(NullPointerException.class, () -> cache.get(0, 0, () -> null));
+		assertThrows(IllegalStateException.class, () -> cache.get(0, 0, () -> {
+			throw new IllegalStateException();
+		}));
+		assertEquals(0, cache.size());
+	}
+}
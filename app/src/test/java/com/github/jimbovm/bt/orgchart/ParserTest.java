@@ -2,12 +2,26 @@ package com.github.jimbovm.bt.orgchart;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import com.github.jimbovm.bt.orgchart.parser.Parser;
 
@@ -42,6 +56,80 @@ public final class ParserTest {
 		assertEquals(expectedManager, employee.manager());
 	}
 
+	/**
+	 * Test rejection of malformed lines.
+	 * 
+	 * @param line The line to test parsing.
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"0|Bowser||",
+			"|0|Bowser|",
+			"||Bowser||",
+			"|0||0|",
+			"| 0 |   | 0 |",
+			"|0|Bowser||0|",
+			"|+1|Kamek|0|",
+			"|- 1|Kamek|0|",
+			"|1|Kamek|-|",
+			"|1|Kamek|0 0|",
+			"|1|Kamek Jr.|0|",
+			"|1|Kamek|0| x",
+			"|2147483648|Kamek|0|",
+			"|1|Kamek|-2147483649|",
+	})
+	void testParseMalformedLine(String line) {
+		assertThrows(IllegalArgumentException.class, () -> Parser.parseLine(line));
+	}
+
+	/**
+	 * Test that lines are accepted and rejected exactly as by the regular
+	 * expression which once defined the format, over random lines built from
+	 * the characters that matter to it.
+	 */
+	@Test
+	void testParseLineMatchesPattern() {
+
+		final var pattern = Pattern.compile(
+				"^\\s*\\|\\s*(?<id>\\-?\\d+)\\s*\\|\\s*(?<name>[\\'\\-\\w\\s]+)\\s*\\|\\s*(?<manager>(\\-?\\d+)?)\\s*\\|\\s*$",
+				Pattern.UNICODE_CHARACTER_CLASS | Pattern.UNICODE_CASE);
+		final String[] pieces = { "|", "|", "|", " ", "\t", "\u00a0", "\u2003", "\u0085", "-", "'", "_", "0",
+				"7", "\u0663", "a", "Z", "\u00e9", "\u0301", "\u200d", "\ud835\udc9c", "\ud835\udfce", "\ud800",
+				".", "+", "\u001f", "99999999999" };
+		final var random = new Random(11);
+
+		for (var i = 0; i < 200_000; i++) {
+			var builder = new StringBuilder();
+			final var length = random.nextInt(14);
+			for (var j = 0; j < length; j++) {
+				builder.append(pieces[random.nextInt(pieces.length)]);
+			}
+			final var line = builder.toString();
+
+			final var matcher = pattern.matcher(line);
+			Employee expected = null;
+			if (matcher.find()) {
+				try {
+					final var id = Integer.parseInt(matcher.group("id"));
+					final var name = matcher.group("name").strip();
+					final var manager = matcher.group("manager").isEmpty() ? id
+							: Integer.parseInt(matcher.group("manager"));
+					expected = name.isBlank() ? null : new Employee(id, name, manager);
+				} catch (NumberFormatException e) {
+					expected = null;
+				}
+			}
+
+			Employee actual;
+			try {
+				actual = Parser.parseLine(line);
+			} catch (IllegalArgumentException e) {
+				actual = null;
+			}
+			assertEquals(expected, actual, line);
+		}
+	}
+
 	/**
 	 * Test parsing a complete org chart file, using a test resource.
 	 */
@@ -67,6 +155,77 @@ public final class ParserTest {
 		}
 	}
 
+	/**
+	 * Test that parallel parsing gives the same records as sequential parsing,
+	 * over a file large enough to be split into several chunks.
+	 */
+	@Test
+	void testParseParallel(@TempDir Path temporaryDirectory) throws Exception {
+
+		final var path = temporaryDirectory.resolve("chart.txt");
+		try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("| Employee ID | Name | Manager ID |\r\n| 0 | Bowser | |\n");
+			for (var i = 1; i < 100_000; i++) {
+				writer.write(String.format("| %d | Koopa Troopa \u00e9%d | %d |%s", i, i, i / 2,
+						(i % 10 == 0) ? "\r\n\n  \n" : "\n"));
+			}
+		}
+
+		final var expected = Parser.parse(path.toString());
+		assertEquals(100_000, expected.size());
+		assertEquals(expected, Parser.parseParallel(path.toString()));
+		assertEquals(expected, Parser.parseParallel(path.toString(), new ForkJoinPool(3)));
+
+		final var resource = Path.of(this.getClass().getResource("/superheroes.txt").toURI()).toString();
+		assertEquals(Parser.parse(resource), Parser.parseParallel(resource));
+	}
+
+	@Test
+	void testParseParallelInvalid(@TempDir Path temporaryDirectory) throws Exception {
+
+		final var invalidHeader = Path.of(this.getClass().getResource("/invalid_header.txt").toURI()).toString();
+		assertThrows(IOException.class, () -> Parser.parseParallel(invalidHeader));
+
+		final var path = temporaryDirectory.resolve("chart.txt");
+		Files.writeString(path, "");
+		assertThrows(IOException.class, () -> Parser.parseParallel(path.toString()));
+
+		Files.writeString(path, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n| 1 | Kamek |\n");
+		assertThrows(IllegalArgumentException.class, () -> Parser.parseParallel(path.toString()));
+
+		// a truncated multi-byte character
+		Files.write(path, "| Employee ID | Name | Manager ID |\n| 0 | Bowser \u00e9 | |\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals("Bowser \u00e9", Parser.parseParallel(path.toString()).get(0).name());
+		final var bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+		assertThrows(IOException.class, () -> Parser.parseParallel(path.toString()));
+	}
+
+	/**
+	 * Test parsing from streams and channels which can only be read once, such as
+	 * a decompressing stream.
+	 */
+	@Test
+	void testParseSinglePass() throws Exception {
+
+		final var expected = Parser.parse(this.getClass().getResourceAsStream("/superheroes.txt"));
+
+		var compressed = new ByteArrayOutputStream();
+		try (var input = this.getClass().getResourceAsStream("/superheroes.txt");
+				var output = new GZIPOutputStream(compressed)) {
+			input.transferTo(output);
+		}
+
+		var inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+		assertFalse(inputStream.markSupported());
+		assertEquals(expected, Parser.parse(inputStream));
+
+		var channel = Channels.newChannel(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())));
+		assertEquals(expected, Parser.parse(channel));
+
+		assertThrows(IOException.class, () -> Parser.parse(new ByteArrayInputStream(new byte[0])));
+	}
+
 	@CsvSource({
 			"/valid_header_1.txt",
 			"/valid_header_2.txt",
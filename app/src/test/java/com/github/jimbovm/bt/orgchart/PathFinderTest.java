@@ -5,9 +5,12 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -69,6 +72,49 @@ public final class PathFinderTest {
 		assertEquals(expectedToString, pathFinder.toString());
 	}
 
+	/**
+	 * Check that searching the compact form of the hierarchy, with and without an
+	 * index, gives the same paths.
+	 * 
+	 * @param employee1Name    The name of the first of two employees to find a path
+	 *                         between.
+	 * @param employee2Name    The name of the second of two employees to find a
+	 *                         path between.
+	 * @param expectedToString The correct toString() output of the PathFinder
+	 *                         instance expected.
+	 * @throws Exception in the event of any unexpected error.
+	 */
+	@ParameterizedTest
+	@CsvSource({
+			"Bowser Jr, Bowser, Bowser Jr (1) -> Bowser (0)",
+			"Pom-Pom, Chargin Chuck, Pom-Pom (11) -> Morton (7) <- Boom-Boom (10) <- Chargin Chuck (700)",
+			"Kammy, Roy, Kammy (-2) -> Kamek (-1) -> Bowser (0) <- Roy (3)",
+			"Koopa Paratroopa, Kamek, Koopa Paratroopa (180) -> Roy (3) -> Bowser (0) <- Kamek (-1)",
+			"Bowser, Bowser, Bowser (0)",
+			"Morton, Morton, Morton (7)",
+			"Chargin Chuck, Morton, Chargin Chuck (700) -> Boom-Boom (10) -> Morton (7)",
+	})
+	void testPathfindingCompact(String employee1Name, String employee2Name, String expectedToString)
+			throws Exception {
+		final var compactHierarchy = CompactHierarchy.of(employees);
+		final List<CommonManagerIndex> indices = List.of(compactHierarchy, JumpPointerIndex.of(compactHierarchy),
+				EulerTourIndex.of(compactHierarchy));
+
+		var employee1NameNormalized = App.normalizeName(employee1Name);
+		var employee2NameNormalized = App.normalizeName(employee2Name);
+
+		Optional<Employee> employee1 = employees.stream().filter(employee -> App.normalizeName(employee.name())
+				.equals(employee1NameNormalized)).findFirst();
+		Optional<Employee> employee2 = employees.stream().filter(employee -> App.normalizeName(employee.name())
+				.equals(employee2NameNormalized)).findFirst();
+
+		for (var index : indices) {
+			PathFinder pathFinder = new PathFinder(index);
+			pathFinder.findShortestPath(employee1.get(), employee2.get());
+			assertEquals(expectedToString, pathFinder.toString());
+		}
+	}
+
 	@CsvSource({
 			"Hammer Bro, Hammer Bro",
 			"Koopa Troopa, Koopa Troopa"
@@ -76,7 +122,7 @@ public final class PathFinderTest {
 	@ParameterizedTest
 	void testDuplicateNames(String firstEmployeeName, String secondEmployeeName) {
 
-		final List<String> validOutputsKT = List.of("Koopa Troopa (100)", "Koopa Troopa (107)",
+		final List<String> validOutputsKT = List.of("Koopa Troopa (100)", "Koopa Troopa (171)",
 				"Koopa Troopa (100) -> Roy (3) <- Koopa Troopa (171)",
 				"Koopa Troopa (171) -> Roy (3) <- Koopa Troopa (100)");
 
@@ -102,7 +148,7 @@ public final class PathFinderTest {
 						.equalsIgnoreCase(secondEmployeeName))
 				.toList();
 
-		List<String> outputs = List.of();
+		List<String> outputs = new ArrayList<>();
 
 		for (var employee1 : employees1) {
 			for (var employee2 : employees2) {
@@ -112,8 +158,106 @@ public final class PathFinderTest {
 			}
 		}
 
+		assertEquals(4, outputs.size());
 		for (var output : outputs) {
 			assertTrue(validOutputs.contains(output));
 		}
 	}
+
+	@Test
+	void testDeepPath() {
+
+		final var depth = 50_000;
+		final List<Employee> chain = new ArrayList<>();
+		for (var id = 0; id < depth; id++) {
+			chain.add(new Employee(id, "Goomba", Math.max(id - 1, 0)));
+		}
+		chain.add(new Employee(depth, "Koopa Troopa", 1));
+
+		PathFinder pathFinder = new PathFinder(Hierarchy.of(chain));
+		pathFinder.findShortestPath(chain.get(depth - 1), chain.get(depth));
+
+		final var path = pathFinder.toString();
+		assertTrue(path.startsWith(String.format("Goomba (%d) -> Goomba (%d)", depth - 1, depth - 2)));
+		assertTrue(path.endsWith(String.format("Goomba (2) -> Goomba (1) <- Koopa Troopa (%d)", depth)));
+	}
+
+	@Test
+	void testOneInstanceManyPairs() throws Exception {
+
+		final var compactHierarchy = CompactHierarchy.of(employees);
+		final var pathFinder = new PathFinder(EulerTourIndex.of(compactHierarchy), PairCache.of(16));
+		final var treePathFinder = new PathFinder(hierarchy);
+
+		// every pair answered by one instance, from several threads at once
+		final var threads = new ArrayList<Thread>();
+		final var failures = new ArrayList<Throwable>();
+		for (var thread = 0; thread < 4; thread++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (var round = 0; round < 20; round++) {
+						for (var employee1 : employees) {
+							for (var employee2 : employees) {
+								final var path = pathFinder.find(employee1, employee2);
+								assertEquals(employee1, path.employees().get(0));
+								assertEquals(employee2, path.employees().get(path.length()));
+								assertEquals(treePathFinder.find(employee1, employee2), path);
+							}
+						}
+					}
+				} catch (Throwable e) {
+					synchronized (failures) {
+						failures.add(e);
+					}
+				}
+			}));
+		}
+		for (var thread : threads) {
+			thread.start();
+		}
+		for (var thread : threads) {
+			thread.join();
+		}
+		assertEquals(List.of(), failures);
+
+		final var cache = pathFinder.cache().get();
+		assertEquals(4L * 20 * employees.size() * employees.size(), cache.hitCount() + cache.missCount());
+		assertTrue(cache.size() <= 16 + 16);
+	}
+
+	@Test
+	void testCacheHits() throws Exception {
+
+		final var pathFinder = new PathFinder(CompactHierarchy.of(employees), PairCache.of(100));
+		final var kammy = employees.get(2);
+		final var roy = employees.get(3);
+
+		final var path = pathFinder.find(kammy, roy);
+		assertEquals("Kammy (-2) -> Kamek (-1) -> Bowser (0) <- Roy (3)", path.toString());
+		assertEquals(employees.get(0), path.highestCommonManager());
+		assertEquals(3, path.length());
+		assertSame(path, pathFinder.find(kammy, roy));
+		assertEquals("Roy (3) -> Bowser (0) <- Kamek (-1) <- Kammy (-2)", pathFinder.find(roy, kammy).toString());
+
+		final var cache = pathFinder.cache().get();
+		assertEquals(1, cache.hitCount());
+		assertEquals(2, cache.missCount());
+		assertEquals(2, cache.size());
+
+		assertThrows(IllegalArgumentException.class, () -> pathFinder.find(kammy, new Employee(1000, "Mario", 0)));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void testRender() throws Exception {
+
+		final var path = new PathFinder(CompactHierarchy.of(employees)).find(employees.get(2), employees.get(3));
+		assertEquals(path.toString(), path.render(new StringWriter()).toString());
+		assertEquals("Kammy (-2) -> Kamek (-1) -> Bowser (0) <- Roy (3)", path.render(new StringBuilder()).toString());
+
+		final var extremes = new ShortestPath(List.of(new Employee(Integer.MIN_VALUE, "Min", 0),
+				new Employee(0, "Chief", 0), new Employee(Integer.MAX_VALUE, "Max", 0)), new Employee(0, "Chief", 0));
+		assertEquals(String.format("Min (%d) -> Chief (0) <- Max (%d)", Integer.MIN_VALUE, Integer.MAX_VALUE),
+				extremes.render(new StringWriter()).toString());
+	}
 }
@@ -0,0 +1,131 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.jimbovm.bt.orgchart.server.QueryServer;
+
+/**
+ * Tests for the HTTP query server.
+ */
+public final class QueryServerTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private HttpResponse<String> get(QueryServer server, String endpoint, String... parameters) throws Exception {
+
+		var builder = new StringBuilder();
+		for (var i = 0; i < parameters.length; i += 2) {
+			builder.append(i == 0 ? "?" : "&")
+					.append(parameters[i])
+					.append('=')
+					.append(URLEncoder.encode(parameters[i + 1], StandardCharsets.UTF_8));
+		}
+		final var uri = URI.create(String.format("http://localhost:%d%s%s", server.getPort(), endpoint, builder));
+		return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	void testQueries() throws Exception {
+
+		final var chart = this.temporaryDirectory.resolve("koopas.txt");
+		Files.copy(this.getClass().getResourceAsStream("/koopas.txt"), chart);
+
+		try (var server = new QueryServer(chart.toString(), 0, 2)) {
+
+			var response = get(server, "/path", "from", "Pom-Pom", "to", "Chargin Chuck");
+			assertEquals(200, response.statusCode());
+			assertEquals("Pom-Pom (11) -> Morton (7) <- Boom-Boom (10) <- Chargin Chuck (700)\n", response.body());
+
+			response = get(server, "/path", "from", "1", "to", "-1");
+			assertEquals("Bowser Jr (1) -> Bowser (0) <- Kamek (-1)\n", response.body());
+
+			response = get(server, "/path", "from", "Koopa Troopa", "to", "Hammer Bro", "shortest", "true");
+			assertEquals(200, response.statusCode());
+			assertEquals("Koopa Troopa (100) -> Roy (3) -> Bowser (0) <- Morton (7) <- Boom-Boom (10) <- Hammer Bro (201)\n",
+					response.body());
+
+			response = get(server, "/manager", "from", "Kammy", "to", "Roy");
+			assertEquals(200, response.statusCode());
+			assertEquals("Bowser (0)\n", response.body());
+
+			response = get(server, "/lookup", "employee", "koopa  troopa");
+			assertEquals(200, response.statusCode());
+			assertEquals("Koopa Troopa (100)\nKoopa Troopa (171)\n", response.body());
+
+			response = get(server, "/team", "employee", "Morton");
+			assertEquals(200, response.statusCode());
+			assertEquals("Morton (7): level 1, 5 reports (2 direct, 3 indirect), 2 levels below\n", response.body());
+			assertEquals(404, get(server, "/team", "employee", "Mario").statusCode());
+
+			response = get(server, "/search", "name", "Bowsr");
+			assertEquals(200, response.statusCode());
+			assertEquals("Bowser (0)\n", response.body());
+			assertEquals(400, get(server, "/search", "name", "Bowsr", "limit", "many").statusCode());
+
+			assertEquals(404, get(server, "/path", "from", "Mario", "to", "Bowser").statusCode());
+			assertEquals(400, get(server, "/path", "from", "Bowser").statusCode());
+			assertEquals(405, get(server, "/reload").statusCode());
+		}
+	}
+
+	@Test
+	void testTeamOfUnreachableEmployee() throws Exception {
+
+		// Lost Goomba's manager does not exist, so they cannot be reached from the
+		// chief but can still be found by name
+		final var chart = this.temporaryDirectory.resolve("chart.txt");
+		Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n| 1 | Goomba | 0 |\n"
+				+ "| 999 | Lost Goomba | 12345 |\n| 998 | Goomba | 12345 |\n");
+
+		try (var server = new QueryServer(chart.toString(), 0, 1)) {
+
+			assertEquals(404, get(server, "/team", "employee", "Lost Goomba").statusCode());
+			assertEquals(404, get(server, "/team", "employee", "999").statusCode());
+
+			final var response = get(server, "/team", "employee", "Goomba");
+			assertEquals(200, response.statusCode());
+			assertEquals("Goomba (1): level 1, 0 reports (0 direct, 0 indirect), 0 levels below\n", response.body());
+		}
+	}
+
+	@Test
+	void testReload() throws Exception {
+
+		final var chart = this.temporaryDirectory.resolve("chart.txt");
+		Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n");
+
+		try (var server = new QueryServer(chart.toString(), 0, 1)) {
+
+			assertEquals(404, get(server, "/lookup", "employee", "Kamek").statusCode());
+
+			Files.writeString(chart, "| Employee ID | Name | Manager ID |\n| 0 | Bowser | |\n| -1 | Kamek | 0 |\n");
+			final var uri = URI.create(String.format("http://localhost:%d/reload", server.getPort()));
+			final var response = client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody())
+					.build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, response.statusCode());
+
+			assertEquals("Kamek (-1)\n", get(server, "/lookup", "employee", "Kamek").body());
+
+			// a failed reload leaves the old chart in service
+			Files.writeString(chart, "not an org chart\n");
+			assertEquals(500, client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody())
+					.build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+			assertEquals("Kamek (-1)\n", get(server, "/lookup", "employee", "Kamek").body());
+		}
+	}
+}
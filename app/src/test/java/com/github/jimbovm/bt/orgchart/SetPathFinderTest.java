@@ -0,0 +1,103 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.generator.Generator;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the SetPathFinder class.
+ */
+public final class SetPathFinderTest {
+
+	@Test
+	void testKoopas() throws Exception {
+
+		final var orgChart = OrgChart.of(Parser.parse(this.getClass().getResourceAsStream("/koopas.txt")));
+		final var pathFinder = new SetPathFinder(orgChart.index());
+		final var koopaTroopas = orgChart.findByName("Koopa Troopa");
+		final var hammerBros = orgChart.findByName("Hammer Bro");
+
+		final var paths = pathFinder.findAll(koopaTroopas, hammerBros);
+		assertEquals(4, paths.size());
+		var path = 0;
+		for (var koopaTroopa : koopaTroopas) {
+			for (var hammerBro : hammerBros) {
+				assertEquals(orgChart.pathFinder().find(koopaTroopa, hammerBro), paths.get(path++));
+			}
+		}
+
+		// the same name on both sides includes each employee's path to themselves
+		final var shortest = pathFinder.findShortest(koopaTroopas, koopaTroopas).get();
+		assertEquals(0, shortest.length());
+		assertEquals("Koopa Paratroopa (180) -> Roy (3) -> Bowser (0) <- Morton (7) <- Boom-Boom (10)",
+				pathFinder.findShortest(orgChart.findByName("Koopa Paratroopa"), orgChart.resolve("10")).get()
+						.toString());
+
+		// streamed paths arrive in the same order as the list
+		List<ShortestPath> streamed = new ArrayList<>();
+		assertEquals(4L, pathFinder.findAll(koopaTroopas, hammerBros, streamed::add));
+		assertEquals(paths, streamed);
+
+		assertEquals(List.of(), pathFinder.findAll(koopaTroopas, List.of()));
+		assertEquals(0L, pathFinder.findAll(List.of(), hammerBros, streamed::add));
+		assertEquals(Optional.empty(), pathFinder.findShortest(List.of(), hammerBros));
+		assertThrows(IllegalArgumentException.class,
+				() -> pathFinder.findAll(koopaTroopas, List.of(new Employee(1000, "Mario", 0))));
+		assertThrows(IllegalArgumentException.class,
+				() -> pathFinder.findShortest(List.of(new Employee(1000, "Mario", 0)), hammerBros));
+	}
+
+	@Test
+	void testAgreesWithPairwise() {
+
+		final var random = new Random(25);
+		for (var shape : Generator.Shape.values()) {
+
+			List<Employee> employees = new ArrayList<>();
+			Generator.builder().rows(3000).shape(shape).fanOutDistribution(Generator.FanOut.GEOMETRIC).fanOut(3)
+					.seed(25).build().generate(employees::add);
+			final var index = EulerTourIndex.of(CompactHierarchy.of(employees));
+			final var pathFinder = new SetPathFinder(index);
+			final var pairwise = new PathFinder(index);
+
+			for (var trial = 0; trial < 50; trial++) {
+				List<Employee> employees1 = new ArrayList<>();
+				List<Employee> employees2 = new ArrayList<>();
+				for (var i = random.nextInt(20) + 1; i > 0; i--) {
+					employees1.add(employees.get(random.nextInt(employees.size())));
+				}
+				for (var i = random.nextInt(20) + 1; i > 0; i--) {
+					employees2.add(employees.get(random.nextInt(employees.size())));
+				}
+
+				final var paths = pathFinder.findAll(employees1, employees2);
+				var shortestLength = Integer.MAX_VALUE;
+				var path = 0;
+				for (var employee1 : employees1) {
+					for (var employee2 : employees2) {
+						final var expected = pairwise.find(employee1, employee2);
+						assertEquals(expected, paths.get(path++));
+						shortestLength = Math.min(shortestLength, expected.length());
+					}
+				}
+
+				final var shortest = pathFinder.findShortest(employees1, employees2).get();
+				assertEquals(shortestLength, shortest.length());
+				final var ends = shortest.employees();
+				assertTrue(employees1.contains(ends.get(0)));
+				assertTrue(employees2.contains(ends.get(ends.size() - 1)));
+				assertEquals(pairwise.find(ends.get(0), ends.get(ends.size() - 1)), shortest);
+			}
+		}
+	}
+}
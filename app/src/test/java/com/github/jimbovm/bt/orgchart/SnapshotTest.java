@@ -0,0 +1,146 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for writing and loading org chart snapshots.
+ */
+public final class SnapshotTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	@Test
+	void testRoundTrip() throws Exception {
+
+		final var chartPath = Path.of(this.getClass().getResource("/koopas.txt").toURI());
+		final var orgChart = OrgChart.load(chartPath.toString());
+		final var snapshotPath = this.temporaryDirectory.resolve("koopas.snapshot");
+		Snapshot.write(orgChart, snapshotPath);
+
+		assertTrue(Snapshot.isSnapshot(snapshotPath));
+		assertFalse(Snapshot.isSnapshot(chartPath));
+
+		final var loaded = OrgChart.load(snapshotPath.toString());
+		final var hierarchy = orgChart.hierarchy();
+		assertEquals(hierarchy.size(), loaded.hierarchy().size());
+		assertEquals(orgChart.employees(), loaded.employees());
+		for (var index = 0; index < hierarchy.size(); index++) {
+			assertEquals(hierarchy.manager(index), loaded.hierarchy().manager(index));
+			assertEquals(hierarchy.depth(index), loaded.hierarchy().depth(index));
+			assertEquals(index, loaded.hierarchy().indexOf(hierarchy.id(index)));
+			for (var other = 0; other < hierarchy.size(); other++) {
+				assertEquals(orgChart.index().lowestCommonManager(index, other),
+						loaded.index().lowestCommonManager(index, other));
+			}
+		}
+
+		// duplicate names keep their order
+		assertEquals(orgChart.findByName("koopa  troopa"), loaded.findByName("koopa  troopa"));
+		assertEquals(2, loaded.findByName("Koopa Troopa").size());
+		assertEquals(List.of(), loaded.findByName("Mario"));
+		assertEquals(orgChart.resolve("-1"), loaded.resolve("-1"));
+
+		final var names = loaded.nameSearch().withPrefix("Koopa", 10);
+		assertEquals(orgChart.nameSearch().withPrefix("Koopa", 10), names);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void testPathsMatchTextChart() throws Exception {
+
+		final var chartPath = Path.of(this.getClass().getResource("/koopas.txt").toURI());
+		final var orgChart = OrgChart.load(chartPath.toString());
+		final var snapshotPath = this.temporaryDirectory.resolve("koopas.snapshot");
+		Snapshot.write(orgChart, snapshotPath);
+		final var loaded = OrgChart.load(snapshotPath.toString());
+
+		// employees are created afresh for each lookup in a snapshot, so the
+		// common manager must be found by value, not by identity
+		final var treePathFinder = new PathFinder(Hierarchy.of(orgChart.employees()));
+		final var compactPathFinder = new PathFinder(loaded.hierarchy());
+		for (var employee1 : orgChart.employees()) {
+			for (var employee2 : orgChart.employees()) {
+				final var expected = orgChart.pathFinder().find(employee1, employee2).toString();
+				final var first = loaded.resolve(Integer.toString(employee1.id())).get(0);
+				final var second = loaded.resolve(Integer.toString(employee2.id())).get(0);
+				assertEquals(expected, loaded.pathFinder().find(first, second).toString());
+				assertEquals(expected, compactPathFinder.find(first, second).toString());
+				assertEquals(expected, treePathFinder.find(first, second).toString());
+
+				compactPathFinder.findShortestPath(first, second);
+				assertEquals(expected, compactPathFinder.toString());
+			}
+		}
+		assertEquals("Pom-Pom (11) -> Morton (7) <- Boom-Boom (10) <- Chargin Chuck (700)",
+				loaded.pathFinder().find(loaded.resolve("11").get(0), loaded.resolve("700").get(0)).toString());
+	}
+
+	@Test
+	void testRoundTripLarge() throws Exception {
+
+		final var random = new Random(15);
+		final List<Employee> employees = new ArrayList<>();
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < 100_000; id++) {
+			employees.add(new Employee(id * 7, "Goomba \u00e9" + random.nextInt(5000), random.nextInt(id) * 7));
+		}
+		final var orgChart = OrgChart.of(employees);
+		final var snapshotPath = this.temporaryDirectory.resolve("goombas.snapshot");
+		Snapshot.write(orgChart, snapshotPath);
+		final var loaded = Snapshot.load(snapshotPath);
+
+		assertEquals(orgChart.employees(), loaded.employees());
+		for (var query = 0; query < 10_000; query++) {
+			final var first = random.nextInt(employees.size());
+			final var second = random.nextInt(employees.size());
+			assertEquals(orgChart.index().distance(first, second), loaded.index().distance(first, second));
+			final var name = employees.get(first).name();
+			assertEquals(orgChart.findByName(name), loaded.findByName(name));
+		}
+	}
+
+	@Test
+	void testRejectInvalid() throws Exception {
+
+		final var chartPath = Path.of(this.getClass().getResource("/koopas.txt").toURI());
+		assertThrows(IOException.class, () -> Snapshot.load(chartPath));
+
+		final var snapshotPath = this.temporaryDirectory.resolve("koopas.snapshot");
+		Snapshot.write(OrgChart.load(chartPath.toString()), snapshotPath);
+		final var bytes = Files.readAllBytes(snapshotPath);
+
+		// truncated
+		Files.write(snapshotPath, Arrays.copyOf(bytes, bytes.length / 2));
+		assertThrows(IOException.class, () -> Snapshot.load(snapshotPath));
+
+		// from a future version
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.BYTES, Snapshot.VERSION + 1);
+		Files.write(snapshotPath, bytes);
+		assertThrows(IOException.class, () -> Snapshot.load(snapshotPath));
+	}
+
+	@Test
+	void testUtf8Length() {
+		for (var string : List.of("", "Bowser", "Zo\u00eb", "\u30af\u30c3\u30d1", "\ud835\udc9c", "\ud800x", "x\udc00")) {
+			assertEquals(string.getBytes(StandardCharsets.UTF_8).length, Snapshot.utf8Length(string), string);
+		}
+	}
+}
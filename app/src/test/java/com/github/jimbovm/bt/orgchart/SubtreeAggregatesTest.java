@@ -0,0 +1,137 @@
+package com.github.jimbovm.bt.orgchart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jimbovm.bt.orgchart.generator.Generator;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Tests for the SubtreeAggregates class.
+ */
+public final class SubtreeAggregatesTest {
+
+	@Test
+	void testKoopas() throws Exception {
+
+		final var orgChart = OrgChart.of(Parser.parse(this.getClass().getResourceAsStream("/koopas.txt")));
+		final var hierarchy = orgChart.hierarchy();
+		final var aggregates = orgChart.aggregates();
+
+		// Bowser heads everyone, four of them directly
+		final var bowser = hierarchy.indexOf(0);
+		assertEquals(15, aggregates.headcount(bowser));
+		assertEquals(14, aggregates.reportCount(bowser));
+		assertEquals(4, aggregates.directReportCount(bowser));
+		assertEquals(10, aggregates.indirectReportCount(bowser));
+		assertEquals(3, aggregates.height(bowser));
+		assertEquals(0, aggregates.level(bowser));
+
+		final var morton = hierarchy.indexOf(7);
+		assertEquals(6, aggregates.headcount(morton));
+		assertEquals(2, aggregates.directReportCount(morton));
+		assertEquals(3, aggregates.indirectReportCount(morton));
+		assertEquals(2, aggregates.height(morton));
+		assertEquals(1, aggregates.level(morton));
+
+		final var chuck = hierarchy.indexOf(700);
+		assertEquals(1, aggregates.headcount(chuck));
+		assertEquals(0, aggregates.reportCount(chuck));
+		assertEquals(0, aggregates.height(chuck));
+		assertEquals(3, aggregates.level(chuck));
+	}
+
+	@Test
+	void testAgreesWithWalk() {
+
+		for (var shape : Generator.Shape.values()) {
+
+			List<Employee> employees = new ArrayList<>();
+			Generator.builder().rows(2000).shape(shape).fanOutDistribution(Generator.FanOut.GEOMETRIC).fanOut(3)
+					.seed(23).build().generate(employees::add);
+			final var hierarchy = CompactHierarchy.of(employees);
+			final var aggregates = SubtreeAggregates.of(hierarchy);
+
+			// every employee counts towards the headcount and height of each manager
+			// above them
+			final var headcounts = new int[hierarchy.size()];
+			final var heights = new int[hierarchy.size()];
+			for (var index = 0; index < hierarchy.size(); index++) {
+				var below = 0;
+				for (var manager = index; manager != CompactHierarchy.NO_MANAGER; manager = hierarchy
+						.manager(manager)) {
+					headcounts[manager]++;
+					heights[manager] = Math.max(heights[manager], below++);
+				}
+			}
+
+			for (var index = 0; index < hierarchy.size(); index++) {
+				assertEquals(headcounts[index], aggregates.headcount(index));
+				assertEquals(heights[index], aggregates.height(index));
+				assertEquals(hierarchy.reportCount(index), aggregates.directReportCount(index));
+				assertEquals(headcounts[index] - 1 - hierarchy.reportCount(index),
+						aggregates.indirectReportCount(index));
+			}
+		}
+	}
+
+	@Test
+	void testReportingLines() throws Exception {
+
+		final var orgChart = OrgChart.of(Parser.parse(this.getClass().getResourceAsStream("/koopas.txt")));
+
+		// Bowser > Morton > Boom-Boom > Chargin Chuck
+		assertTrue(orgChart.isAncestorOf(0, 700));
+		assertTrue(orgChart.isAncestorOf(7, 700));
+		assertTrue(orgChart.isDirectReport(10, 700));
+		assertFalse(orgChart.isDirectReport(7, 700));
+		assertFalse(orgChart.isAncestorOf(700, 10));
+		assertFalse(orgChart.isAncestorOf(700, 700));
+		assertTrue(orgChart.isInSubtree(700, 700));
+		assertTrue(orgChart.isInSubtree(7, 11));
+		assertFalse(orgChart.isInSubtree(3, 11));
+		assertFalse(orgChart.isAncestorOf(-1, 3));
+		assertTrue(orgChart.isDirectReport(-1, -2));
+
+		// IDs not in the hierarchy are never in a reporting line
+		assertFalse(orgChart.isAncestorOf(0, 12345));
+		assertFalse(orgChart.isInSubtree(12345, 12345));
+		assertFalse(orgChart.isDirectReport(12345, 0));
+	}
+
+	@Test
+	void testReportingLinesAgreeWithWalk() {
+
+		for (var shape : Generator.Shape.values()) {
+
+			List<Employee> employees = new ArrayList<>();
+			Generator.builder().rows(500).shape(shape).fanOutDistribution(Generator.FanOut.UNIFORM).fanOut(2)
+					.seed(24).build().generate(employees::add);
+			final var hierarchy = CompactHierarchy.of(employees);
+			final var aggregates = SubtreeAggregates.of(hierarchy);
+
+			for (var index = 0; index < hierarchy.size(); index++) {
+				final var managers = new boolean[hierarchy.size()];
+				for (var manager = hierarchy.manager(index); manager != CompactHierarchy.NO_MANAGER; manager = hierarchy
+						.manager(manager)) {
+					managers[manager] = true;
+				}
+				for (var other = 0; other < hierarchy.size(); other++) {
+					assertEquals(managers[other], aggregates.isAncestorOf(other, index));
+					assertEquals(managers[other] || other == index, aggregates.isInSubtree(other, index));
+					assertEquals(hierarchy.manager(index) == other, aggregates.isDirectReport(other, index));
+				}
+				assertTrue(aggregates.isInSubtree(index, aggregates.lastInSubtree(index)));
+				if (aggregates.lastInSubtree(index) + 1 < hierarchy.size()) {
+					assertFalse(aggregates.isInSubtree(index, aggregates.lastInSubtree(index) + 1));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+plugins {
+	java
+	alias(libs.plugins.jmh)
+}
+
+repositories {
+	// Use Maven Central for resolving dependencies.
+	mavenCentral()
+}
+
+dependencies {
+	// The benchmarks measure the application's own classes.
+	jmhImplementation(project(":app"))
+}
+
+// Benchmark on the same Java version the application is built for.
+java {
+	toolchain {
+		languageVersion = JavaLanguageVersion.of(17)
+	}
+}
+
+jmh {
+	jmhVersion = libs.versions.jmh
+	// report allocation rates alongside timings
+	profilers = listOf("gc")
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+	resultFormat = "JSON"
+	// run only the benchmarks matching -Pjmh.includes=<regex>, if given
+	findProperty("jmh.includes")?.let { includes = listOf(it.toString()) }
+}
@@ -0,0 +1,80 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.jimbovm.bt.orgchart.CompactHierarchy;
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.EulerTourIndex;
+import com.github.jimbovm.bt.orgchart.Hierarchy;
+
+/**
+ * Benchmarks of building hierarchies and their indices from parsed employees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HierarchyBenchmark {
+
+	/** The shape of the organisation. */
+	@Param({ "CHAIN", "STAR", "BALANCED", "RANDOM" })
+	public Shape shape;
+
+	/** The number of employees. */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/** The employees. */
+	private List<Employee> employees;
+
+	/** The compact hierarchy of the employees, for building indices over. */
+	private CompactHierarchy compactHierarchy;
+
+	/**
+	 * Generate the employees.
+	 */
+	@Setup
+	public void setup() {
+		this.employees = this.shape.generate(this.size);
+		this.compactHierarchy = CompactHierarchy.of(this.employees);
+	}
+
+	/**
+	 * Build the tree form of the hierarchy.
+	 *
+	 * @return The hierarchy.
+	 */
+	@Benchmark
+	public Hierarchy hierarchyOf() {
+		return Hierarchy.of(this.employees);
+	}
+
+	/**
+	 * Build the compact form of the hierarchy.
+	 *
+	 * @return The hierarchy.
+	 */
+	@Benchmark
+	public CompactHierarchy compactHierarchyOf() {
+		return CompactHierarchy.of(this.employees);
+	}
+
+	/**
+	 * Build the Euler tour index over the compact hierarchy.
+	 *
+	 * @return The index.
+	 */
+	@Benchmark
+	public EulerTourIndex eulerTourIndexOf() {
+		return EulerTourIndex.of(this.compactHierarchy);
+	}
+}
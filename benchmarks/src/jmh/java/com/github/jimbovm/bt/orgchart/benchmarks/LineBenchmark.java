@@ -0,0 +1,83 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.jimbovm.bt.orgchart.App;
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Benchmarks of the per-line work of loading a chart: parsing one record and
+ * normalizing one name. Each invocation handles the next of a fixed set of
+ * lines, so the branch predictor cannot learn a single input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LineBenchmark {
+
+	/** Number of distinct lines cycled through; a power of two. */
+	private static final int LINES = 1 << 12;
+
+	/** The shape of the organisation the lines come from. */
+	@Param({ "CHAIN", "STAR", "BALANCED", "RANDOM" })
+	public Shape shape;
+
+	/** The number of employees, which sets the width of the ID fields. */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/** Org chart lines. */
+	private String[] lines;
+
+	/** Names as they might be typed by a user, with extra spaces and capitals. */
+	private String[] names;
+
+	/** Position of the next input to use. */
+	private int next;
+
+	/**
+	 * Generate the lines and names.
+	 */
+	@Setup
+	public void setup() {
+
+		final var employees = this.shape.generate(this.size);
+		this.lines = new String[LINES];
+		this.names = new String[LINES];
+		for (var i = 0; i < LINES; i++) {
+			final Employee employee = employees.get(i % employees.size());
+			this.lines[i] = Shape.line(employee);
+			this.names[i] = "  " + employee.name().toUpperCase().replace(" ", "   ") + " ";
+		}
+	}
+
+	/**
+	 * Parse one record.
+	 *
+	 * @return The record.
+	 */
+	@Benchmark
+	public Employee parseLine() {
+		return Parser.parseLine(this.lines[this.next++ & (LINES - 1)]);
+	}
+
+	/**
+	 * Normalize one name.
+	 *
+	 * @return The normalized name.
+	 */
+	@Benchmark
+	public String normalizeName() {
+		return App.normalizeName(this.names[this.next++ & (LINES - 1)]);
+	}
+}
@@ -0,0 +1,110 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.NameIndex;
+import com.github.jimbovm.bt.orgchart.NameSearch;
+
+/**
+ * Benchmarks of building the name search and of prefix and approximate name
+ * queries against it.
+ *
+ * Names do not depend on the shape of the organisation, so only random
+ * organisations are measured. Each query invocation searches for the next of a
+ * fixed set of employee names with one character appended, as a user might
+ * mistype them. Approximate queries are also sampled, so that their latency
+ * percentiles are reported alongside the average.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameSearchBenchmark {
+
+	/** Number of distinct queries cycled through; a power of two. */
+	private static final int QUERIES = 1 << 10;
+
+	/** Maximum number of results of each query, as used by the server. */
+	private static final int LIMIT = 10;
+
+	/** The number of employees. */
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	/** Maximum edit distance of approximate queries; the server uses 2. */
+	@Param({ "1", "2" })
+	public int distance;
+
+	/** The index of employees by name. */
+	private NameIndex nameIndex;
+
+	/** The name search over the index. */
+	private NameSearch nameSearch;
+
+	/** The queries. */
+	private String[] queries;
+
+	/** Position of the next query. */
+	private int next;
+
+	/**
+	 * Build the name search and choose the queries.
+	 */
+	@Setup
+	public void setup() {
+
+		final var employees = Shape.RANDOM.generate(this.size);
+		this.nameIndex = NameIndex.of(employees);
+		this.nameSearch = NameSearch.of(this.nameIndex);
+
+		final var random = new Random(this.size);
+		this.queries = new String[QUERIES];
+		for (var query = 0; query < QUERIES; query++) {
+			this.queries[query] = employees.get(random.nextInt(employees.size())).name() + "x";
+		}
+	}
+
+	/**
+	 * Build the name search, as is done once for each version of a chart.
+	 *
+	 * @return The name search.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public NameSearch build() {
+		return NameSearch.of(this.nameIndex);
+	}
+
+	/**
+	 * Find employees whose names start with the query.
+	 *
+	 * @return The employees found.
+	 */
+	@Benchmark
+	public List<Employee> withPrefix() {
+		final var query = this.queries[this.next++ & (QUERIES - 1)];
+		return this.nameSearch.withPrefix(query.substring(0, query.length() / 2), LIMIT);
+	}
+
+	/**
+	 * Find employees whose names are within a small edit distance of the query.
+	 *
+	 * @return The employees found.
+	 */
+	@Benchmark
+	@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+	public List<Employee> similarTo() {
+		return this.nameSearch.similarTo(this.queries[this.next++ & (QUERIES - 1)], this.distance, LIMIT);
+	}
+}
@@ -0,0 +1,82 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.parser.Parser;
+
+/**
+ * Benchmarks of parsing whole org chart files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+
+	/** The shape of the organisation. */
+	@Param({ "CHAIN", "STAR", "BALANCED", "RANDOM" })
+	public Shape shape;
+
+	/** The number of employees. */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/** The generated org chart file. */
+	private Path file;
+
+	/**
+	 * Write the org chart file.
+	 *
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		this.file = this.shape.write(this.size);
+	}
+
+	/**
+	 * Delete the org chart file.
+	 *
+	 * @throws IOException if the file cannot be deleted.
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.file);
+	}
+
+	/**
+	 * Parse the file sequentially.
+	 *
+	 * @return The records parsed.
+	 * @throws IOException if the file cannot be read.
+	 */
+	@Benchmark
+	public List<Employee> parse() throws IOException {
+		return Parser.parse(this.file.toString());
+	}
+
+	/**
+	 * Parse the file in parallel through memory mapping.
+	 *
+	 * @return The records parsed.
+	 * @throws IOException if the file cannot be read.
+	 */
+	@Benchmark
+	public List<Employee> parseParallel() throws IOException {
+		return Parser.parseParallel(this.file.toString());
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.jimbovm.bt.orgchart.CompactHierarchy;
+import com.github.jimbovm.bt.orgchart.Employee;
+import com.github.jimbovm.bt.orgchart.EulerTourIndex;
+import com.github.jimbovm.bt.orgchart.Hierarchy;
+import com.github.jimbovm.bt.orgchart.PathFinder;
+import com.github.jimbovm.bt.orgchart.ShortestPath;
+
+/**
+ * Benchmarks of single path queries between random pairs of employees, by
+ * searching the tree form of the hierarchy and through the Euler tour index.
+ *
+ * Each invocation answers the next of a fixed set of random pairs. Neither
+ * pathfinder has a cache, so every query is searched in full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderBenchmark {
+
+	/** Number of distinct pairs cycled through; a power of two. */
+	private static final int PAIRS = 1 << 10;
+
+	/** The shape of the organisation. */
+	@Param({ "CHAIN", "STAR", "BALANCED", "RANDOM" })
+	public Shape shape;
+
+	/** The number of employees. */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/** Pathfinder searching the tree form. */
+	private PathFinder treePathFinder;
+
+	/** Pathfinder using the Euler tour index. */
+	private PathFinder indexPathFinder;
+
+	/** First employees of the pairs. */
+	private Employee[] firsts;
+
+	/** Second employees of the pairs. */
+	private Employee[] seconds;
+
+	/** Position of the next pair to query. */
+	private int next;
+
+	/**
+	 * Build the hierarchy and choose the pairs.
+	 */
+	@Setup
+	public void setup() {
+
+		final var employees = this.shape.generate(this.size);
+		this.treePathFinder = new PathFinder(Hierarchy.of(employees));
+		this.indexPathFinder = new PathFinder(EulerTourIndex.of(CompactHierarchy.of(employees)));
+
+		final var random = new Random(this.size);
+		this.firsts = new Employee[PAIRS];
+		this.seconds = new Employee[PAIRS];
+		for (var pair = 0; pair < PAIRS; pair++) {
+			this.firsts[pair] = employees.get(random.nextInt(employees.size()));
+			this.seconds[pair] = employees.get(random.nextInt(employees.size()));
+		}
+	}
+
+	/**
+	 * Find a path by searching down the tree from the chief.
+	 *
+	 * @return The path.
+	 */
+	@Benchmark
+	public ShortestPath treeSearch() {
+		final var pair = this.next++ & (PAIRS - 1);
+		return this.treePathFinder.find(this.firsts[pair], this.seconds[pair]);
+	}
+
+	/**
+	 * Find a path through the Euler tour index.
+	 *
+	 * @return The path.
+	 */
+	@Benchmark
+	public ShortestPath indexed() {
+		final var pair = this.next++ & (PAIRS - 1);
+		return this.indexPathFinder.find(this.firsts[pair], this.seconds[pair]);
+	}
+}
@@ -0,0 +1,89 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.jimbovm.bt.orgchart.CompactHierarchy;
+import com.github.jimbovm.bt.orgchart.Hierarchy;
+
+/**
+ * Benchmarks of rendering a hierarchy as text, both into a string and streamed
+ * to a Writer, which discards it, so only the cost of rendering is measured.
+ *
+ * Sizes are smaller than for the other benchmarks, as the rendering of a chain
+ * is indented by its depth and so grows with the square of its length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderBenchmark {
+
+	/** The shape of the organisation. */
+	@Param({ "CHAIN", "STAR", "BALANCED", "RANDOM" })
+	public Shape shape;
+
+	/** The number of employees. */
+	@Param({ "1000", "10000" })
+	public int size;
+
+	/** The hierarchy to render. */
+	private Hierarchy hierarchy;
+
+	/** The same hierarchy in compact form. */
+	private CompactHierarchy compactHierarchy;
+
+	/** Destination of streamed renderings. */
+	private final Writer writer = Writer.nullWriter();
+
+	/**
+	 * Build the hierarchy.
+	 */
+	@Setup
+	public void setup() {
+		final var employees = this.shape.generate(this.size);
+		this.hierarchy = Hierarchy.of(employees);
+		this.compactHierarchy = CompactHierarchy.of(employees);
+	}
+
+	/**
+	 * Render the hierarchy as a nested tree.
+	 *
+	 * @return The rendering.
+	 */
+	@Benchmark
+	public String hierarchyToString() {
+		return this.hierarchy.toString();
+	}
+
+	/**
+	 * Stream the tree form of the hierarchy to a Writer.
+	 *
+	 * @return The writer.
+	 * @throws IOException never, as the writer discards its input.
+	 */
+	@Benchmark
+	public Writer hierarchyRender() throws IOException {
+		return this.hierarchy.render(this.writer);
+	}
+
+	/**
+	 * Stream the compact form of the hierarchy to a Writer.
+	 *
+	 * @return The writer.
+	 * @throws IOException never, as the writer discards its input.
+	 */
+	@Benchmark
+	public Writer compactHierarchyRender() throws IOException {
+		return this.compactHierarchy.render(this.writer);
+	}
+}
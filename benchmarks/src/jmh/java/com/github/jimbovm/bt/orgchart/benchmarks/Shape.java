@@ -0,0 +1,97 @@
+package com.github.jimbovm.bt.orgchart.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.github.jimbovm.bt.orgchart.Employee;
+
+/**
+ * Shapes of generated organisations over which the benchmarks are
+ * parameterized, covering the extremes of depth and fan-out as well as the
+ * typical case.
+ */
+public enum Shape {
+
+	/** Each employee reports to the one before, so the depth is n - 1. */
+	CHAIN,
+
+	/** Everyone reports to the chief, so the fan-out is n - 1. */
+	STAR,
+
+	/** Each manager has BALANCED_FAN_OUT reports, so the depth is logarithmic. */
+	BALANCED,
+
+	/** Each employee reports to a random earlier one. */
+	RANDOM;
+
+	/** Number of direct reports of each manager in a balanced organisation. */
+	private static final int BALANCED_FAN_OUT = 8;
+
+	/** Seed for random shapes and names, so that every run sees the same input. */
+	private static final long SEED = 20;
+
+	/** Names given to employees, with a numeric suffix. */
+	private static final String[] NAMES = { "Goomba", "Koopa Troopa", "Hammer Bro", "Boo", "Shy Guy",
+			"Bob-omb", "Dry Bones", "Lakitu" };
+
+	/**
+	 * Generate an organisation of this shape.
+	 *
+	 * @param size The number of employees, at least 1.
+	 * @return The employees, with the chief first and every manager before their
+	 *         reports.
+	 */
+	public List<Employee> generate(int size) {
+
+		final var random = new Random(SEED);
+		List<Employee> employees = new ArrayList<>(size);
+		employees.add(new Employee(0, "Bowser", 0));
+		for (var id = 1; id < size; id++) {
+			final var manager = switch (this) {
+				case CHAIN -> id - 1;
+				case STAR -> 0;
+				case BALANCED -> (id - 1) / BALANCED_FAN_OUT;
+				case RANDOM -> random.nextInt(id);
+			};
+			final var name = NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(size);
+			employees.add(new Employee(id, name, manager));
+		}
+		return employees;
+	}
+
+	/**
+	 * Write an organisation of this shape to a temporary org chart file.
+	 *
+	 * @param size The number of employees, at least 1.
+	 * @return The path to the file, which the caller must delete.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public Path write(int size) throws IOException {
+
+		final var path = Files.createTempFile("org-chart-" + this.name().toLowerCase() + "-" + size, ".txt");
+		try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("| Employee ID | Name | Manager ID |\n");
+			for (var employee : generate(size)) {
+				writer.write(line(employee));
+				writer.write('\n');
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Format an employee as a line of an org chart file.
+	 *
+	 * @param employee An employee.
+	 * @return The line, without a line terminator.
+	 */
+	static String line(Employee employee) {
+		return String.format("| %d | %s | %s |", employee.id(), employee.name(),
+				employee.isChief() ? "" : String.valueOf(employee.manager()));
+	}
+}
@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "bt-org-chart"
 include("app")
+include("benchmarks")